@@ -0,0 +1,57 @@
+package org.sunbird.common.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs periodic jobs on one node at a time, under a Postgres session advisory
+ * lock. The lock is held on the connection passed to the job and released
+ * when the job returns, or by Postgres when the connection is lost.
+ */
+@Service
+public class AdvisoryLockService {
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	/**
+	 * @return false when another node holds the lock, the action is not run then
+	 */
+	public boolean executeExclusively(long lockKey, ConnectionCallback<?> action) {
+		Boolean executed = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+			if (!tryLock(connection, lockKey)) {
+				return false;
+			}
+			try {
+				action.doInConnection(connection);
+			} finally {
+				unlock(connection, lockKey);
+			}
+			return true;
+		});
+		return Boolean.TRUE.equals(executed);
+	}
+
+	private boolean tryLock(Connection connection, long lockKey) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+			statement.setLong(1, lockKey);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				return resultSet.next() && resultSet.getBoolean(1);
+			}
+		}
+	}
+
+	private void unlock(Connection connection, long lockKey) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+			statement.setLong(1, lockKey);
+			statement.execute();
+		}
+	}
+}
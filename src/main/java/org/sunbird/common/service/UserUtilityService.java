@@ -1,5 +1,6 @@
 package org.sunbird.common.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -7,6 +8,10 @@ public interface UserUtilityService {
 
 	boolean validateUser(String rootOrg, String userId);
 
+	Map<String, Boolean> validateUsers(String rootOrg, Collection<String> userIds);
+
 	Map<String, Object> getUsersDataFromUserIds(String rootOrg, List<String> userIds, List<String> source);
 
+	Map<String, Object> getUserProfileCacheStats();
+
 }
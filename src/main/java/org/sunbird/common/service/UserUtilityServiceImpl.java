@@ -1,8 +1,21 @@
 package org.sunbird.common.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpEntity;
@@ -14,12 +27,16 @@ import org.springframework.web.client.RestTemplate;
 import org.sunbird.common.model.OpenSaberApiResp;
 import org.sunbird.common.model.OpenSaberApiUserProfile;
 import org.sunbird.common.model.SunbirdApiResp;
+import org.sunbird.common.model.SunbirdApiRespContent;
 import org.sunbird.common.util.CbExtServerProperties;
 import org.sunbird.common.util.Constants;
 import org.sunbird.core.exception.ApplicationLogicError;
 import org.sunbird.core.logger.CbExtLogger;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 
 /**
  * @author akhilesh.kumar05
@@ -36,22 +53,69 @@ public class UserUtilityServiceImpl implements UserUtilityService {
 
 	private CbExtLogger logger = new CbExtLogger(getClass().getName());
 
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private Cache<String, OpenSaberApiUserProfile> profileCache;
+
+	private Cache<String, Boolean> validUserCache;
+
+	private Cache<String, Boolean> invalidUserCache;
+
+	private final ConcurrentMap<String, CompletableFuture<OpenSaberApiUserProfile>> inFlightRequests =
+			new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init() {
+		profileCache = CacheBuilder.newBuilder().maximumSize(props.getUserProfileCacheMaxSize())
+				.expireAfterWrite(props.getUserProfileCacheTtl(), TimeUnit.MILLISECONDS).recordStats().build();
+		validUserCache = CacheBuilder.newBuilder().maximumSize(props.getUserValidationCacheMaxSize())
+				.expireAfterWrite(props.getUserValidationCacheTtl(), TimeUnit.MILLISECONDS).build();
+		invalidUserCache = CacheBuilder.newBuilder().maximumSize(props.getUserValidationCacheMaxSize())
+				.expireAfterWrite(props.getUserValidationNegativeCacheTtl(), TimeUnit.MILLISECONDS).build();
+	}
+
 	@Override
 	public boolean validateUser(String rootOrg, String userId){
+		return Boolean.TRUE.equals(validateUsers(rootOrg, Collections.singletonList(userId)).get(userId));
+	}
+
+	/**
+	 * Checks the given users against learner-service in one search request.
+	 * Existing users are remembered for user.validation.cache.ttl.ms and unknown
+	 * ones for the shorter user.validation.negative.cache.ttl.ms, so only ids
+	 * missing from both caches are searched.
+	 */
+	@Override
+	public Map<String, Boolean> validateUsers(String rootOrg, Collection<String> userIds) {
+		Map<String, Boolean> result = new HashMap<>();
+		List<String> missingIds = new ArrayList<>();
+		for (String userId : new LinkedHashSet<>(userIds)) {
+			if (validUserCache.getIfPresent(userId) != null) {
+				result.put(userId, true);
+			} else if (invalidUserCache.getIfPresent(userId) != null) {
+				result.put(userId, false);
+			} else {
+				missingIds.add(userId);
+			}
+		}
+		if (missingIds.isEmpty()) {
+			return result;
+		}
 
 		Map<String, Object> requestMap = new HashMap<>();
 
 		Map<String, Object> request = new HashMap<>();
 
-		Map<String, String> filters = new HashMap<>();
-		filters.put(Constants.USER_ID, userId);
+		Map<String, Object> filters = new HashMap<>();
+		filters.put(Constants.USER_ID, missingIds.size() == 1 ? missingIds.get(0) : missingIds);
 		request.put(Constants.FILTERS, filters);
+		request.put("limit", missingIds.size());
 
 		requestMap.put("request", request);
 		HttpHeaders headers = new HttpHeaders();
 		headers.setContentType(MediaType.APPLICATION_JSON);
 		try {
-			String reqBodyData = new ObjectMapper().writeValueAsString(requestMap);
+			String reqBodyData = mapper.writeValueAsString(requestMap);
 
 			HttpEntity<String> requestEnty = new HttpEntity<>(reqBodyData, headers);
 
@@ -59,9 +123,27 @@ public class UserUtilityServiceImpl implements UserUtilityService {
 
 			SunbirdApiResp sunbirdApiResp = restTemplate.postForObject(serverUrl, requestEnty, SunbirdApiResp.class);
 
-			boolean expression = (sunbirdApiResp != null && "OK".equalsIgnoreCase(sunbirdApiResp.getResponseCode())
-					&& sunbirdApiResp.getResult().getResponse().getCount() >= 1);
-				return expression;
+			Set<String> existingIds = new HashSet<>();
+			if (sunbirdApiResp != null && "OK".equalsIgnoreCase(sunbirdApiResp.getResponseCode())
+					&& sunbirdApiResp.getResult().getResponse().getCount() >= 1) {
+				if (missingIds.size() == 1) {
+					existingIds.add(missingIds.get(0));
+				} else if (sunbirdApiResp.getResult().getResponse().getContent() != null) {
+					for (SunbirdApiRespContent content : sunbirdApiResp.getResult().getResponse().getContent()) {
+						existingIds.add(content.getId() != null ? content.getId() : content.getIdentifier());
+					}
+				}
+			}
+			for (String userId : missingIds) {
+				boolean exists = existingIds.contains(userId);
+				if (exists) {
+					validUserCache.put(userId, Boolean.TRUE);
+				} else {
+					invalidUserCache.put(userId, Boolean.FALSE);
+				}
+				result.put(userId, exists);
+			}
+			return result;
 
 		} catch (Exception e) {
 			throw new ApplicationLogicError("Sunbird Service ERROR: ", e);
@@ -69,10 +151,85 @@ public class UserUtilityServiceImpl implements UserUtilityService {
 
 	}
 
+	/**
+	 * Returns the profiles of the given users, keyed by user id. Cached profiles
+	 * are served directly and only the misses are fetched from the hub-graph
+	 * service. When another request is already fetching some of the ids, this
+	 * request waits for that call instead of issuing its own. The source fields
+	 * are not part of the search request, so profiles are cached per user id.
+	 */
 	@Override
 	public Map<String, Object> getUsersDataFromUserIds(String rootOrg, List<String> userIds, List<String> source) {
-
 		Map<String, Object> result = new HashMap<>();
+		Map<String, CompletableFuture<OpenSaberApiUserProfile>> ownedRequests = new HashMap<>();
+		Map<String, CompletableFuture<OpenSaberApiUserProfile>> sharedRequests = new HashMap<>();
+		for (String userId : new LinkedHashSet<>(userIds)) {
+			OpenSaberApiUserProfile userProfile = profileCache.getIfPresent(userId);
+			if (userProfile != null) {
+				result.put(userId, userProfile);
+				continue;
+			}
+			CompletableFuture<OpenSaberApiUserProfile> request = new CompletableFuture<>();
+			CompletableFuture<OpenSaberApiUserProfile> inFlight = inFlightRequests.putIfAbsent(userId, request);
+			if (inFlight == null) {
+				ownedRequests.put(userId, request);
+			} else {
+				sharedRequests.put(userId, inFlight);
+			}
+		}
+
+		if (!ownedRequests.isEmpty()) {
+			try {
+				Map<String, OpenSaberApiUserProfile> userProfiles = fetchUsersDataFromUserIds(
+						new ArrayList<>(ownedRequests.keySet()));
+				for (Map.Entry<String, CompletableFuture<OpenSaberApiUserProfile>> entry : ownedRequests.entrySet()) {
+					OpenSaberApiUserProfile userProfile = userProfiles.get(entry.getKey());
+					if (userProfile != null) {
+						profileCache.put(entry.getKey(), userProfile);
+						result.put(entry.getKey(), userProfile);
+					}
+					entry.getValue().complete(userProfile);
+				}
+			} catch (RuntimeException e) {
+				ownedRequests.values().forEach(request -> request.completeExceptionally(e));
+				throw e;
+			} finally {
+				ownedRequests.forEach(inFlightRequests::remove);
+			}
+		}
+
+		for (Map.Entry<String, CompletableFuture<OpenSaberApiUserProfile>> entry : sharedRequests.entrySet()) {
+			OpenSaberApiUserProfile userProfile;
+			try {
+				userProfile = entry.getValue().join();
+			} catch (CompletionException e) {
+				throw new ApplicationLogicError("Sunbird Service ERROR: ", e.getCause());
+			}
+			if (userProfile != null) {
+				result.put(entry.getKey(), userProfile);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public Map<String, Object> getUserProfileCacheStats() {
+		CacheStats cacheStats = profileCache.stats();
+		Map<String, Object> stats = new HashMap<>();
+		stats.put("size", profileCache.size());
+		stats.put("inFlight", inFlightRequests.size());
+		stats.put("hitCount", cacheStats.hitCount());
+		stats.put("missCount", cacheStats.missCount());
+		stats.put("hitRate", cacheStats.hitRate());
+		stats.put("evictionCount", cacheStats.evictionCount());
+		stats.put("validUsers", validUserCache.size());
+		stats.put("invalidUsers", invalidUserCache.size());
+		return stats;
+	}
+
+	private Map<String, OpenSaberApiUserProfile> fetchUsersDataFromUserIds(List<String> userIds) {
+
+		Map<String, OpenSaberApiUserProfile> result = new HashMap<>();
 
 		Map<String, Object> request = new HashMap<>();
 		Map<String, Object> filters = new HashMap<>();
@@ -85,7 +242,7 @@ public class UserUtilityServiceImpl implements UserUtilityService {
 		HttpHeaders headers = new HttpHeaders();
 		headers.setContentType(MediaType.APPLICATION_JSON);
 		try {
-			String reqBodyData = new ObjectMapper().writeValueAsString(request);
+			String reqBodyData = mapper.writeValueAsString(request);
 			HttpEntity<String> requestEnty = new HttpEntity<>(reqBodyData, headers);
 			String serverUrl = props.getSbHubGraphServiceUrl() + "/v1/user/search/profile";
 			OpenSaberApiResp openSaberApiResp = restTemplate.postForObject(serverUrl, requestEnty,
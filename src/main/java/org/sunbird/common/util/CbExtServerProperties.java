@@ -126,6 +126,171 @@ public class CbExtServerProperties {
 
     @Value("${content.default.orgId}")
     private String contentDefaultOrgId;
+
+    @Value("${portal.refdata.cache.ttl.ms}")
+    private long portalRefDataCacheTtl;
+
+    @Value("${portal.auth.cache.max.size}")
+    private long portalAuthCacheMaxSize;
+
+    @Value("${portal.auth.cache.ttl.ms}")
+    private long portalAuthCacheTtl;
+
+    @Value("${portal.public.directory.ttl.ms}")
+    private long portalPublicDirectoryTtl;
+
+    @Value("${portal.dept.users.page.max.size}")
+    private int portalDeptUsersPageMaxSize;
+
+    @Value("${portal.user.profile.chunk.size}")
+    private int portalUserProfileChunkSize;
+
+    @Value("${user.profile.cache.max.size}")
+    private long userProfileCacheMaxSize;
+
+    @Value("${user.profile.cache.ttl.ms}")
+    private long userProfileCacheTtl;
+
+    @Value("${user.validation.cache.max.size}")
+    private long userValidationCacheMaxSize;
+
+    @Value("${user.validation.cache.ttl.ms}")
+    private long userValidationCacheTtl;
+
+    @Value("${user.validation.negative.cache.ttl.ms}")
+    private long userValidationNegativeCacheTtl;
+
+    @Value("${kafka.topics.workflow.notification}")
+    private String workflowNotificationTopic;
+
+    @Value("${workflow.notification.retry.max.attempts}")
+    private int workflowNotificationMaxAttempts;
+
+    @Value("${workflow.notification.retry.backoff.ms}")
+    private long workflowNotificationBackoff;
+
+    @Value("${portal.userrole.bulk.max.size}")
+    private int portalUserRoleBulkMaxSize;
+
+    @Value("${portal.userrole.bulk.batch.size}")
+    private int portalUserRoleBulkBatchSize;
+
+    @Value("${portal.dept.typeahead.max.limit}")
+    private int portalDeptTypeaheadMaxLimit;
+
+    @Value("${portal.claims.token.secret}")
+    private String portalClaimsTokenSecret;
+
+    @Value("${portal.claims.token.ttl.ms}")
+    private long portalClaimsTokenTtl;
+
+    @Value("${portal.dept.logo.max.size}")
+    private int portalDeptLogoMaxSize;
+
+    @Value("${portal.dept.logo.thumbnail.size}")
+    private int portalDeptLogoThumbnailSize;
+
+    @Value("${portal.dept.logo.cache.max.age.seconds}")
+    private long portalDeptLogoCacheMaxAge;
+
+    @Value("${es.profile.search.timeout.ms}")
+    private long esProfileSearchTimeout;
+
+    @Value("${portal.user.search.page.size}")
+    private int portalUserSearchPageSize;
+
+    @Value("${portal.user.search.max.members}")
+    private int portalUserSearchMaxMembers;
+
+    @Value("${portal.audit.partition.premake.months}")
+    private int portalAuditPartitionPremakeMonths;
+
+    @Value("${portal.audit.retention.months}")
+    private int portalAuditRetentionMonths;
+
+    @Value("${portal.audit.archive.dir}")
+    private String portalAuditArchiveDir;
+
+    @Value("${portal.audit.maintenance.interval.ms}")
+    private long portalAuditMaintenanceInterval;
+
+    @Value("${portal.dept.export.chunk.size}")
+    private int portalDeptExportChunkSize;
+
+    @Value("${workorder.count.reconcile.interval.ms}")
+    private long workOrderCountReconcileInterval;
+
+    @Value("${workorder.count.reconcile.batch.size}")
+    private int workOrderCountReconcileBatchSize;
+
+    @Value("${es.indexing.bulk.actions}")
+    private int esIndexingBulkActions;
+
+    @Value("${es.indexing.bulk.size.mb}")
+    private long esIndexingBulkSizeMb;
+
+    @Value("${es.indexing.flush.interval.ms}")
+    private long esIndexingFlushInterval;
+
+    @Value("${es.indexing.concurrent.requests}")
+    private int esIndexingConcurrentRequests;
+
+    @Value("${es.indexing.queue.capacity}")
+    private int esIndexingQueueCapacity;
+
+    @Value("${es.indexing.queue.offer.timeout.ms}")
+    private long esIndexingQueueOfferTimeout;
+
+    @Value("${es.indexing.max.retries}")
+    private int esIndexingMaxRetries;
+
+    @Value("${es.indexing.retry.backoff.ms}")
+    private long esIndexingRetryBackoff;
+
+    @Value("${es.indexing.dead.letter.replay.interval.ms}")
+    private long esIndexingDeadLetterReplayInterval;
+
+    @Value("${workallocation.cache.max.size}")
+    private int workAllocationCacheMaxSize;
+
+    @Value("${workallocation.cache.ttl.ms}")
+    private long workAllocationCacheTtl;
+
+    @Value("${workorder.copy.chunk.size}")
+    private int workOrderCopyChunkSize;
+
+    @Value("${workorder.copy.write.parallelism}")
+    private int workOrderCopyWriteParallelism;
+
+    @Value("${workorder.copy.async.threshold}")
+    private int workOrderCopyAsyncThreshold;
+
+    @Value("${workorder.copy.pool.size}")
+    private int workOrderCopyPoolSize;
+
+    @Value("${workorder.copy.queue.size}")
+    private int workOrderCopyQueueSize;
+
+    @Value("${kafka.topics.workflow.notification.retry}")
+    private String workflowNotificationRetryTopic;
+
+    @Value("${kafka.topics.workflow.notification.dead.letter}")
+    private String workflowNotificationDeadLetterTopic;
+
+    @Value("${kafka.topics.userrole.audit.dead.letter}")
+    private String userRoleAuditDeadLetterTopic;
+
+    @Value("${kafka.topics.userrole.auth.revocation}")
+    private String userRoleAuthRevocationTopic;
+
+    @Value("${portal.claims.token.revocation.max.size}")
+    private long portalClaimsTokenRevocationMaxSize;
+
+    @Value("${workflow.notification.outbox.batch.size}")
+    private int workflowNotificationOutboxBatchSize;
+
+    @Value("${workflow.notification.outbox.republish.after.ms}")
+    private long workflowNotificationOutboxRepublishAfter;
 	
     public String getContentHost() {
 		return contentHost;
@@ -457,4 +622,444 @@ public class CbExtServerProperties {
     public void setContentDefaultOrgId(String contentDefaultOrgId) {
         this.contentDefaultOrgId = contentDefaultOrgId;
     }
-}
\ No newline at end of file
+
+    public long getPortalRefDataCacheTtl() {
+        return portalRefDataCacheTtl;
+    }
+
+    public void setPortalRefDataCacheTtl(long portalRefDataCacheTtl) {
+        this.portalRefDataCacheTtl = portalRefDataCacheTtl;
+    }
+
+    public long getPortalAuthCacheMaxSize() {
+        return portalAuthCacheMaxSize;
+    }
+
+    public void setPortalAuthCacheMaxSize(long portalAuthCacheMaxSize) {
+        this.portalAuthCacheMaxSize = portalAuthCacheMaxSize;
+    }
+
+    public long getPortalAuthCacheTtl() {
+        return portalAuthCacheTtl;
+    }
+
+    public void setPortalAuthCacheTtl(long portalAuthCacheTtl) {
+        this.portalAuthCacheTtl = portalAuthCacheTtl;
+    }
+
+    public long getPortalPublicDirectoryTtl() {
+        return portalPublicDirectoryTtl;
+    }
+
+    public void setPortalPublicDirectoryTtl(long portalPublicDirectoryTtl) {
+        this.portalPublicDirectoryTtl = portalPublicDirectoryTtl;
+    }
+
+    public int getPortalDeptUsersPageMaxSize() {
+        return portalDeptUsersPageMaxSize;
+    }
+
+    public void setPortalDeptUsersPageMaxSize(int portalDeptUsersPageMaxSize) {
+        this.portalDeptUsersPageMaxSize = portalDeptUsersPageMaxSize;
+    }
+
+    public int getPortalUserProfileChunkSize() {
+        return portalUserProfileChunkSize;
+    }
+
+    public void setPortalUserProfileChunkSize(int portalUserProfileChunkSize) {
+        this.portalUserProfileChunkSize = portalUserProfileChunkSize;
+    }
+
+    public long getUserProfileCacheMaxSize() {
+        return userProfileCacheMaxSize;
+    }
+
+    public void setUserProfileCacheMaxSize(long userProfileCacheMaxSize) {
+        this.userProfileCacheMaxSize = userProfileCacheMaxSize;
+    }
+
+    public long getUserProfileCacheTtl() {
+        return userProfileCacheTtl;
+    }
+
+    public void setUserProfileCacheTtl(long userProfileCacheTtl) {
+        this.userProfileCacheTtl = userProfileCacheTtl;
+    }
+
+    public long getUserValidationCacheMaxSize() {
+        return userValidationCacheMaxSize;
+    }
+
+    public void setUserValidationCacheMaxSize(long userValidationCacheMaxSize) {
+        this.userValidationCacheMaxSize = userValidationCacheMaxSize;
+    }
+
+    public long getUserValidationCacheTtl() {
+        return userValidationCacheTtl;
+    }
+
+    public void setUserValidationCacheTtl(long userValidationCacheTtl) {
+        this.userValidationCacheTtl = userValidationCacheTtl;
+    }
+
+    public long getUserValidationNegativeCacheTtl() {
+        return userValidationNegativeCacheTtl;
+    }
+
+    public void setUserValidationNegativeCacheTtl(long userValidationNegativeCacheTtl) {
+        this.userValidationNegativeCacheTtl = userValidationNegativeCacheTtl;
+    }
+
+    public String getWorkflowNotificationTopic() {
+        return workflowNotificationTopic;
+    }
+
+    public void setWorkflowNotificationTopic(String workflowNotificationTopic) {
+        this.workflowNotificationTopic = workflowNotificationTopic;
+    }
+
+    public int getWorkflowNotificationMaxAttempts() {
+        return workflowNotificationMaxAttempts;
+    }
+
+    public void setWorkflowNotificationMaxAttempts(int workflowNotificationMaxAttempts) {
+        this.workflowNotificationMaxAttempts = workflowNotificationMaxAttempts;
+    }
+
+    public long getWorkflowNotificationBackoff() {
+        return workflowNotificationBackoff;
+    }
+
+    public void setWorkflowNotificationBackoff(long workflowNotificationBackoff) {
+        this.workflowNotificationBackoff = workflowNotificationBackoff;
+    }
+
+    public int getPortalUserRoleBulkMaxSize() {
+        return portalUserRoleBulkMaxSize;
+    }
+
+    public void setPortalUserRoleBulkMaxSize(int portalUserRoleBulkMaxSize) {
+        this.portalUserRoleBulkMaxSize = portalUserRoleBulkMaxSize;
+    }
+
+    public int getPortalUserRoleBulkBatchSize() {
+        return portalUserRoleBulkBatchSize;
+    }
+
+    public void setPortalUserRoleBulkBatchSize(int portalUserRoleBulkBatchSize) {
+        this.portalUserRoleBulkBatchSize = portalUserRoleBulkBatchSize;
+    }
+
+    public int getPortalDeptTypeaheadMaxLimit() {
+        return portalDeptTypeaheadMaxLimit;
+    }
+
+    public void setPortalDeptTypeaheadMaxLimit(int portalDeptTypeaheadMaxLimit) {
+        this.portalDeptTypeaheadMaxLimit = portalDeptTypeaheadMaxLimit;
+    }
+
+    public String getPortalClaimsTokenSecret() {
+        return portalClaimsTokenSecret;
+    }
+
+    public void setPortalClaimsTokenSecret(String portalClaimsTokenSecret) {
+        this.portalClaimsTokenSecret = portalClaimsTokenSecret;
+    }
+
+    public long getPortalClaimsTokenTtl() {
+        return portalClaimsTokenTtl;
+    }
+
+    public void setPortalClaimsTokenTtl(long portalClaimsTokenTtl) {
+        this.portalClaimsTokenTtl = portalClaimsTokenTtl;
+    }
+
+    public int getPortalDeptLogoMaxSize() {
+        return portalDeptLogoMaxSize;
+    }
+
+    public void setPortalDeptLogoMaxSize(int portalDeptLogoMaxSize) {
+        this.portalDeptLogoMaxSize = portalDeptLogoMaxSize;
+    }
+
+    public int getPortalDeptLogoThumbnailSize() {
+        return portalDeptLogoThumbnailSize;
+    }
+
+    public void setPortalDeptLogoThumbnailSize(int portalDeptLogoThumbnailSize) {
+        this.portalDeptLogoThumbnailSize = portalDeptLogoThumbnailSize;
+    }
+
+    public long getPortalDeptLogoCacheMaxAge() {
+        return portalDeptLogoCacheMaxAge;
+    }
+
+    public void setPortalDeptLogoCacheMaxAge(long portalDeptLogoCacheMaxAge) {
+        this.portalDeptLogoCacheMaxAge = portalDeptLogoCacheMaxAge;
+    }
+
+    public long getEsProfileSearchTimeout() {
+        return esProfileSearchTimeout;
+    }
+
+    public void setEsProfileSearchTimeout(long esProfileSearchTimeout) {
+        this.esProfileSearchTimeout = esProfileSearchTimeout;
+    }
+
+    public int getPortalUserSearchPageSize() {
+        return portalUserSearchPageSize;
+    }
+
+    public void setPortalUserSearchPageSize(int portalUserSearchPageSize) {
+        this.portalUserSearchPageSize = portalUserSearchPageSize;
+    }
+
+    public int getPortalUserSearchMaxMembers() {
+        return portalUserSearchMaxMembers;
+    }
+
+    public void setPortalUserSearchMaxMembers(int portalUserSearchMaxMembers) {
+        this.portalUserSearchMaxMembers = portalUserSearchMaxMembers;
+    }
+
+    public int getPortalAuditPartitionPremakeMonths() {
+        return portalAuditPartitionPremakeMonths;
+    }
+
+    public void setPortalAuditPartitionPremakeMonths(int portalAuditPartitionPremakeMonths) {
+        this.portalAuditPartitionPremakeMonths = portalAuditPartitionPremakeMonths;
+    }
+
+    public int getPortalAuditRetentionMonths() {
+        return portalAuditRetentionMonths;
+    }
+
+    public void setPortalAuditRetentionMonths(int portalAuditRetentionMonths) {
+        this.portalAuditRetentionMonths = portalAuditRetentionMonths;
+    }
+
+    public String getPortalAuditArchiveDir() {
+        return portalAuditArchiveDir;
+    }
+
+    public void setPortalAuditArchiveDir(String portalAuditArchiveDir) {
+        this.portalAuditArchiveDir = portalAuditArchiveDir;
+    }
+
+    public long getPortalAuditMaintenanceInterval() {
+        return portalAuditMaintenanceInterval;
+    }
+
+    public void setPortalAuditMaintenanceInterval(long portalAuditMaintenanceInterval) {
+        this.portalAuditMaintenanceInterval = portalAuditMaintenanceInterval;
+    }
+
+    public int getPortalDeptExportChunkSize() {
+        return portalDeptExportChunkSize;
+    }
+
+    public void setPortalDeptExportChunkSize(int portalDeptExportChunkSize) {
+        this.portalDeptExportChunkSize = portalDeptExportChunkSize;
+    }
+
+    public long getWorkOrderCountReconcileInterval() {
+        return workOrderCountReconcileInterval;
+    }
+
+    public void setWorkOrderCountReconcileInterval(long workOrderCountReconcileInterval) {
+        this.workOrderCountReconcileInterval = workOrderCountReconcileInterval;
+    }
+
+    public int getWorkOrderCountReconcileBatchSize() {
+        return workOrderCountReconcileBatchSize;
+    }
+
+    public void setWorkOrderCountReconcileBatchSize(int workOrderCountReconcileBatchSize) {
+        this.workOrderCountReconcileBatchSize = workOrderCountReconcileBatchSize;
+    }
+
+    public int getEsIndexingBulkActions() {
+        return esIndexingBulkActions;
+    }
+
+    public void setEsIndexingBulkActions(int esIndexingBulkActions) {
+        this.esIndexingBulkActions = esIndexingBulkActions;
+    }
+
+    public long getEsIndexingBulkSizeMb() {
+        return esIndexingBulkSizeMb;
+    }
+
+    public void setEsIndexingBulkSizeMb(long esIndexingBulkSizeMb) {
+        this.esIndexingBulkSizeMb = esIndexingBulkSizeMb;
+    }
+
+    public long getEsIndexingFlushInterval() {
+        return esIndexingFlushInterval;
+    }
+
+    public void setEsIndexingFlushInterval(long esIndexingFlushInterval) {
+        this.esIndexingFlushInterval = esIndexingFlushInterval;
+    }
+
+    public int getEsIndexingConcurrentRequests() {
+        return esIndexingConcurrentRequests;
+    }
+
+    public void setEsIndexingConcurrentRequests(int esIndexingConcurrentRequests) {
+        this.esIndexingConcurrentRequests = esIndexingConcurrentRequests;
+    }
+
+    public int getEsIndexingQueueCapacity() {
+        return esIndexingQueueCapacity;
+    }
+
+    public void setEsIndexingQueueCapacity(int esIndexingQueueCapacity) {
+        this.esIndexingQueueCapacity = esIndexingQueueCapacity;
+    }
+
+    public long getEsIndexingQueueOfferTimeout() {
+        return esIndexingQueueOfferTimeout;
+    }
+
+    public void setEsIndexingQueueOfferTimeout(long esIndexingQueueOfferTimeout) {
+        this.esIndexingQueueOfferTimeout = esIndexingQueueOfferTimeout;
+    }
+
+    public int getEsIndexingMaxRetries() {
+        return esIndexingMaxRetries;
+    }
+
+    public void setEsIndexingMaxRetries(int esIndexingMaxRetries) {
+        this.esIndexingMaxRetries = esIndexingMaxRetries;
+    }
+
+    public long getEsIndexingRetryBackoff() {
+        return esIndexingRetryBackoff;
+    }
+
+    public void setEsIndexingRetryBackoff(long esIndexingRetryBackoff) {
+        this.esIndexingRetryBackoff = esIndexingRetryBackoff;
+    }
+
+    public long getEsIndexingDeadLetterReplayInterval() {
+        return esIndexingDeadLetterReplayInterval;
+    }
+
+    public void setEsIndexingDeadLetterReplayInterval(long esIndexingDeadLetterReplayInterval) {
+        this.esIndexingDeadLetterReplayInterval = esIndexingDeadLetterReplayInterval;
+    }
+
+    public int getWorkAllocationCacheMaxSize() {
+        return workAllocationCacheMaxSize;
+    }
+
+    public void setWorkAllocationCacheMaxSize(int workAllocationCacheMaxSize) {
+        this.workAllocationCacheMaxSize = workAllocationCacheMaxSize;
+    }
+
+    public long getWorkAllocationCacheTtl() {
+        return workAllocationCacheTtl;
+    }
+
+    public void setWorkAllocationCacheTtl(long workAllocationCacheTtl) {
+        this.workAllocationCacheTtl = workAllocationCacheTtl;
+    }
+
+    public int getWorkOrderCopyChunkSize() {
+        return workOrderCopyChunkSize;
+    }
+
+    public void setWorkOrderCopyChunkSize(int workOrderCopyChunkSize) {
+        this.workOrderCopyChunkSize = workOrderCopyChunkSize;
+    }
+
+    public int getWorkOrderCopyWriteParallelism() {
+        return workOrderCopyWriteParallelism;
+    }
+
+    public void setWorkOrderCopyWriteParallelism(int workOrderCopyWriteParallelism) {
+        this.workOrderCopyWriteParallelism = workOrderCopyWriteParallelism;
+    }
+
+    public int getWorkOrderCopyAsyncThreshold() {
+        return workOrderCopyAsyncThreshold;
+    }
+
+    public void setWorkOrderCopyAsyncThreshold(int workOrderCopyAsyncThreshold) {
+        this.workOrderCopyAsyncThreshold = workOrderCopyAsyncThreshold;
+    }
+
+    public int getWorkOrderCopyPoolSize() {
+        return workOrderCopyPoolSize;
+    }
+
+    public void setWorkOrderCopyPoolSize(int workOrderCopyPoolSize) {
+        this.workOrderCopyPoolSize = workOrderCopyPoolSize;
+    }
+
+    public int getWorkOrderCopyQueueSize() {
+        return workOrderCopyQueueSize;
+    }
+
+    public void setWorkOrderCopyQueueSize(int workOrderCopyQueueSize) {
+        this.workOrderCopyQueueSize = workOrderCopyQueueSize;
+    }
+
+    public String getWorkflowNotificationRetryTopic() {
+        return workflowNotificationRetryTopic;
+    }
+
+    public void setWorkflowNotificationRetryTopic(String workflowNotificationRetryTopic) {
+        this.workflowNotificationRetryTopic = workflowNotificationRetryTopic;
+    }
+
+    public String getWorkflowNotificationDeadLetterTopic() {
+        return workflowNotificationDeadLetterTopic;
+    }
+
+    public void setWorkflowNotificationDeadLetterTopic(String workflowNotificationDeadLetterTopic) {
+        this.workflowNotificationDeadLetterTopic = workflowNotificationDeadLetterTopic;
+    }
+
+    public String getUserRoleAuditDeadLetterTopic() {
+        return userRoleAuditDeadLetterTopic;
+    }
+
+    public void setUserRoleAuditDeadLetterTopic(String userRoleAuditDeadLetterTopic) {
+        this.userRoleAuditDeadLetterTopic = userRoleAuditDeadLetterTopic;
+    }
+
+    public String getUserRoleAuthRevocationTopic() {
+        return userRoleAuthRevocationTopic;
+    }
+
+    public void setUserRoleAuthRevocationTopic(String userRoleAuthRevocationTopic) {
+        this.userRoleAuthRevocationTopic = userRoleAuthRevocationTopic;
+    }
+
+    public long getPortalClaimsTokenRevocationMaxSize() {
+        return portalClaimsTokenRevocationMaxSize;
+    }
+
+    public void setPortalClaimsTokenRevocationMaxSize(long portalClaimsTokenRevocationMaxSize) {
+        this.portalClaimsTokenRevocationMaxSize = portalClaimsTokenRevocationMaxSize;
+    }
+
+    public int getWorkflowNotificationOutboxBatchSize() {
+        return workflowNotificationOutboxBatchSize;
+    }
+
+    public void setWorkflowNotificationOutboxBatchSize(int workflowNotificationOutboxBatchSize) {
+        this.workflowNotificationOutboxBatchSize = workflowNotificationOutboxBatchSize;
+    }
+
+    public long getWorkflowNotificationOutboxRepublishAfter() {
+        return workflowNotificationOutboxRepublishAfter;
+    }
+
+    public void setWorkflowNotificationOutboxRepublishAfter(long workflowNotificationOutboxRepublishAfter) {
+        this.workflowNotificationOutboxRepublishAfter = workflowNotificationOutboxRepublishAfter;
+    }
+}
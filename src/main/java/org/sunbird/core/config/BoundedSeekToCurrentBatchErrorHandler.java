@@ -0,0 +1,71 @@
+package org.sunbird.core.config;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareBatchErrorHandler;
+import org.sunbird.core.logger.CbExtLogger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Seeks back to the failed batch so it is delivered again, after a short
+ * pause. A batch that fails maxAttempts times in a row is logged and its
+ * offsets are committed, so one failing batch cannot block its partitions
+ * forever.
+ */
+public class BoundedSeekToCurrentBatchErrorHandler implements ConsumerAwareBatchErrorHandler {
+
+    private CbExtLogger logger = new CbExtLogger(getClass().getName());
+
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    // First offset of the failed batch and its failures, per partition
+    private final Map<TopicPartition, long[]> failures = new ConcurrentHashMap<>();
+
+    public BoundedSeekToCurrentBatchErrorHandler(int maxAttempts, long backoffMs) {
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+    }
+
+    @Override
+    public void handle(Exception thrownException, ConsumerRecords<?, ?> data, Consumer<?, ?> consumer) {
+        Map<TopicPartition, Long> firstOffsets = new HashMap<>();
+        Map<TopicPartition, OffsetAndMetadata> nextOffsets = new HashMap<>();
+        for (ConsumerRecord<?, ?> record : data) {
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            firstOffsets.putIfAbsent(partition, record.offset());
+            nextOffsets.put(partition, new OffsetAndMetadata(record.offset() + 1));
+        }
+        int attempts = 0;
+        for (Map.Entry<TopicPartition, Long> firstOffset : firstOffsets.entrySet()) {
+            long[] failure = failures.compute(firstOffset.getKey(), (partition, previous) ->
+                    previous != null && Objects.equals(previous[0], firstOffset.getValue())
+                            ? new long[] { previous[0], previous[1] + 1 } : new long[] { firstOffset.getValue(), 1 });
+            attempts = Math.max(attempts, (int) failure[1]);
+        }
+        if (attempts >= maxAttempts) {
+            for (ConsumerRecord<?, ?> record : data) {
+                logger.error(new Exception("Skipped record " + record.topic() + "-" + record.partition() + "@"
+                        + record.offset() + " after " + attempts + " failed attempts: " + record.value(), thrownException));
+            }
+            firstOffsets.keySet().forEach(failures::remove);
+            consumer.commitSync(nextOffsets);
+            nextOffsets.forEach((partition, offset) -> consumer.seek(partition, offset.offset()));
+            return;
+        }
+        logger.info("Batch failed, attempt " + attempts + " of " + maxAttempts + ": " + thrownException.getMessage());
+        firstOffsets.forEach(consumer::seek);
+        try {
+            Thread.sleep(backoffMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.KafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
 import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
 
 import java.util.HashMap;
@@ -17,6 +18,11 @@ import java.util.Map;
 @Configuration
 public class ConsumerConfiguration {
 
+    private static final int BATCH_MAX_ATTEMPTS = 3;
+    private static final long BATCH_RETRY_BACKOFF_MS = 1000;
+    private static final int DEFERRING_MAX_POLL_RECORDS = 5;
+    private static final int DEFERRING_MAX_POLL_INTERVAL_MS = 60000;
+
     @Value("${spring.kafka.bootstrap.servers}")
     private String kafkabootstrapAddress;
 
@@ -40,6 +46,67 @@ public class ConsumerConfiguration {
         return factory;
     }
 
+    /**
+     * Hands each poll to the listener as one batch. Offsets are committed only
+     * when the listener acknowledges the batch. Listeners handle failed records
+     * themselves, by isolating and dead lettering them; if one still throws, the
+     * consumer seeks back and the batch is delivered again after a pause of
+     * BATCH_RETRY_BACKOFF_MS, up to BATCH_MAX_ATTEMPTS times before the batch
+     * is skipped.
+     */
+    @Bean
+    KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, String>> batchKafkaListenerContainerFactory() {
+
+        Map<String, Object> propsMap = new HashMap<>(consumerConfigs());
+        propsMap.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(propsMap));
+        factory.setConcurrency(4);
+        factory.setBatchListener(true);
+        factory.setBatchErrorHandler(new BoundedSeekToCurrentBatchErrorHandler(BATCH_MAX_ATTEMPTS, BATCH_RETRY_BACKOFF_MS));
+        factory.getContainerProperties().setPollTimeout(3000);
+        factory.getContainerProperties().setAckMode(AbstractMessageListenerContainer.AckMode.MANUAL);
+        return factory;
+    }
+
+    /**
+     * Hands each poll to the listener as one batch, for listeners that defer
+     * records by seeking back to them and pausing their container. Offsets are
+     * committed automatically from the consumer position, so a record that was
+     * sought back to is not committed. Polls are kept small with a long poll
+     * interval, since each record may wait on a remote call.
+     */
+    @Bean
+    KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, String>> deferringKafkaListenerContainerFactory() {
+
+        Map<String, Object> propsMap = new HashMap<>(consumerConfigs());
+        propsMap.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, DEFERRING_MAX_POLL_RECORDS);
+        propsMap.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, DEFERRING_MAX_POLL_INTERVAL_MS);
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(propsMap));
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setPollTimeout(3000);
+        return factory;
+    }
+
+    /**
+     * For listeners that every node must see every record of, such as cache
+     * invalidations. Each such listener uses a group id unique to the node, so
+     * all partitions of the topic are assigned to it, including ones added
+     * later. A new group starts from the latest offset, since a node that has
+     * just started has nothing cached yet.
+     */
+    @Bean
+    KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, String>> broadcastKafkaListenerContainerFactory() {
+
+        Map<String, Object> propsMap = new HashMap<>(consumerConfigs());
+        propsMap.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(propsMap));
+        factory.getContainerProperties().setPollTimeout(3000);
+        return factory;
+    }
+
     @Bean
     public ConsumerFactory<String, String> consumerFactory() {
         return new DefaultKafkaConsumerFactory<>(consumerConfigs());
@@ -1,20 +1,74 @@
 package org.sunbird.core.config;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.sql.DataSource;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
 
 @Configuration
 public class PostgresDataSourceConfig {
+
+	@Value("${spring.datasource.replica.jdbc-urls}")
+	private String replicaUrls;
+
+	@Value("${spring.datasource.replica.username}")
+	private String replicaUsername;
+
+	@Value("${spring.datasource.replica.password}")
+	private String replicaPassword;
+
+	@Value("${spring.datasource.replica.max.lag.ms}")
+	private long replicaMaxLag;
+
+	@Value("${spring.datasource.replica.lag.check.interval.ms}")
+	private long replicaLagCheckInterval;
+
+	@Autowired
+	private TaskScheduler taskScheduler;
+
 	@Bean
-	@Primary
 	@ConfigurationProperties(prefix = "spring.datasource")
-	public DataSource primaryDataSource() {
-		return DataSourceBuilder.create().build();
+	public HikariDataSource primaryDataSource() {
+		return DataSourceBuilder.create().type(HikariDataSource.class).build();
+	}
+
+	@Bean
+	public ReplicaRoutingDataSource routingDataSource() {
+		List<HikariDataSource> replicas = new ArrayList<>();
+		for (String url : StringUtils.commaDelimitedListToStringArray(replicaUrls)) {
+			if (StringUtils.hasText(url)) {
+				HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class).url(url.trim())
+						.username(replicaUsername).password(replicaPassword).build();
+				replica.setPoolName("replica-" + (replicas.size() + 1));
+				replica.setReadOnly(true);
+				replicas.add(replica);
+			}
+		}
+		return new ReplicaRoutingDataSource(primaryDataSource(), replicas, replicaMaxLag, replicaLagCheckInterval,
+				taskScheduler);
+	}
+
+	/**
+	 * The lazy proxy defers fetching a connection until the first statement,
+	 * so the routing key is resolved inside the transaction.
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource() {
+		return new LazyConnectionDataSourceProxy(routingDataSource());
 	}
 }
 
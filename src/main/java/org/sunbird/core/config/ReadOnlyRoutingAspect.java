@@ -0,0 +1,37 @@
+package org.sunbird.core.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Marks the thread read-only for methods annotated with
+ * {@code @Transactional(readOnly = true)}. Runs ahead of the transaction
+ * interceptor, since the read-only flag of the transaction itself is only set
+ * after its connection has been obtained. Calls joining a running transaction
+ * keep its routing.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ReadOnlyRoutingAspect {
+
+	@Around("@annotation(transactional)")
+	public Object route(ProceedingJoinPoint joinPoint, Transactional transactional) throws Throwable {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return joinPoint.proceed();
+		}
+		Boolean previous = ReplicaRoutingDataSource.isReadOnly();
+		ReplicaRoutingDataSource.setReadOnly(transactional.readOnly());
+		try {
+			return joinPoint.proceed();
+		} finally {
+			ReplicaRoutingDataSource.setReadOnly(previous);
+		}
+	}
+}
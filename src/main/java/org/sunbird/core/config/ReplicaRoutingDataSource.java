@@ -0,0 +1,170 @@
+package org.sunbird.core.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.TaskScheduler;
+import org.sunbird.core.logger.CbExtLogger;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Routes connections of read-only transactions to the replicas in round robin
+ * and everything else to the primary. Replica lag is checked periodically; a
+ * replica lagging more than the configured limit, or failing the check, is
+ * skipped until it catches up. With no healthy replica, reads go to the
+ * primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+	public static final String PRIMARY = "primary";
+
+	private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+	private static final String REPLICA_LAG_QUERY = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+			+ "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+	private CbExtLogger logger = new CbExtLogger(getClass().getName());
+
+	private final HikariDataSource primary;
+	private final Map<String, HikariDataSource> replicas = new HashMap<>();
+	private final long maxLagMs;
+	private final long lagCheckIntervalMs;
+	private final TaskScheduler taskScheduler;
+	private final Map<String, Long> replicaLag = new ConcurrentHashMap<>();
+	private final Map<String, AtomicLong> routedCount = new ConcurrentHashMap<>();
+	private final AtomicInteger next = new AtomicInteger();
+	private volatile List<String> healthyReplicas = Collections.emptyList();
+	private ScheduledFuture<?> lagChecker;
+
+	public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaList, long maxLagMs,
+			long lagCheckIntervalMs, TaskScheduler taskScheduler) {
+		this.primary = primary;
+		this.maxLagMs = maxLagMs;
+		this.lagCheckIntervalMs = lagCheckIntervalMs;
+		this.taskScheduler = taskScheduler;
+		Map<Object, Object> targetDataSources = new HashMap<>();
+		targetDataSources.put(PRIMARY, primary);
+		routedCount.put(PRIMARY, new AtomicLong());
+		for (HikariDataSource replica : replicaList) {
+			replicas.put(replica.getPoolName(), replica);
+			targetDataSources.put(replica.getPoolName(), replica);
+			routedCount.put(replica.getPoolName(), new AtomicLong());
+		}
+		setTargetDataSources(targetDataSources);
+		setDefaultTargetDataSource(primary);
+	}
+
+	public static Boolean isReadOnly() {
+		return READ_ONLY.get();
+	}
+
+	public static void setReadOnly(Boolean readOnly) {
+		if (readOnly == null) {
+			READ_ONLY.remove();
+		} else {
+			READ_ONLY.set(readOnly);
+		}
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		String key = PRIMARY;
+		List<String> healthy = healthyReplicas;
+		if (Boolean.TRUE.equals(READ_ONLY.get()) && !healthy.isEmpty()) {
+			key = healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+		}
+		routedCount.get(key).incrementAndGet();
+		return key;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		super.afterPropertiesSet();
+		if (replicas.isEmpty()) {
+			return;
+		}
+		checkReplicaLag();
+		lagChecker = taskScheduler.scheduleWithFixedDelay(this::checkReplicaLag,
+				new Date(System.currentTimeMillis() + lagCheckIntervalMs), lagCheckIntervalMs);
+	}
+
+	/**
+	 * Lag is -1 when the replica could not be reached.
+	 */
+	void checkReplicaLag() {
+		List<String> healthy = new ArrayList<>();
+		for (Map.Entry<String, HikariDataSource> replica : replicas.entrySet()) {
+			long lag;
+			try (Connection connection = replica.getValue().getConnection();
+					Statement statement = connection.createStatement();
+					ResultSet resultSet = statement.executeQuery(REPLICA_LAG_QUERY)) {
+				lag = resultSet.next() ? resultSet.getLong(1) : 0;
+			} catch (SQLException e) {
+				logger.error(e);
+				lag = -1;
+			}
+			replicaLag.put(replica.getKey(), lag);
+			if (lag >= 0 && lag <= maxLagMs) {
+				healthy.add(replica.getKey());
+			} else {
+				logger.warn("Replica " + replica.getKey() + " skipped for reads -> lagMs: " + lag);
+			}
+		}
+		Collections.sort(healthy);
+		healthyReplicas = Collections.unmodifiableList(healthy);
+	}
+
+	public Map<String, Object> getStats() {
+		Map<String, Object> stats = new HashMap<>();
+		stats.put(PRIMARY, getPoolStats(PRIMARY, primary));
+		for (Map.Entry<String, HikariDataSource> replica : replicas.entrySet()) {
+			Map<String, Object> poolStats = getPoolStats(replica.getKey(), replica.getValue());
+			poolStats.put("lagMs", replicaLag.get(replica.getKey()));
+			poolStats.put("healthy", healthyReplicas.contains(replica.getKey()));
+			stats.put(replica.getKey(), poolStats);
+		}
+		return stats;
+	}
+
+	private Map<String, Object> getPoolStats(String key, HikariDataSource dataSource) {
+		Map<String, Object> poolStats = new HashMap<>();
+		poolStats.put("routedCount", routedCount.get(key).get());
+		HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+		if (pool != null) {
+			poolStats.put("activeConnections", pool.getActiveConnections());
+			poolStats.put("idleConnections", pool.getIdleConnections());
+			poolStats.put("totalConnections", pool.getTotalConnections());
+			poolStats.put("threadsAwaitingConnection", pool.getThreadsAwaitingConnection());
+		}
+		return poolStats;
+	}
+
+	/**
+	 * The primary pool is a bean of its own and closed by the context.
+	 */
+	@Override
+	public void destroy() {
+		if (lagChecker != null) {
+			lagChecker.cancel(true);
+		}
+		for (HikariDataSource replica : replicas.values()) {
+			replica.close();
+		}
+	}
+}
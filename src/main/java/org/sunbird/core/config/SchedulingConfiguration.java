@@ -0,0 +1,34 @@
+package org.sunbird.core.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * One scheduler shared by the periodic jobs (@Scheduled methods) and the
+ * delayed tasks of the services, such as retries.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+
+	private Logger logger = LoggerFactory.getLogger(SchedulingConfiguration.class);
+
+	@Value("${scheduler.pool.size}")
+	private int poolSize;
+
+	@Bean
+	public TaskScheduler taskScheduler() {
+		ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+		taskScheduler.setPoolSize(poolSize);
+		taskScheduler.setThreadNamePrefix("cb-ext-scheduler-");
+		taskScheduler.setDaemon(true);
+		taskScheduler.setErrorHandler(t -> logger.error("Exception occurred in a scheduled task", t));
+		return taskScheduler;
+	}
+}
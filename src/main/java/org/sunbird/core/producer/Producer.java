@@ -2,7 +2,10 @@ package org.sunbird.core.producer;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.sunbird.core.logger.CbExtLogger;
@@ -16,14 +19,30 @@ public class Producer {
     @Autowired
     KafkaTemplate<String, String> kafkaTemplate;
 
-    public void push(String topic, Object value) {
+    public ListenableFuture<SendResult<String, String>> push(String topic, Object value) {
+        return push(topic, null, value);
+    }
+
+    /**
+     * Messages with the same key go to the same partition, so they are consumed
+     * in the order they were pushed. Send failures are logged; callers that
+     * must know the message is stored wait on the returned future.
+     */
+    public ListenableFuture<SendResult<String, String>> push(String topic, String key, Object value) {
         ObjectMapper mapper = new ObjectMapper();
         String message = null;
         try {
             message = mapper.writeValueAsString(value);
-            kafkaTemplate.send(topic, message);
         } catch (JsonProcessingException e) {
             log.error(e);
+            SettableListenableFuture<SendResult<String, String>> failed = new SettableListenableFuture<>();
+            failed.setException(e);
+            return failed;
         }
+        String payload = message;
+        ListenableFuture<SendResult<String, String>> future = kafkaTemplate.send(topic, key, message);
+        future.addCallback(result -> {
+        }, e -> log.error(new Exception("Failed to publish message to topic " + topic + ": " + payload, e)));
+        return future;
     }
-}
\ No newline at end of file
+}
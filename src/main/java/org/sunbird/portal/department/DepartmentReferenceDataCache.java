@@ -0,0 +1,330 @@
+package org.sunbird.portal.department;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.sunbird.common.util.CbExtServerProperties;
+import org.sunbird.core.logger.CbExtLogger;
+import org.sunbird.portal.department.dto.DepartmentRole;
+import org.sunbird.portal.department.dto.DepartmentType;
+import org.sunbird.portal.department.dto.Role;
+import org.sunbird.portal.department.repo.DepartmentRoleRepository;
+import org.sunbird.portal.department.repo.DepartmentTypeRepository;
+import org.sunbird.portal.department.repo.RoleRepository;
+
+/**
+ * Holds the Role, DepartmentType and DepartmentRole tables in memory as an
+ * immutable, id-indexed snapshot. The snapshot is swapped atomically on
+ * refresh, and every lookup returns copies so callers can freely mutate the
+ * transient fields (like Role.noOfUsers) without touching the cached data.
+ * Ids missing from the snapshot are looked up in the database once per
+ * snapshot, so rows added on other nodes are found before the ttl. Hits and
+ * misses are counted per lookup: a miss is a lookup that went to the database.
+ */
+@Component
+public class DepartmentReferenceDataCache {
+
+	private CbExtLogger logger = new CbExtLogger(getClass().getName());
+
+	@Autowired
+	RoleRepository roleRepo;
+
+	@Autowired
+	DepartmentTypeRepository deptTypeRepo;
+
+	@Autowired
+	DepartmentRoleRepository deptRoleRepo;
+
+	@Autowired
+	CbExtServerProperties serverConfig;
+
+	private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong loadCount = new AtomicLong();
+
+	public List<Role> getAllRoles() {
+		Snapshot current = getSnapshot();
+		hitCount.incrementAndGet();
+		return copyRoles(current.roles.values());
+	}
+
+	public List<Role> getRoles(Collection<Integer> roleIds) {
+		List<Role> roles = new ArrayList<>();
+		if (roleIds == null || roleIds.isEmpty()) {
+			return roles;
+		}
+		Snapshot current = getSnapshot();
+		List<Integer> missingIds = new ArrayList<>();
+		for (Integer roleId : new LinkedHashSet<>(roleIds)) {
+			Role role = current.roles.get(roleId);
+			if (role != null) {
+				roles.add(copy(role));
+			} else if (roleId != null && !current.unknownRoleIds.contains(roleId)) {
+				missingIds.add(roleId);
+			}
+		}
+		if (missingIds.isEmpty()) {
+			hitCount.incrementAndGet();
+			return roles;
+		}
+		missCount.incrementAndGet();
+		int found = 0;
+		for (Role role : roleRepo.findAllById(missingIds)) {
+			roles.add(copy(role));
+			missingIds.remove(role.getId());
+			found++;
+		}
+		if (found > 0) {
+			refresh();
+		}
+		snapshot.get().unknownRoleIds.addAll(missingIds);
+		return roles;
+	}
+
+	public List<Role> getRolesByNames(Collection<String> roleNames) {
+		List<Role> roles = new ArrayList<>();
+		if (roleNames == null || roleNames.isEmpty()) {
+			return roles;
+		}
+		Snapshot current = getSnapshot();
+		hitCount.incrementAndGet();
+		for (Role role : current.roles.values()) {
+			if (roleNames.contains(role.getRoleName())) {
+				roles.add(copy(role));
+			}
+		}
+		return roles;
+	}
+
+	public Role getRoleByName(String roleName) {
+		Snapshot current = getSnapshot();
+		hitCount.incrementAndGet();
+		for (Role role : current.roles.values()) {
+			if (role.getRoleName().equals(roleName)) {
+				return copy(role);
+			}
+		}
+		return null;
+	}
+
+	public List<DepartmentType> getAllDepartmentTypes() {
+		Snapshot current = getSnapshot();
+		hitCount.incrementAndGet();
+		return copyDeptTypes(current.deptTypes.values());
+	}
+
+	public List<DepartmentType> getDepartmentTypes(Collection<Integer> deptTypeIds) {
+		List<DepartmentType> deptTypes = new ArrayList<>();
+		if (deptTypeIds == null || deptTypeIds.isEmpty()) {
+			return deptTypes;
+		}
+		Snapshot current = getSnapshot();
+		List<Integer> missingIds = new ArrayList<>();
+		for (Integer deptTypeId : new LinkedHashSet<>(deptTypeIds)) {
+			DepartmentType deptType = current.deptTypes.get(deptTypeId);
+			if (deptType != null) {
+				deptTypes.add(copy(deptType));
+			} else if (deptTypeId != null && !current.unknownDeptTypeIds.contains(deptTypeId)) {
+				missingIds.add(deptTypeId);
+			}
+		}
+		if (missingIds.isEmpty()) {
+			hitCount.incrementAndGet();
+			return deptTypes;
+		}
+		missCount.incrementAndGet();
+		int found = 0;
+		for (DepartmentType deptType : deptTypeRepo.findAllById(missingIds)) {
+			deptTypes.add(copy(deptType));
+			missingIds.remove(deptType.getId());
+			found++;
+		}
+		if (found > 0) {
+			refresh();
+		}
+		snapshot.get().unknownDeptTypeIds.addAll(missingIds);
+		return deptTypes;
+	}
+
+	public DepartmentType getDepartmentType(Integer deptTypeId) {
+		List<DepartmentType> deptTypes = getDepartmentTypes(Collections.singletonList(deptTypeId));
+		return deptTypes.isEmpty() ? null : deptTypes.get(0);
+	}
+
+	public List<DepartmentType> getDepartmentTypesByType(String deptType) {
+		Snapshot current = getSnapshot();
+		hitCount.incrementAndGet();
+		List<DepartmentType> deptTypes = new ArrayList<>();
+		for (DepartmentType dType : current.deptTypes.values()) {
+			if (dType.getDeptType().equalsIgnoreCase(deptType)) {
+				deptTypes.add(copy(dType));
+			}
+		}
+		return deptTypes;
+	}
+
+	public DepartmentRole getDepartmentRole(String deptType) {
+		Snapshot current = getSnapshot();
+		hitCount.incrementAndGet();
+		for (DepartmentRole deptRole : current.deptRoles) {
+			if (deptRole.getDeptType().equalsIgnoreCase(deptType)) {
+				return copy(deptRole);
+			}
+		}
+		return null;
+	}
+
+	public List<DepartmentRole> getDepartmentRoles(Collection<String> deptTypes) {
+		Snapshot current = getSnapshot();
+		hitCount.incrementAndGet();
+		List<DepartmentRole> deptRoles = new ArrayList<>();
+		for (DepartmentRole deptRole : current.deptRoles) {
+			if (deptTypes.contains(deptRole.getDeptType())) {
+				deptRoles.add(copy(deptRole));
+			}
+		}
+		return deptRoles;
+	}
+
+	public List<DepartmentRole> getAllDepartmentRoles() {
+		Snapshot current = getSnapshot();
+		hitCount.incrementAndGet();
+		List<DepartmentRole> deptRoles = new ArrayList<>();
+		for (DepartmentRole deptRole : current.deptRoles) {
+			deptRoles.add(copy(deptRole));
+		}
+		return deptRoles;
+	}
+
+	/**
+	 * Reloads all three tables and swaps in the new snapshot. Readers keep using
+	 * the previous snapshot until the new one is completely built.
+	 */
+	public synchronized void refresh() {
+		snapshot.set(load());
+	}
+
+	public Map<String, Object> getStats() {
+		Map<String, Object> stats = new HashMap<>();
+		long hits = hitCount.get();
+		long misses = missCount.get();
+		stats.put("hitCount", hits);
+		stats.put("missCount", misses);
+		stats.put("loadCount", loadCount.get());
+		stats.put("hitRate", (hits + misses) == 0 ? 1.0 : (double) hits / (hits + misses));
+		Snapshot current = snapshot.get();
+		if (current != null) {
+			stats.put("roles", current.roles.size());
+			stats.put("departmentTypes", current.deptTypes.size());
+			stats.put("departmentRoles", current.deptRoles.size());
+			stats.put("loadedAt", current.loadedAt);
+		}
+		return stats;
+	}
+
+	private Snapshot getSnapshot() {
+		Snapshot current = snapshot.get();
+		if (current == null || isExpired(current)) {
+			synchronized (this) {
+				current = snapshot.get();
+				if (current == null || isExpired(current)) {
+					current = load();
+					snapshot.set(current);
+				}
+			}
+		}
+		return current;
+	}
+
+	private boolean isExpired(Snapshot current) {
+		long ttl = serverConfig.getPortalRefDataCacheTtl();
+		return ttl > 0 && System.currentTimeMillis() - current.loadedAt > ttl;
+	}
+
+	private Snapshot load() {
+		Map<Integer, Role> roles = new LinkedHashMap<>();
+		for (Role role : roleRepo.findAll()) {
+			roles.put(role.getId(), copy(role));
+		}
+		Map<Integer, DepartmentType> deptTypes = new LinkedHashMap<>();
+		for (DepartmentType deptType : deptTypeRepo.findAll()) {
+			deptTypes.put(deptType.getId(), copy(deptType));
+		}
+		List<DepartmentRole> deptRoles = new ArrayList<>();
+		for (DepartmentRole deptRole : deptRoleRepo.findAll()) {
+			deptRoles.add(copy(deptRole));
+		}
+		loadCount.incrementAndGet();
+		logger.info("Loaded reference data -> roles: " + roles.size() + ", departmentTypes: " + deptTypes.size()
+				+ ", departmentRoles: " + deptRoles.size());
+		return new Snapshot(roles, deptTypes, deptRoles);
+	}
+
+	private static List<Role> copyRoles(Collection<Role> roles) {
+		List<Role> roleList = new ArrayList<>(roles.size());
+		for (Role role : roles) {
+			roleList.add(copy(role));
+		}
+		return roleList;
+	}
+
+	private static List<DepartmentType> copyDeptTypes(Collection<DepartmentType> deptTypes) {
+		List<DepartmentType> deptTypeList = new ArrayList<>(deptTypes.size());
+		for (DepartmentType deptType : deptTypes) {
+			deptTypeList.add(copy(deptType));
+		}
+		return deptTypeList;
+	}
+
+	private static Role copy(Role role) {
+		Role r = new Role();
+		r.setId(role.getId());
+		r.setRoleName(role.getRoleName());
+		r.setDescription(role.getDescription());
+		return r;
+	}
+
+	private static DepartmentType copy(DepartmentType deptType) {
+		return new DepartmentType(deptType.getId(), deptType.getDeptType(), deptType.getDeptSubType(),
+				deptType.getDescription());
+	}
+
+	private static DepartmentRole copy(DepartmentRole deptRole) {
+		DepartmentRole dRole = new DepartmentRole();
+		dRole.setId(deptRole.getId());
+		dRole.setDeptType(deptRole.getDeptType());
+		dRole.setRoleIds(deptRole.getRoleIds() == null ? new Integer[0] : deptRole.getRoleIds().clone());
+		return dRole;
+	}
+
+	private static final class Snapshot {
+		private final Map<Integer, Role> roles;
+		private final Map<Integer, DepartmentType> deptTypes;
+		private final List<DepartmentRole> deptRoles;
+		private final long loadedAt;
+		// Ids looked up in the database and not found, until the next refresh
+		private final Set<Integer> unknownRoleIds = ConcurrentHashMap.newKeySet();
+		private final Set<Integer> unknownDeptTypeIds = ConcurrentHashMap.newKeySet();
+
+		private Snapshot(Map<Integer, Role> roles, Map<Integer, DepartmentType> deptTypes,
+				List<DepartmentRole> deptRoles) {
+			this.roles = Collections.unmodifiableMap(roles);
+			this.deptTypes = Collections.unmodifiableMap(deptTypes);
+			this.deptRoles = Collections.unmodifiableList(deptRoles);
+			this.loadedAt = System.currentTimeMillis();
+		}
+	}
+}
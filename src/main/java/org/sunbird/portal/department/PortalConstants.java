@@ -22,5 +22,11 @@ public class PortalConstants {
 	public static final List<String> CBP_ROLES = Arrays.asList("EDITOR", "REVIEWER", "PUBLISHER", "CONTENT_CREATOR");
 	public static final List<String> FRAC_ROLES = Arrays.asList("IFUMember", "fracAdmin", "fracReviewerOne",
 			"fracReviewerTwo", "fracAccessCompetency", "competencyReviewer");
+	public static final String USER_STATUS_ALL = "ALL";
+	public static final String USER_STATUS_ACTIVE = "ACTIVE";
+	public static final String USER_STATUS_INACTIVE = "INACTIVE";
+	public static final String USER_STATUS_BLOCKED = "BLOCKED";
+	public static final List<String> USER_STATUS_LIST = Arrays.asList(USER_STATUS_ALL, USER_STATUS_ACTIVE,
+			USER_STATUS_INACTIVE, USER_STATUS_BLOCKED);
 	public static final List<String> CBC_ROLE_LIST = Arrays.asList(CBC_ROLE_NAME, CBC_MEMBER_NAME);
 }
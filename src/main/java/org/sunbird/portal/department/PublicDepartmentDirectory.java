@@ -0,0 +1,331 @@
+package org.sunbird.portal.department;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.sunbird.common.util.CbExtServerProperties;
+import org.sunbird.core.exception.ApplicationLogicError;
+import org.sunbird.core.logger.CbExtLogger;
+import org.sunbird.portal.department.dto.Department;
+import org.sunbird.portal.department.dto.DepartmentType;
+import org.sunbird.portal.department.model.DeptPublicInfo;
+import org.sunbird.portal.department.repo.DepartmentRepository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Versioned, in-memory snapshot of the public department directory served on
+ * the login page. Each view is kept pre-serialized along with a strong ETag
+ * computed from its content, and department names are kept in a sorted
+ * prefix index for typeahead. The snapshot is dropped whenever a department
+ * is added, updated or deleted and rebuilt on the next read; the TTL bounds
+ * how long other nodes may serve a stale copy.
+ */
+@Component
+public class PublicDepartmentDirectory {
+
+	private CbExtLogger logger = new CbExtLogger(getClass().getName());
+
+	@Autowired
+	DepartmentRepository deptRepo;
+
+	@Autowired
+	DepartmentReferenceDataCache refDataCache;
+
+	@Autowired
+	CbExtServerProperties serverConfig;
+
+	private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+	private static final Pattern WORD_START = Pattern.compile("(?<=[^\\p{L}\\p{N}])[\\p{L}\\p{N}]");
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+	private final AtomicLong version = new AtomicLong();
+
+	public List<String> getDeptNames() {
+		return new ArrayList<>(getSnapshot().deptNames);
+	}
+
+	public List<DeptPublicInfo> getAllDept() {
+		List<DeptPublicInfo> deptList = new ArrayList<>();
+		for (DeptPublicInfo pDept : getSnapshot().publicDepts) {
+			deptList.add(copy(pDept));
+		}
+		return deptList;
+	}
+
+	public DeptPublicInfo getDept(String deptName) {
+		DeptPublicInfo pDept = deptName == null ? null : getSnapshot().deptsByName.get(deptName.toLowerCase(Locale.ROOT));
+		return pDept == null ? null : copy(pDept);
+	}
+
+	/**
+	 * Case and accent insensitive prefix search over department names. Names
+	 * starting with the prefix come first, followed by names having a word
+	 * starting with it, each group in name order.
+	 */
+	public List<DeptPublicInfo> searchByPrefix(String prefix, int limit) {
+		List<DeptPublicInfo> deptList = new ArrayList<>();
+		String key = prefix == null ? "" : normalize(prefix);
+		if (key.isEmpty() || limit <= 0) {
+			return deptList;
+		}
+		Snapshot current = getSnapshot();
+		int from = lowerBound(current.prefixKeys, key);
+		int to = from;
+		while (to < current.prefixKeys.length && current.prefixKeys[to].key.startsWith(key)) {
+			to++;
+		}
+		Set<Integer> deptIds = new HashSet<>();
+		for (boolean nameStart : new boolean[] { true, false }) {
+			List<PrefixEntry> matches = new ArrayList<>();
+			for (int i = from; i < to; i++) {
+				if (current.prefixKeys[i].nameStart == nameStart) {
+					matches.add(current.prefixKeys[i]);
+				}
+			}
+			matches.sort(PrefixEntry.NAME_ORDER);
+			for (PrefixEntry entry : matches) {
+				if (deptList.size() >= limit) {
+					return deptList;
+				}
+				if (deptIds.add(entry.dept.getId())) {
+					deptList.add(copy(entry.dept));
+				}
+			}
+		}
+		return deptList;
+	}
+
+	public Payload getDeptNamesPayload() {
+		return getSnapshot().deptNamesPayload;
+	}
+
+	public Payload getAllDeptPayload() {
+		return getSnapshot().publicDeptsPayload;
+	}
+
+	/**
+	 * Returns null when no active department matches the given name.
+	 */
+	public Payload getDeptPayload(String deptName) {
+		return deptName == null ? null : getSnapshot().deptPayloadsByName.get(deptName.toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * Synchronized so that a rebuild already in progress cannot put back a
+	 * snapshot read before the change being invalidated.
+	 */
+	public synchronized void invalidate() {
+		snapshot.set(null);
+	}
+
+	public Map<String, Object> getStats() {
+		Map<String, Object> stats = new HashMap<>();
+		Snapshot current = snapshot.get();
+		stats.put("version", version.get());
+		if (current != null) {
+			stats.put("departments", current.publicDepts.size());
+			stats.put("loadedAt", current.loadedAt);
+		}
+		return stats;
+	}
+
+	private Snapshot getSnapshot() {
+		Snapshot current = snapshot.get();
+		if (current == null || isExpired(current)) {
+			synchronized (this) {
+				current = snapshot.get();
+				if (current == null || isExpired(current)) {
+					current = load();
+					snapshot.set(current);
+				}
+			}
+		}
+		return current;
+	}
+
+	private boolean isExpired(Snapshot current) {
+		long ttl = serverConfig.getPortalPublicDirectoryTtl();
+		return ttl > 0 && System.currentTimeMillis() - current.loadedAt > ttl;
+	}
+
+	private Snapshot load() {
+		Set<Integer> spvDeptTypeIds = new HashSet<>();
+		for (DepartmentType deptType : refDataCache.getDepartmentTypesByType(PortalConstants.SPV_DEPT_TYPE)) {
+			spvDeptTypeIds.add(deptType.getId());
+		}
+		List<String> deptNames = new ArrayList<>();
+		List<DeptPublicInfo> publicDepts = new ArrayList<>();
+		Map<String, DeptPublicInfo> deptsByName = new HashMap<>();
+		Map<String, Payload> deptPayloadsByName = new HashMap<>();
+		List<PrefixEntry> prefixKeys = new ArrayList<>();
+		for (Department dept : deptRepo.findAllByIsDeletedOrderByDeptNameAsc(false)) {
+			DeptPublicInfo pDept = dept.getPublicInfo();
+			publicDepts.add(pDept);
+			addPrefixKeys(prefixKeys, pDept);
+			if (!isSpvDepartment(dept, spvDeptTypeIds)) {
+				deptNames.add(dept.getDeptName());
+			}
+			if (dept.getDeptName() != null && !deptsByName.containsKey(dept.getDeptName().toLowerCase(Locale.ROOT))) {
+				deptsByName.put(dept.getDeptName().toLowerCase(Locale.ROOT), pDept);
+				deptPayloadsByName.put(dept.getDeptName().toLowerCase(Locale.ROOT), serialize(pDept));
+			}
+		}
+		Collections.sort(deptNames);
+		prefixKeys.sort(PrefixEntry.KEY_ORDER);
+		long currentVersion = version.incrementAndGet();
+		logger.info("Loaded public department directory -> version: " + currentVersion + ", departments: "
+				+ publicDepts.size());
+		return new Snapshot(deptNames, publicDepts, deptsByName, serialize(deptNames), serialize(publicDepts),
+				deptPayloadsByName, prefixKeys.toArray(new PrefixEntry[0]));
+	}
+
+	/**
+	 * Indexes the whole name and every word within it, so "health" finds
+	 * "Ministry of Health".
+	 */
+	private void addPrefixKeys(List<PrefixEntry> prefixKeys, DeptPublicInfo pDept) {
+		if (pDept.getFriendly_name() == null) {
+			return;
+		}
+		String name = normalize(pDept.getFriendly_name());
+		if (name.isEmpty()) {
+			return;
+		}
+		prefixKeys.add(new PrefixEntry(name, name, true, pDept));
+		Matcher matcher = WORD_START.matcher(name);
+		while (matcher.find()) {
+			prefixKeys.add(new PrefixEntry(name.substring(matcher.start()), name, false, pDept));
+		}
+	}
+
+	/**
+	 * @return index of the first key which is not less than the given key
+	 */
+	private static int lowerBound(PrefixEntry[] prefixKeys, String key) {
+		int low = 0;
+		int high = prefixKeys.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (prefixKeys[mid].key.compareTo(key) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static String normalize(String value) {
+		return DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("")
+				.toLowerCase(Locale.ROOT).trim();
+	}
+
+	private boolean isSpvDepartment(Department dept, Set<Integer> spvDeptTypeIds) {
+		if (dept.getDeptTypeIds() != null) {
+			for (Integer deptTypeId : dept.getDeptTypeIds()) {
+				if (spvDeptTypeIds.contains(deptTypeId)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private Payload serialize(Object value) {
+		try {
+			byte[] body = mapper.writeValueAsBytes(value);
+			return new Payload(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+		} catch (JsonProcessingException e) {
+			throw new ApplicationLogicError("Failed to serialize public department directory", e);
+		}
+	}
+
+	private static DeptPublicInfo copy(DeptPublicInfo pDept) {
+		DeptPublicInfo copy = new DeptPublicInfo();
+		copy.setId(pDept.getId());
+		copy.setRoot_org(pDept.getRoot_org());
+		copy.setFriendly_name(pDept.getFriendly_name());
+		copy.setDescription(pDept.getDescription());
+		return copy;
+	}
+
+	/**
+	 * Pre-serialized JSON body of a directory view and its strong ETag.
+	 */
+	public static final class Payload {
+		private final byte[] body;
+		private final String eTag;
+
+		private Payload(byte[] body, String eTag) {
+			this.body = body;
+			this.eTag = eTag;
+		}
+
+		public byte[] getBody() {
+			return body;
+		}
+
+		public String getETag() {
+			return eTag;
+		}
+	}
+
+	private static final class PrefixEntry {
+		private static final Comparator<PrefixEntry> KEY_ORDER = Comparator.comparing(entry -> entry.key);
+		private static final Comparator<PrefixEntry> NAME_ORDER = Comparator.comparing(entry -> entry.name);
+
+		private final String key;
+		private final String name;
+		private final boolean nameStart;
+		private final DeptPublicInfo dept;
+
+		private PrefixEntry(String key, String name, boolean nameStart, DeptPublicInfo dept) {
+			this.key = key;
+			this.name = name;
+			this.nameStart = nameStart;
+			this.dept = dept;
+		}
+	}
+
+	private static final class Snapshot {
+		private final List<String> deptNames;
+		private final List<DeptPublicInfo> publicDepts;
+		private final Map<String, DeptPublicInfo> deptsByName;
+		private final Payload deptNamesPayload;
+		private final Payload publicDeptsPayload;
+		private final Map<String, Payload> deptPayloadsByName;
+		private final PrefixEntry[] prefixKeys;
+		private final long loadedAt;
+
+		private Snapshot(List<String> deptNames, List<DeptPublicInfo> publicDepts,
+				Map<String, DeptPublicInfo> deptsByName, Payload deptNamesPayload, Payload publicDeptsPayload,
+				Map<String, Payload> deptPayloadsByName, PrefixEntry[] prefixKeys) {
+			this.deptNames = Collections.unmodifiableList(deptNames);
+			this.publicDepts = Collections.unmodifiableList(publicDepts);
+			this.deptsByName = Collections.unmodifiableMap(deptsByName);
+			this.deptNamesPayload = deptNamesPayload;
+			this.publicDeptsPayload = publicDeptsPayload;
+			this.deptPayloadsByName = Collections.unmodifiableMap(deptPayloadsByName);
+			this.prefixKeys = prefixKeys;
+			this.loadedAt = System.currentTimeMillis();
+		}
+	}
+}
@@ -1,27 +1,57 @@
 package org.sunbird.portal.department.controller;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.sunbird.common.model.Response;
+import org.sunbird.common.service.UserUtilityService;
+import org.sunbird.common.util.CbExtServerProperties;
+import org.sunbird.core.config.ReplicaRoutingDataSource;
 import org.sunbird.core.exception.BadRequestException;
+import org.sunbird.portal.department.DepartmentReferenceDataCache;
 import org.sunbird.portal.department.PortalConstants;
+import org.sunbird.portal.department.PublicDepartmentDirectory;
+import org.sunbird.portal.department.dto.DepartmentLogo;
 import org.sunbird.portal.department.dto.UserDepartmentRole;
 import org.sunbird.portal.department.model.DepartmentInfo;
+import org.sunbird.portal.department.model.DepartmentUserPage;
 import org.sunbird.portal.department.model.DeptPublicInfo;
 import org.sunbird.portal.department.model.SearchUserInfo;
+import org.sunbird.portal.department.model.UserAuthorizationProfile;
 import org.sunbird.portal.department.model.UserDepartmentInfo;
+import org.sunbird.portal.department.model.UserRoleAssignmentResult;
+import org.sunbird.portal.department.service.DepartmentExportService;
+import org.sunbird.portal.department.service.DepartmentLogoService;
 import org.sunbird.portal.department.service.MdoPortalService;
 import org.sunbird.portal.department.service.PortalService;
 import org.sunbird.portal.department.service.SpvPortalService;
+import org.sunbird.portal.department.service.UserAuthorizationService;
+import org.sunbird.portal.department.service.UserClaimsTokenService;
+import org.sunbird.portal.department.service.UserDepartmentRoleAuditArchiver;
+import org.sunbird.portal.department.service.UserDepartmentRoleAuditProcessing;
+import org.sunbird.workallocation.service.BulkIndexingService;
+import org.sunbird.workallocation.service.WorkAllocationStoreService;
+import org.sunbird.workallocation.service.WorkOrderCountReconciler;
 
 @RestController
 public class PortalController {
+	private static final String TEXT_CSV = "text/csv";
+	private static final String LOGO_THUMBNAIL = "thumbnail";
+
 	@Autowired
 	PortalService portalService;
 
@@ -31,20 +61,73 @@ public class PortalController {
 	@Autowired
 	MdoPortalService mdoPortalService;
 
+	@Autowired
+	DepartmentReferenceDataCache refDataCache;
+
+	@Autowired
+	UserAuthorizationService userAuthService;
+
+	@Autowired
+	PublicDepartmentDirectory publicDirectory;
+
+	@Autowired
+	UserUtilityService userUtilService;
+
+	@Autowired
+	UserDepartmentRoleAuditProcessing auditProcessing;
+
+	@Autowired
+	UserDepartmentRoleAuditArchiver auditArchiver;
+
+	@Autowired
+	ReplicaRoutingDataSource routingDataSource;
+
+	@Autowired
+	WorkOrderCountReconciler workOrderCountReconciler;
+
+	@Autowired
+	BulkIndexingService bulkIndexingService;
+
+	@Autowired
+	WorkAllocationStoreService workAllocationStoreService;
+
+	@Autowired
+	UserClaimsTokenService claimsTokenService;
+
+	@Autowired
+	DepartmentLogoService logoService;
+
+	@Autowired
+	DepartmentExportService exportService;
+
+	@Autowired
+	CbExtServerProperties serverConfig;
+
+	@Autowired
+	HttpServletRequest request;
+
 	// ----------------- Public APIs --------------------
 	@GetMapping("/portal/listDeptNames")
-	public ResponseEntity<List<String>> getDeptNameList(){
-		return new ResponseEntity<>(portalService.getDeptNameList(), HttpStatus.OK);
+	public ResponseEntity<byte[]> getDeptNameList(WebRequest request){
+		return toResponse(publicDirectory.getDeptNamesPayload(), request);
 	}
 
 	@GetMapping("/portal/getAllDept")
-	public ResponseEntity<List<DeptPublicInfo>> getAllDepartment(){
-		return new ResponseEntity<>(portalService.getAllDept(), HttpStatus.OK);
+	public ResponseEntity<byte[]> getAllDepartment(WebRequest request){
+		return toResponse(publicDirectory.getAllDeptPayload(), request);
 	}
 	
 	@GetMapping("/portal/deptSearch")
-	public ResponseEntity<DeptPublicInfo> searchDepartment(@RequestParam(name = "friendlyName", required = true) String deptName){
-		return new ResponseEntity<>(portalService.searchDept(deptName), HttpStatus.OK);
+	public ResponseEntity<byte[]> searchDepartment(@RequestParam(name = "friendlyName", required = true) String deptName,
+			WebRequest request){
+		return toResponse(publicDirectory.getDeptPayload(deptName), request);
+	}
+
+	@GetMapping("/portal/deptTypeahead")
+	public ResponseEntity<List<DeptPublicInfo>> searchDepartmentByPrefix(
+			@RequestParam(name = "query", required = true) String prefix,
+			@RequestParam(name = "limit", required = false) Integer limit) {
+		return new ResponseEntity<>(portalService.searchDeptByPrefix(prefix, limit), HttpStatus.OK);
 	}
 
 	// ----------------- END of Public APIs --------------------
@@ -52,7 +135,8 @@ public class PortalController {
 	@GetMapping("/portal/spv/isAdmin")
 	public ResponseEntity<Boolean> isSpvAdmin(@RequestHeader("wid") String wid){
 		return new ResponseEntity<>(
-				portalService.isAdmin(PortalConstants.SPV_DEPT_TYPE, PortalConstants.SPV_ROLE_NAME, wid),
+				portalService.isAdmin(PortalConstants.SPV_DEPT_TYPE, PortalConstants.SPV_ROLE_NAME,
+						getAuthorizationProfile(wid)),
 				HttpStatus.OK);
 	}
 
@@ -81,9 +165,27 @@ public class PortalController {
 
 	@GetMapping("/portal/spv/department")
 	public ResponseEntity<List<DepartmentInfo>> getAllDepartments(@RequestHeader("wid") String wid,
-			@RequestHeader("rootOrg") String rootOrg) throws Exception {
+			@RequestHeader("rootOrg") String rootOrg, @RequestParam(name = "page", required = false) Integer page,
+			@RequestParam(name = "size", required = false) Integer size) throws Exception {
 		validateUserAccess(PortalConstants.SPV_DEPT_TYPE, PortalConstants.SPV_ROLE_NAME, wid);
-		return new ResponseEntity<>(spvPortalService.getAllDepartments(rootOrg), HttpStatus.OK);
+		return new ResponseEntity<>(spvPortalService.getAllDepartments(rootOrg, page, size), HttpStatus.OK);
+	}
+
+	/**
+	 * Streams all departments with their members as CSV or NDJSON.
+	 */
+	@GetMapping("/portal/spv/department/export")
+	public ResponseEntity<StreamingResponseBody> exportDepartments(@RequestHeader("wid") String wid,
+			@RequestHeader("rootOrg") String rootOrg, @RequestParam(name = "format", required = false) String format,
+			@RequestParam(name = "profile", required = false, defaultValue = "true") boolean isProfileRequired) {
+		validateUserAccess(PortalConstants.SPV_DEPT_TYPE, PortalConstants.SPV_ROLE_NAME, wid);
+		String exportFormat = exportService.validateFormat(format);
+		MediaType contentType = DepartmentExportService.FORMAT_CSV.equals(exportFormat)
+				? MediaType.parseMediaType(TEXT_CSV + ";charset=UTF-8")
+				: MediaType.parseMediaType("application/x-ndjson;charset=UTF-8");
+		return ResponseEntity.ok().contentType(contentType)
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=departments." + exportFormat)
+				.body(out -> exportService.exportDepartments(out, exportFormat, isProfileRequired, rootOrg));
 	}
 
 	@GetMapping("/portal/spv/department/{dept_id}")
@@ -104,6 +206,22 @@ public class PortalController {
 				portalService.addUserRoleInDepartment(userDeptRole, wid, rootOrg, org), HttpStatus.OK);
 	}
 
+	@PostMapping(value = "/portal/spv/userrole/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<List<UserRoleAssignmentResult>> bulkAddUserRoleInDepartmentBySPV(
+			@RequestBody List<UserDepartmentRole> userDeptRoles, @RequestHeader("rootOrg") String rootOrg,
+			@RequestHeader("org") String org, @RequestHeader("wid") String wid) throws Exception {
+		validateUserAccess(PortalConstants.SPV_DEPT_TYPE, PortalConstants.SPV_ROLE_NAME, wid);
+		return new ResponseEntity<>(
+				portalService.bulkAddUserRoleInDepartment(userDeptRoles, wid, rootOrg, org), HttpStatus.OK);
+	}
+
+	@PostMapping(value = "/portal/spv/userrole/bulk", consumes = TEXT_CSV)
+	public ResponseEntity<List<UserRoleAssignmentResult>> bulkAddUserRoleInDepartmentBySPV(
+			@RequestBody String csvData, @RequestHeader("rootOrg") String rootOrg, @RequestHeader("org") String org,
+			@RequestHeader("wid") String wid) throws Exception {
+		return bulkAddUserRoleInDepartmentBySPV(portalService.parseUserDepartmentRoles(csvData), rootOrg, org, wid);
+	}
+
 	@PatchMapping("/portal/spv/userrole")
 	public ResponseEntity<UserDepartmentInfo> updateUserRoleInDepartmentBySPV(
 			@RequestBody UserDepartmentRole userDeptRole, @RequestHeader("rootOrg") String rootOrg,
@@ -124,6 +242,26 @@ public class PortalController {
 		return new ResponseEntity<>(spvPortalService.deleteDepartment(wid, deptId), HttpStatus.OK);
 	}
 
+	@GetMapping("/portal/spv/stats")
+	public ResponseEntity<Map<String, Object>> getStats(@RequestHeader("wid") String wid) {
+		validateUserAccess(PortalConstants.SPV_DEPT_TYPE, PortalConstants.SPV_ROLE_NAME, wid);
+		Map<String, Object> cacheStats = new HashMap<>();
+		cacheStats.put("referenceData", refDataCache.getStats());
+		cacheStats.put("userAuthorization", userAuthService.getStats());
+		cacheStats.put("publicDirectory", publicDirectory.getStats());
+		cacheStats.put("userProfile", userUtilService.getUserProfileCacheStats());
+		Map<String, Object> stats = new HashMap<>();
+		stats.put("cache", cacheStats);
+		Map<String, Object> auditStats = new HashMap<>(auditProcessing.getStats());
+		auditStats.put("partitions", auditArchiver.getStats());
+		stats.put("audit", auditStats);
+		stats.put("dataSource", routingDataSource.getStats());
+		stats.put("workOrderCounts", workOrderCountReconciler.getStats());
+		stats.put("indexing", bulkIndexingService.getStats());
+		stats.put("workAllocationCache", workAllocationStoreService.getStats());
+		return new ResponseEntity<>(stats, HttpStatus.OK);
+	}
+
 	// ----------------- SPV APIs -----------------------
 	
 	// ----------------- FRAC APIs ----------------------
@@ -131,7 +269,8 @@ public class PortalController {
 	public ResponseEntity<DepartmentInfo> getMyFracDepartment(@RequestHeader("wid") String wid,
 			@RequestParam(name = "allUsers", required = false) boolean isUserInfoRequired,
 			@RequestHeader("rootOrg") String rootOrg) throws Exception {
-		if (!portalService.validateUserLogin(wid, PortalConstants.FRAC_ROLES, PortalConstants.MDO_DEPT_TYPE)) {
+		if (!portalService.validateUserLogin(getAuthorizationProfile(wid), PortalConstants.FRAC_ROLES,
+				PortalConstants.MDO_DEPT_TYPE)) {
 			throw new BadRequestException("User is not assigned with any FRAC related roles.");
 		}
 		return new ResponseEntity<>(mdoPortalService.getMyFracDepartment(wid, isUserInfoRequired, rootOrg), HttpStatus.OK);
@@ -142,7 +281,8 @@ public class PortalController {
 	@GetMapping("/portal/mdo/isAdmin")
 	public ResponseEntity<Boolean> isMdoAdmin(@RequestHeader("wid") String wid){
 		return new ResponseEntity<>(
-				portalService.isAdmin(PortalConstants.MDO_DEPT_TYPE, PortalConstants.MDO_ROLE_NAME, wid),
+				portalService.isAdmin(PortalConstants.MDO_DEPT_TYPE, PortalConstants.MDO_ROLE_NAME,
+						getAuthorizationProfile(wid)),
 				HttpStatus.OK);
 	}
 
@@ -150,7 +290,8 @@ public class PortalController {
 	public ResponseEntity<DepartmentInfo> getMyMdoDepartment(@RequestHeader("wid") String wid,
 			@RequestParam(name = "allUsers", required = false) boolean isUserInfoRequired,
 			@RequestHeader("rootOrg") String rootOrg) throws Exception {
-		if (!portalService.validateUserLogin(wid, PortalConstants.MDO_ROLES, PortalConstants.MDO_DEPT_TYPE)) {
+		if (!portalService.validateUserLogin(getAuthorizationProfile(wid), PortalConstants.MDO_ROLES,
+				PortalConstants.MDO_DEPT_TYPE)) {
 			throw new BadRequestException("User is not assigned with any MDO related roles.");
 		}
 		return new ResponseEntity<>(mdoPortalService.getMyDepartment(wid, isUserInfoRequired, rootOrg), HttpStatus.OK);
@@ -172,6 +313,22 @@ public class PortalController {
 				portalService.addUserRoleInDepartment(userDeptRole, wid, rootOrg, org), HttpStatus.OK);
 	}
 
+	@PostMapping(value = "/portal/mdo/userrole/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<List<UserRoleAssignmentResult>> bulkAddUserRoleInDepartmentByMDO(
+			@RequestBody List<UserDepartmentRole> userDeptRoles, @RequestHeader("rootOrg") String rootOrg,
+			@RequestHeader("org") String org, @RequestHeader("wid") String wid) throws Exception {
+		validateUserAccess(PortalConstants.MDO_DEPT_TYPE, PortalConstants.MDO_ROLE_NAME, wid);
+		return new ResponseEntity<>(
+				portalService.bulkAddUserRoleInDepartment(userDeptRoles, wid, rootOrg, org), HttpStatus.OK);
+	}
+
+	@PostMapping(value = "/portal/mdo/userrole/bulk", consumes = TEXT_CSV)
+	public ResponseEntity<List<UserRoleAssignmentResult>> bulkAddUserRoleInDepartmentByMDO(
+			@RequestBody String csvData, @RequestHeader("rootOrg") String rootOrg, @RequestHeader("org") String org,
+			@RequestHeader("wid") String wid) throws Exception {
+		return bulkAddUserRoleInDepartmentByMDO(portalService.parseUserDepartmentRoles(csvData), rootOrg, org, wid);
+	}
+
 	@PatchMapping("/portal/mdo/userrole")
 	public ResponseEntity<UserDepartmentInfo> updateUserRoleInDepartmentByMDO(
 			@RequestBody UserDepartmentRole userDeptRole, @RequestHeader("rootOrg") String rootOrg,
@@ -186,7 +343,8 @@ public class PortalController {
 	// ----------------- CBP APIs -----------------------
 	@GetMapping("/portal/cbp/isAdmin")
 	public ResponseEntity<Boolean> isCBPAdmin(@RequestHeader("wid") String wid){
-		return new ResponseEntity<>(portalService.validateCBPUserLogin(wid), HttpStatus.OK);
+		return new ResponseEntity<>(portalService.validateUserLoginForDepartment(getAuthorizationProfile(wid),
+				PortalConstants.CBP_DEPT_TYPE), HttpStatus.OK);
 	}
 
 	@GetMapping("/portal/cbp/mydepartment")
@@ -223,8 +381,11 @@ public class PortalController {
 
 	@GetMapping("/portal/cbp/searchUser/deptId/{dept_id}/role/{role_name}/userlike/{username}")
 	public ResponseEntity<List<SearchUserInfo>> searchUserForRole(@PathVariable("dept_id") Integer deptId,
-																  @PathVariable("role_name") String roleName, @PathVariable("username") String userName) throws Exception {
-		return new ResponseEntity<>(portalService.searchUserForRole(deptId, roleName, userName), HttpStatus.OK);
+																  @PathVariable("role_name") String roleName, @PathVariable("username") String userName,
+																  @RequestParam(name = "from", required = false) Integer from,
+																  @RequestParam(name = "size", required = false) Integer size) throws Exception {
+		return new ResponseEntity<>(portalService.searchUserForRole(deptId, roleName, userName, from, size),
+				HttpStatus.OK);
 	}
 	// ----------------- END OF CBP APIs -----------------------
 
@@ -232,7 +393,8 @@ public class PortalController {
 	@GetMapping("/portal/cbc/isAdmin")
 	public ResponseEntity<Boolean> isCBCAdmin(@RequestHeader("wid") String wid){
 		return new ResponseEntity<>(
-				portalService.isAdmin(PortalConstants.CBC_DEPT_TYPE, PortalConstants.CBC_ROLE_NAME, wid),
+				portalService.isAdmin(PortalConstants.CBC_DEPT_TYPE, PortalConstants.CBC_ROLE_NAME,
+						getAuthorizationProfile(wid)),
 				HttpStatus.OK);
 	}
 	@GetMapping("/portal/cbc/mydepartment")
@@ -294,6 +456,58 @@ public class PortalController {
 				HttpStatus.OK);
 	}
 
+	@GetMapping("/portal/department/{dept_id}/users")
+	public ResponseEntity<DepartmentUserPage> getDepartmentUsers(@PathVariable("dept_id") Integer deptId,
+			@RequestParam(name = "status", required = false) String status,
+			@RequestParam(name = "roleId", required = false) Integer roleId,
+			@RequestParam(name = "cursor", required = false) Integer cursor,
+			@RequestParam(name = "size", required = false) Integer size, @RequestHeader("rootOrg") String rootOrg) {
+		return new ResponseEntity<>(portalService.getDepartmentUsers(deptId, status, roleId, cursor, size, rootOrg),
+				HttpStatus.OK);
+	}
+
+	/**
+	 * Responses for the versioned URL returned in department listings are
+	 * cached for long; other requests are revalidated with the ETag.
+	 */
+	@GetMapping("/portal/department/{dept_id}/logo")
+	public ResponseEntity<byte[]> getDepartmentLogo(@PathVariable("dept_id") Integer deptId,
+			@RequestParam(name = "size", required = false) String size,
+			@RequestParam(name = "v", required = false) String version, WebRequest webRequest) {
+		String contentHash = logoService.getContentHash(deptId);
+		if (contentHash == null) {
+			return ResponseEntity.notFound().build();
+		}
+		boolean isThumbnail = LOGO_THUMBNAIL.equalsIgnoreCase(size);
+		String eTag = "\"" + contentHash + (isThumbnail ? "-" + LOGO_THUMBNAIL : "") + "\"";
+		if (webRequest.checkNotModified(eTag)) {
+			return null;
+		}
+		DepartmentLogo logo = logoService.getLogo(deptId);
+		if (logo == null) {
+			return ResponseEntity.notFound().build();
+		}
+		CacheControl cacheControl = contentHash.equals(version)
+				? CacheControl.maxAge(serverConfig.getPortalDeptLogoCacheMaxAge(), TimeUnit.SECONDS).cachePublic()
+				: CacheControl.noCache();
+		String contentType = isThumbnail ? DepartmentLogoService.THUMBNAIL_CONTENT_TYPE : logo.getContentType();
+		return ResponseEntity.ok().eTag(eTag).cacheControl(cacheControl)
+				.contentType(MediaType.parseMediaType(contentType)).body(isThumbnail ? logo.getThumbnail() : logo.getLogo());
+	}
+
+	@GetMapping("/portal/role/{role_name}/users")
+	public ResponseEntity<DepartmentUserPage> getRoleMembers(@PathVariable("role_name") String roleName,
+			@RequestParam(name = "deptId", required = false) Integer deptId,
+			@RequestParam(name = "deptType", required = false) String deptType,
+			@RequestParam(name = "status", required = false) String status,
+			@RequestParam(name = "cursor", required = false) Integer cursor,
+			@RequestParam(name = "size", required = false) Integer size,
+			@RequestParam(name = "profile", required = false) boolean isProfileRequired,
+			@RequestHeader("rootOrg") String rootOrg) {
+		return new ResponseEntity<>(portalService.getRoleMembers(roleName, deptId, deptType, status, cursor, size,
+				isProfileRequired, rootOrg), HttpStatus.OK);
+	}
+
 	@GetMapping("/portal/mydepartment")
 	public ResponseEntity<DepartmentInfo> getMyDepartmentDetails(@RequestHeader("wid") String userId,
 			@RequestParam(name = "allUsers", required = false) boolean isUserInfoRequired) throws Exception {
@@ -332,28 +546,54 @@ public class PortalController {
 //		return new ResponseEntity<Boolean>(portalService.checkMdoAdminPrivilage(deptKey, wid), HttpStatus.OK);
 //	}
 
+	/**
+	 * Serves a pre-serialized directory view with its ETag, or an empty 304 when
+	 * the client already holds the current version.
+	 */
+	private ResponseEntity<byte[]> toResponse(PublicDepartmentDirectory.Payload payload, WebRequest request) {
+		if (payload == null) {
+			return ResponseEntity.ok().build();
+		}
+		if (request.checkNotModified(payload.getETag())) {
+			return null;
+		}
+		return ResponseEntity.ok().eTag(payload.getETag()).contentType(MediaType.APPLICATION_JSON_UTF8)
+				.body(payload.getBody());
+	}
+
 	private void validateUserAccess(String deptType, String roleName, String wid){
 		validateUserAccess(deptType, roleName, wid, -1);
 	}
 
 	private void validateUserAccess(String deptType, String roleName, String wid, Integer deptId) throws BadRequestException {
-		if (!portalService.isAdmin(deptType, roleName, wid)) {
+		if (!portalService.isAdmin(deptType, roleName, getAuthorizationProfile(wid))) {
 			throw new BadRequestException("User is not assigned with Role: '" + roleName + "'.");
 		}
 	}
 
 	private void validateCBPUserAccess(String userId) throws BadRequestException {
-		if (!portalService.validateCBPUserLogin(userId)) {
+		if (!portalService.validateUserLoginForDepartment(getAuthorizationProfile(userId),
+				PortalConstants.CBP_DEPT_TYPE)) {
 			throw new BadRequestException("User is not assigned with any CBP related roles.");
 		}
 	}
 
 	private void validateUserLoginForDepartment(String userId, String departmentType) throws BadRequestException {
-		if (!portalService.validateUserLoginForDepartment(userId, departmentType)) {
+		if (!portalService.validateUserLoginForDepartment(getAuthorizationProfile(userId), departmentType)) {
 			throw new BadRequestException("User is not assigned with any " + departmentType + " related roles.");
 		}
 	}
 
+	/**
+	 * Uses the caller's claims token when it is valid, otherwise falls back to
+	 * the cached database lookup.
+	 */
+	private UserAuthorizationProfile getAuthorizationProfile(String wid) {
+		UserAuthorizationProfile profile = claimsTokenService
+				.verifyToken(request.getHeader(UserClaimsTokenService.CLAIMS_TOKEN_HEADER), wid);
+		return profile != null ? profile : userAuthService.getUserAuthorizationProfile(wid);
+	}
+
 	@GetMapping("/portal/isUserActive")
 	public ResponseEntity<Boolean> isUserActive(@RequestHeader("userId") String userId) {
 		return new ResponseEntity<>(portalService.isUserActive(userId), HttpStatus.OK);
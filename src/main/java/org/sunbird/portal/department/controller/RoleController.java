@@ -3,6 +3,7 @@ package org.sunbird.portal.department.controller;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -11,11 +12,13 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 import org.sunbird.core.exception.BadRequestException;
 import org.sunbird.portal.department.dto.DepartmentRole;
 import org.sunbird.portal.department.dto.Role;
 import org.sunbird.portal.department.service.RoleService;
+import org.sunbird.portal.department.service.UserClaimsTokenService;
 
 import java.util.Set;
 
@@ -25,6 +28,9 @@ public class RoleController {
 	@Autowired
 	RoleService roleService;
 
+	@Autowired
+	UserClaimsTokenService claimsTokenService;
+
 	@GetMapping("/portal/role")
 	public ResponseEntity<Iterable<Role>> getAllRoles(){
 		return new ResponseEntity<>(roleService.getAllRoles(), HttpStatus.OK);
@@ -68,9 +74,18 @@ public class RoleController {
 		return new ResponseEntity<>(roleService.removeDepartmentRole(deptRoleId), HttpStatus.OK);
 	}
 
+	/**
+	 * When the caller asks for their own roles, a signed claims token is also
+	 * returned in the x-claims-token header.
+	 */
 	@GetMapping("/portal/{user_id}/roles")
-	public ResponseEntity<Set<String>> getUserRoles(@PathVariable("user_id") String userId)
-			throws BadRequestException {
-		return new ResponseEntity<>(roleService.getUserRoles(userId), HttpStatus.OK);
+	public ResponseEntity<Set<String>> getUserRoles(@PathVariable("user_id") String userId,
+			@RequestHeader(name = "wid", required = false) String wid) throws BadRequestException {
+		HttpHeaders headers = new HttpHeaders();
+		String claimsToken = userId.equals(wid) ? claimsTokenService.issueToken(userId) : null;
+		if (claimsToken != null) {
+			headers.set(UserClaimsTokenService.CLAIMS_TOKEN_HEADER, claimsToken);
+		}
+		return new ResponseEntity<>(roleService.getUserRoles(userId), headers, HttpStatus.OK);
 	}
 }
\ No newline at end of file
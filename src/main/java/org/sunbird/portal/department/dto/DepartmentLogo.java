@@ -0,0 +1,85 @@
+package org.sunbird.portal.department.dto;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+
+@Entity
+@Table(name = "department_logos", schema = "wingspan")
+public class DepartmentLogo {
+
+	@Id
+	@Column(name = "dept_id")
+	private Integer deptId;
+
+	@Column(name = "content_hash")
+	@NotNull
+	private String contentHash;
+
+	@Column(name = "content_type")
+	@NotNull
+	private String contentType;
+
+	@Column(name = "logo")
+	@NotNull
+	private byte[] logo;
+
+	@Column(name = "thumbnail")
+	@NotNull
+	private byte[] thumbnail;
+
+	@Column(name = "updated_time")
+	private Long updatedTime;
+
+	public Integer getDeptId() {
+		return deptId;
+	}
+
+	public void setDeptId(Integer deptId) {
+		this.deptId = deptId;
+	}
+
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	public void setContentHash(String contentHash) {
+		this.contentHash = contentHash;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public void setContentType(String contentType) {
+		this.contentType = contentType;
+	}
+
+	public byte[] getLogo() {
+		return logo;
+	}
+
+	public void setLogo(byte[] logo) {
+		this.logo = logo;
+	}
+
+	public byte[] getThumbnail() {
+		return thumbnail;
+	}
+
+	public void setThumbnail(byte[] thumbnail) {
+		this.thumbnail = thumbnail;
+	}
+
+	public Long getUpdatedTime() {
+		return updatedTime;
+	}
+
+	public void setUpdatedTime(Long updatedTime) {
+		this.updatedTime = updatedTime;
+	}
+
+	public String toString() {
+		return "[DepartmentLogo = deptId: " + deptId + ", contentHash: " + contentHash + ", contentType: "
+				+ contentType + ", size: " + (logo == null ? 0 : logo.length) + "]";
+	}
+}
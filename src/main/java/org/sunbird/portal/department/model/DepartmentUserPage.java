@@ -0,0 +1,39 @@
+package org.sunbird.portal.department.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DepartmentUserPage {
+	private Integer deptId;
+	private List<PortalUserInfo> users = new ArrayList<>();
+	private Integer nextCursor;
+
+	public Integer getDeptId() {
+		return deptId;
+	}
+
+	public void setDeptId(Integer deptId) {
+		this.deptId = deptId;
+	}
+
+	public List<PortalUserInfo> getUsers() {
+		return users;
+	}
+
+	public void setUsers(List<PortalUserInfo> users) {
+		this.users = users;
+	}
+
+	public Integer getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(Integer nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+
+	public String toString() {
+		return "[DepartmentUserPage = deptId: " + deptId + ", users: " + users.size() + ", nextCursor: " + nextCursor
+				+ "]";
+	}
+}
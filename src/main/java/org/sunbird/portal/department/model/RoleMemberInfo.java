@@ -0,0 +1,13 @@
+package org.sunbird.portal.department.model;
+
+public class RoleMemberInfo extends PortalUserInfo {
+	private Integer deptId;
+
+	public Integer getDeptId() {
+		return deptId;
+	}
+
+	public void setDeptId(Integer deptId) {
+		this.deptId = deptId;
+	}
+}
@@ -0,0 +1,133 @@
+package org.sunbird.portal.department.model;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact view of a user's active department memberships, grouped by
+ * department type. Department type keys are stored in upper case so lookups
+ * are case insensitive.
+ */
+public class UserAuthorizationProfile {
+	private String userId;
+	private boolean active;
+	private Set<Integer> deptIds = new HashSet<>();
+	private Map<String, Set<String>> deptTypeRoleNames = new HashMap<>();
+	private Map<String, Set<Integer>> deptTypeRoleIds = new HashMap<>();
+
+	public UserAuthorizationProfile() {
+	}
+
+	public UserAuthorizationProfile(String userId) {
+		this.userId = userId;
+	}
+
+	public void addDepartment(Integer deptId) {
+		active = true;
+		if (deptId != null) {
+			deptIds.add(deptId);
+		}
+	}
+
+	public void addRole(String deptType, Integer roleId, String roleName) {
+		if (deptType == null) {
+			return;
+		}
+		String key = deptType.toUpperCase();
+		Set<Integer> roleIds = deptTypeRoleIds.computeIfAbsent(key, k -> new HashSet<>());
+		Set<String> roleNames = deptTypeRoleNames.computeIfAbsent(key, k -> new HashSet<>());
+		if (roleId != null) {
+			roleIds.add(roleId);
+			roleNames.add(roleName);
+		}
+	}
+
+	public boolean hasDepartmentType(String deptType) {
+		return deptType != null && deptTypeRoleIds.containsKey(deptType.toUpperCase());
+	}
+
+	public boolean hasRoleContaining(String deptType, String roleName) {
+		for (String name : getRoleNames(deptType)) {
+			if (name != null && name.contains(roleName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean hasAnyRole(String deptType, Collection<String> roleNames) {
+		for (String name : getRoleNames(deptType)) {
+			if (roleNames.contains(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean hasAnyRoleId(String deptType, Collection<Integer> roleIds) {
+		for (Integer roleId : getRoleIds(deptType)) {
+			if (roleIds.contains(roleId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public Set<String> getRoleNames(String deptType) {
+		Set<String> roleNames = deptType == null ? null : deptTypeRoleNames.get(deptType.toUpperCase());
+		return roleNames == null ? new HashSet<>() : roleNames;
+	}
+
+	public Set<Integer> getRoleIds(String deptType) {
+		Set<Integer> roleIds = deptType == null ? null : deptTypeRoleIds.get(deptType.toUpperCase());
+		return roleIds == null ? new HashSet<>() : roleIds;
+	}
+
+	public String getUserId() {
+		return userId;
+	}
+
+	public void setUserId(String userId) {
+		this.userId = userId;
+	}
+
+	public boolean isActive() {
+		return active;
+	}
+
+	public void setActive(boolean active) {
+		this.active = active;
+	}
+
+	public Set<Integer> getDeptIds() {
+		return deptIds;
+	}
+
+	public void setDeptIds(Set<Integer> deptIds) {
+		this.deptIds = deptIds;
+	}
+
+	public Map<String, Set<String>> getDeptTypeRoleNames() {
+		return deptTypeRoleNames;
+	}
+
+	public void setDeptTypeRoleNames(Map<String, Set<String>> deptTypeRoleNames) {
+		this.deptTypeRoleNames = deptTypeRoleNames;
+	}
+
+	public Map<String, Set<Integer>> getDeptTypeRoleIds() {
+		return deptTypeRoleIds;
+	}
+
+	public void setDeptTypeRoleIds(Map<String, Set<Integer>> deptTypeRoleIds) {
+		this.deptTypeRoleIds = deptTypeRoleIds;
+	}
+
+	public String toString() {
+		return "[UserAuthorizationProfile = userId: " + userId + ", active: " + active + ", deptIds: " + deptIds
+				+ ", deptTypeRoleNames: " + deptTypeRoleNames + "]";
+	}
+}
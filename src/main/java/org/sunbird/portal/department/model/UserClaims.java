@@ -0,0 +1,40 @@
+package org.sunbird.portal.department.model;
+
+public class UserClaims {
+	private UserAuthorizationProfile profile;
+	private long issuedAt;
+	private long expiresAt;
+
+	public UserClaims() {
+	}
+
+	public UserClaims(UserAuthorizationProfile profile, long issuedAt, long expiresAt) {
+		this.profile = profile;
+		this.issuedAt = issuedAt;
+		this.expiresAt = expiresAt;
+	}
+
+	public UserAuthorizationProfile getProfile() {
+		return profile;
+	}
+
+	public void setProfile(UserAuthorizationProfile profile) {
+		this.profile = profile;
+	}
+
+	public long getIssuedAt() {
+		return issuedAt;
+	}
+
+	public void setIssuedAt(long issuedAt) {
+		this.issuedAt = issuedAt;
+	}
+
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+
+	public void setExpiresAt(long expiresAt) {
+		this.expiresAt = expiresAt;
+	}
+}
@@ -0,0 +1,75 @@
+package org.sunbird.portal.department.model;
+
+import java.util.List;
+
+public class UserRoleAssignmentResult {
+	private int rowNumber;
+	private String userId;
+	private Integer deptId;
+	private List<String> roles;
+	private String status;
+	private String message;
+
+	public UserRoleAssignmentResult() {
+	}
+
+	public UserRoleAssignmentResult(int rowNumber, String userId, Integer deptId, List<String> roles) {
+		this.rowNumber = rowNumber;
+		this.userId = userId;
+		this.deptId = deptId;
+		this.roles = roles;
+	}
+
+	public int getRowNumber() {
+		return rowNumber;
+	}
+
+	public void setRowNumber(int rowNumber) {
+		this.rowNumber = rowNumber;
+	}
+
+	public String getUserId() {
+		return userId;
+	}
+
+	public void setUserId(String userId) {
+		this.userId = userId;
+	}
+
+	public Integer getDeptId() {
+		return deptId;
+	}
+
+	public void setDeptId(Integer deptId) {
+		this.deptId = deptId;
+	}
+
+	public List<String> getRoles() {
+		return roles;
+	}
+
+	public void setRoles(List<String> roles) {
+		this.roles = roles;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	public String toString() {
+		return "[UserRoleAssignmentResult = rowNumber: " + rowNumber + ", userId: " + userId + ", deptId: " + deptId
+				+ ", roles: " + roles + ", status: " + status + ", message: " + message + "]";
+	}
+}
@@ -0,0 +1,101 @@
+package org.sunbird.portal.department.model;
+
+import java.util.Map;
+
+/**
+ * Workflow service update for a user's department change, stored in the
+ * workflow_notification_outbox table under outboxId, published to
+ * kafka.topics.workflow.notification and delivered by
+ * WorkflowNotificationConsumer. A failed delivery is published to the retry
+ * topic with the number of failed attempts and the time of the next one.
+ */
+public class WorkflowNotification {
+	private long outboxId;
+	private String userId;
+	private String rootOrg;
+	private String org;
+	private Map<String, Object> request;
+	private long createdTime;
+	private int attempt;
+	private long retryAt;
+
+	public WorkflowNotification() {
+	}
+
+	public WorkflowNotification(String userId, String rootOrg, String org, Map<String, Object> request) {
+		this.userId = userId;
+		this.rootOrg = rootOrg;
+		this.org = org;
+		this.request = request;
+		this.createdTime = System.currentTimeMillis();
+	}
+
+	public long getOutboxId() {
+		return outboxId;
+	}
+
+	public void setOutboxId(long outboxId) {
+		this.outboxId = outboxId;
+	}
+
+	public String getUserId() {
+		return userId;
+	}
+
+	public void setUserId(String userId) {
+		this.userId = userId;
+	}
+
+	public String getRootOrg() {
+		return rootOrg;
+	}
+
+	public void setRootOrg(String rootOrg) {
+		this.rootOrg = rootOrg;
+	}
+
+	public String getOrg() {
+		return org;
+	}
+
+	public void setOrg(String org) {
+		this.org = org;
+	}
+
+	public Map<String, Object> getRequest() {
+		return request;
+	}
+
+	public void setRequest(Map<String, Object> request) {
+		this.request = request;
+	}
+
+	public long getCreatedTime() {
+		return createdTime;
+	}
+
+	public void setCreatedTime(long createdTime) {
+		this.createdTime = createdTime;
+	}
+
+	public int getAttempt() {
+		return attempt;
+	}
+
+	public void setAttempt(int attempt) {
+		this.attempt = attempt;
+	}
+
+	public long getRetryAt() {
+		return retryAt;
+	}
+
+	public void setRetryAt(long retryAt) {
+		this.retryAt = retryAt;
+	}
+
+	public String toString() {
+		return "[WorkflowNotification = outboxId: " + outboxId + ", userId: " + userId + ", rootOrg: " + rootOrg
+				+ ", org: " + org + ", createdTime: " + createdTime + ", attempt: " + attempt + "]";
+	}
+}
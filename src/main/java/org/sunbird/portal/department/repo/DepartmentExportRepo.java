@@ -0,0 +1,38 @@
+package org.sunbird.portal.department.repo;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reads active departments joined with their user_department_role rows, one
+ * page at a time in (department id, row id) order. Each page is read in its
+ * own short read-only transaction, so an export does not hold a connection
+ * while it writes rows or fetches profiles.
+ */
+@Repository
+public class DepartmentExportRepo {
+
+	private static final String EXPORT_PAGE_QUERY = "SELECT d.id, d.dept_name, d.root_org, d.dept_type_ids, "
+			+ "u.id AS row_id, u.user_id, u.role_ids, u.isactive, u.isblocked FROM wingspan.departments d "
+			+ "LEFT JOIN wingspan.user_department_role u ON u.dept_id = d.id WHERE d.isdeleted = false "
+			+ "AND (d.id > ? OR (d.id = ? AND u.id > ?)) ORDER BY d.id, u.id LIMIT ?";
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	/**
+	 * @param afterDeptId department id of the last row read, 0 for the first
+	 *                    page
+	 * @param afterRowId  row id of the last row read, Integer.MAX_VALUE when
+	 *                    that department had no members
+	 */
+	@Transactional(readOnly = true)
+	public <T> List<T> findPageAfter(int afterDeptId, int afterRowId, int limit, RowMapper<T> rowMapper) {
+		return jdbcTemplate.query(EXPORT_PAGE_QUERY, rowMapper, afterDeptId, afterDeptId, afterRowId, limit);
+	}
+}
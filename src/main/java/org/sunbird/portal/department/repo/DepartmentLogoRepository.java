@@ -0,0 +1,11 @@
+package org.sunbird.portal.department.repo;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.sunbird.portal.department.dto.DepartmentLogo;
+
+public interface DepartmentLogoRepository extends CrudRepository<DepartmentLogo, Integer> {
+
+	@Query("SELECT l.contentHash FROM DepartmentLogo l WHERE l.deptId = ?1")
+	String findContentHashByDeptId(Integer deptId);
+}
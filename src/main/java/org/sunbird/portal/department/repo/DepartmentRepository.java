@@ -3,6 +3,8 @@ package org.sunbird.portal.department.repo;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.sunbird.portal.department.dto.Department;
 
@@ -14,12 +16,17 @@ public interface DepartmentRepository extends CrudRepository<Department, Integer
 
 	List<Department> findAllByIsDeletedOrderByDeptNameAsc(boolean isDeleted);
 
+	List<Department> findAllByIsDeletedOrderByDeptNameAsc(boolean isDeleted, Pageable pageable);
+
 	boolean existsByDeptNameIgnoreCase(String deptName);
 
 	List<Department> findAllByIdIn(Iterable<Integer> deptTypeIds);
 
 	Department findByDeptNameIgnoreCaseAndIsDeleted(String deptKey, boolean isDeleted);
 
+	@Query(value = "SELECT id FROM wingspan.departments WHERE logo LIKE 'data:%' OR length(logo) > 2048", nativeQuery = true)
+	List<Integer> findIdsWithInlineLogo();
+
 //	@Query("select dept from departments where dept.dept_type_id in (select id from department_types where dept_type = ?0)")
 //	List<Department> findDeptUsingType(String deptTypeKey);
 }
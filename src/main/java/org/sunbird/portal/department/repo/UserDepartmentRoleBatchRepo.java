@@ -0,0 +1,91 @@
+package org.sunbird.portal.department.repo;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.sunbird.portal.department.dto.UserDepartmentRole;
+import org.sunbird.portal.department.dto.UserDepartmentRoleAudit;
+
+/**
+ * JDBC batch writes for user_department_role and its audit table. Hibernate
+ * cannot batch inserts of IDENTITY generated entities, so bulk writes bypass
+ * JPA.
+ */
+@Repository
+public class UserDepartmentRoleBatchRepo {
+
+	private static final String INSERT_USER_DEPARTMENT_ROLE = "INSERT INTO wingspan.user_department_role "
+			+ "(user_id, dept_id, role_ids, isactive, isblocked, source_user_id) VALUES (?, ?, ?, ?, ?, ?)";
+
+	private static final String INSERT_USER_DEPARTMENT_ROLE_AUDIT = "INSERT INTO wingspan.user_department_role_audit "
+			+ "(user_id, dept_id, role_ids, isactive, isblocked, created_by, created_time) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	public int[] insertAll(List<UserDepartmentRole> userDeptRoles) {
+		return jdbcTemplate.batchUpdate(INSERT_USER_DEPARTMENT_ROLE, new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				UserDepartmentRole userDeptRole = userDeptRoles.get(i);
+				ps.setString(1, userDeptRole.getUserId());
+				ps.setInt(2, userDeptRole.getDeptId());
+				ps.setArray(3, ps.getConnection().createArrayOf("integer", userDeptRole.getRoleIds()));
+				ps.setBoolean(4, userDeptRole.getIsActive());
+				ps.setBoolean(5, userDeptRole.getIsBlocked());
+				ps.setString(6, userDeptRole.getSourceUserId());
+			}
+
+			@Override
+			public int getBatchSize() {
+				return userDeptRoles.size();
+			}
+		});
+	}
+
+	/**
+	 * Inserts all audit rows in a single transaction, either every row is
+	 * stored or none.
+	 */
+	@Transactional
+	public int[] insertAllAudits(List<UserDepartmentRoleAudit> audits) {
+		return jdbcTemplate.batchUpdate(INSERT_USER_DEPARTMENT_ROLE_AUDIT, new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				setAuditValues(ps, audits.get(i));
+			}
+
+			@Override
+			public int getBatchSize() {
+				return audits.size();
+			}
+		});
+	}
+
+	public int insertAudit(UserDepartmentRoleAudit audit) {
+		return jdbcTemplate.update(INSERT_USER_DEPARTMENT_ROLE_AUDIT, ps -> setAuditValues(ps, audit));
+	}
+
+	/**
+	 * Only created_time is required by the audit table, the other columns are
+	 * stored as null when missing from the event.
+	 */
+	private static void setAuditValues(PreparedStatement ps, UserDepartmentRoleAudit audit) throws SQLException {
+		ps.setString(1, audit.getUserId());
+		ps.setObject(2, audit.getDeptId(), Types.INTEGER);
+		ps.setArray(3, audit.getRoleIds() == null ? null
+				: ps.getConnection().createArrayOf("integer", audit.getRoleIds()));
+		ps.setObject(4, audit.getIsActive(), Types.BOOLEAN);
+		ps.setObject(5, audit.getIsBlocked(), Types.BOOLEAN);
+		ps.setString(6, audit.getCreatedBy());
+		ps.setLong(7, audit.getCreatedTime());
+	}
+}
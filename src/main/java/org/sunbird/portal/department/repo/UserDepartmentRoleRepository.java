@@ -2,24 +2,93 @@ package org.sunbird.portal.department.repo;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.sunbird.portal.department.dto.UserDepartmentRole;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface UserDepartmentRoleRepository extends JpaRepository<UserDepartmentRole, Integer> {
 
+	String USER_STATUS_FILTER = "(:status = 'ALL' OR (:status = 'BLOCKED' AND isblocked = true) "
+			+ "OR (:status = 'ACTIVE' AND isactive = true AND isblocked = false) "
+			+ "OR (:status = 'INACTIVE' AND isactive = false AND isblocked = false)) ";
+
 	List<UserDepartmentRole> findByUserId(String userId);
 	
 	List<UserDepartmentRole> findAllByUserIdAndIsActiveAndIsBlocked(String userId, boolean isActive, boolean isBlocked);
 
 	List<UserDepartmentRole> findByDeptId(Integer deptId);
 
+	List<UserDepartmentRole> findAllByUserIdIn(Collection<String> userIds);
+
 //	List<UserDepartmentRole> findByDeptRoleId(List<String> userDeptIds);
 
 	UserDepartmentRole findByUserIdAndDeptId(String userId, Integer deptId);
 
 	List<UserDepartmentRole> findAllByUserIdAndDeptId(String userId, List<Integer> deptIds);
 
-	@Query(value = "SELECT count(*) FROM wingspan.user_department_role WHERE ?1 = ANY (role_ids) and dept_id = ?2", nativeQuery = true)
+	@Query(value = "SELECT count(*) FROM wingspan.user_department_role WHERE role_ids @> ARRAY[?1] and dept_id = ?2", nativeQuery = true)
 	int getTotalUserCountOnRoleIdAndDeptId(Integer roleId, Integer deptId);
+
+	/**
+	 * Keyset page of department members ordered by id. Status is one of ALL,
+	 * ACTIVE, INACTIVE or BLOCKED and a negative roleId matches every role.
+	 */
+	@Query(value = "SELECT * FROM wingspan.user_department_role WHERE dept_id = :deptId AND id > :afterId "
+			+ "AND " + USER_STATUS_FILTER
+			+ "AND (:roleId < 0 OR role_ids @> ARRAY[:roleId]) ORDER BY id LIMIT :limit", nativeQuery = true)
+	List<UserDepartmentRole> findDepartmentUsersAfterId(@Param("deptId") Integer deptId,
+			@Param("afterId") Integer afterId, @Param("status") String status, @Param("roleId") Integer roleId,
+			@Param("limit") int limit);
+
+	/**
+	 * Keyset page of the users holding the given role in any active department
+	 * having one of the given department types, ordered by id.
+	 */
+	@Query(value = "SELECT * FROM wingspan.user_department_role WHERE role_ids @> ARRAY[:roleId] AND id > :afterId "
+			+ "AND " + USER_STATUS_FILTER
+			+ "AND dept_id IN (SELECT d.id FROM wingspan.departments d WHERE d.isdeleted = false AND EXISTS "
+			+ "(SELECT 1 FROM unnest(d.dept_type_ids) AS t(type_id) WHERE t.type_id IN (:deptTypeIds))) "
+			+ "ORDER BY id LIMIT :limit", nativeQuery = true)
+	List<UserDepartmentRole> findRoleMembersByDeptTypeAfterId(@Param("deptTypeIds") Collection<Integer> deptTypeIds,
+			@Param("afterId") Integer afterId, @Param("status") String status, @Param("roleId") Integer roleId,
+			@Param("limit") int limit);
+
+	/**
+	 * Keyset page of the ids of the active users holding the role in the
+	 * department, ordered by user id. Pass an empty afterUserId for the first
+	 * page.
+	 */
+	@Query(value = "SELECT DISTINCT user_id FROM wingspan.user_department_role WHERE dept_id = :deptId "
+			+ "AND isactive = true AND isblocked = false AND role_ids @> ARRAY[:roleId] AND user_id > :afterUserId "
+			+ "ORDER BY user_id LIMIT :limit", nativeQuery = true)
+	List<String> findActiveUserIdsByDeptIdAndRoleIdAfter(@Param("deptId") Integer deptId,
+			@Param("roleId") Integer roleId, @Param("afterUserId") String afterUserId, @Param("limit") int limit);
+
+	@Query(value = "SELECT dept_id, count(*) FROM wingspan.user_department_role WHERE dept_id IN (:deptIds) "
+			+ "GROUP BY dept_id", nativeQuery = true)
+	List<Object[]> getUserCountByDeptId(@Param("deptIds") Collection<Integer> deptIds);
+
+	/**
+	 * Returns the number of users per role for the given departments in one
+	 * round trip -> [dept_id, role_id, count].
+	 */
+	@Query(value = "SELECT udr.dept_id, r.role_id, count(*) FROM wingspan.user_department_role udr "
+			+ "CROSS JOIN LATERAL unnest(udr.role_ids) AS r(role_id) WHERE udr.dept_id IN (:deptIds) "
+			+ "GROUP BY udr.dept_id, r.role_id", nativeQuery = true)
+	List<Object[]> getUserCountByDeptIdAndRoleId(@Param("deptIds") Collection<Integer> deptIds);
+
+	/**
+	 * Returns one row per (department, department type, role) for the active
+	 * memberships of the given user -> [dept_id, dept_type, role_id, role_name].
+	 * Deleted departments and unknown roles come back as nulls so the
+	 * membership itself is still visible.
+	 */
+	@Query(value = "SELECT udr.dept_id, dt.dept_type, r.id, r.role_name FROM wingspan.user_department_role udr "
+			+ "LEFT JOIN wingspan.departments d ON d.id = udr.dept_id AND d.isdeleted = false "
+			+ "LEFT JOIN wingspan.department_types dt ON dt.id = ANY (d.dept_type_ids) "
+			+ "LEFT JOIN wingspan.roles r ON r.id = ANY (udr.role_ids) "
+			+ "WHERE udr.user_id = ?1 AND udr.isactive = true AND udr.isblocked = false", nativeQuery = true)
+	List<Object[]> getUserAuthorizationDetails(String userId);
 }
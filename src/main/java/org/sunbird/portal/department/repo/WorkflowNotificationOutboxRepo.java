@@ -0,0 +1,137 @@
+package org.sunbird.portal.department.repo;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.sunbird.core.exception.ApplicationLogicError;
+import org.sunbird.portal.department.dto.UserDepartmentRole;
+import org.sunbird.portal.department.model.WorkflowNotification;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Outbox of the workflow notifications of department changes. A notification
+ * is stored in the transaction of the change it belongs to, so it exists if
+ * and only if the change does. WorkflowNotificationOutboxRelay publishes the
+ * rows to Kafka and WorkflowNotificationConsumer deletes a row once its
+ * notification is delivered or dead lettered. Only the oldest row of a user is
+ * published, so the notifications of a user are delivered in order.
+ */
+@Repository
+public class WorkflowNotificationOutboxRepo {
+
+	private static final String INSERT_NOTIFICATION = "INSERT INTO wingspan.workflow_notification_outbox "
+			+ "(user_id, notification, created_time) VALUES (?, ?, ?)";
+
+	private static final String NEXT_TO_PUBLISH_QUERY = "SELECT o.id, o.notification "
+			+ "FROM wingspan.workflow_notification_outbox o "
+			+ "WHERE (o.published_time IS NULL OR o.published_time < ?) AND NOT EXISTS "
+			+ "(SELECT 1 FROM wingspan.workflow_notification_outbox p WHERE p.user_id = o.user_id AND p.id < o.id) "
+			+ "ORDER BY o.id LIMIT ?";
+
+	private static final String MARK_PUBLISHED = "UPDATE wingspan.workflow_notification_outbox "
+			+ "SET published_time = ? WHERE id = ?";
+
+	private static final String DELETE_NOTIFICATION = "DELETE FROM wingspan.workflow_notification_outbox WHERE id = ?";
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	UserDepartmentRoleRepository userDepartmentRoleRepo;
+
+	@Autowired
+	UserDepartmentRoleBatchRepo userDeptRoleBatchRepo;
+
+	/**
+	 * Saves the user department role and stores its notification in one
+	 * transaction.
+	 */
+	@Transactional
+	public UserDepartmentRole saveWithNotification(UserDepartmentRole userDeptRole,
+			WorkflowNotification notification) {
+		UserDepartmentRole savedRecord = userDepartmentRoleRepo.save(userDeptRole);
+		insertAll(Collections.singletonList(notification));
+		return savedRecord;
+	}
+
+	/**
+	 * Inserts the user department roles and stores their notifications in one
+	 * transaction, either every row is stored or none.
+	 */
+	@Transactional
+	public int[] insertAllWithNotifications(List<UserDepartmentRole> userDeptRoles,
+			List<WorkflowNotification> notifications) {
+		int[] counts = userDeptRoleBatchRepo.insertAll(userDeptRoles);
+		insertAll(notifications);
+		return counts;
+	}
+
+	/**
+	 * @param republishBefore rows published before this time are returned
+	 *                        again, in case their message was lost
+	 * @return the oldest unpublished notification of each user, in the order
+	 *         they were stored, with their outbox id set; read from the
+	 *         primary, a lagging replica could return deleted rows
+	 */
+	public List<WorkflowNotification> findNextToPublish(long republishBefore, int limit) {
+		return jdbcTemplate.query(NEXT_TO_PUBLISH_QUERY, (rs, rowNum) -> {
+			WorkflowNotification notification = readNotification(rs.getString("notification"));
+			notification.setOutboxId(rs.getLong("id"));
+			return notification;
+		}, republishBefore, limit);
+	}
+
+	public int markPublished(long outboxId, long publishedTime) {
+		return jdbcTemplate.update(MARK_PUBLISHED, publishedTime, outboxId);
+	}
+
+	public int delete(long outboxId) {
+		return jdbcTemplate.update(DELETE_NOTIFICATION, outboxId);
+	}
+
+	private void insertAll(List<WorkflowNotification> notifications) {
+		jdbcTemplate.batchUpdate(INSERT_NOTIFICATION, new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				WorkflowNotification notification = notifications.get(i);
+				ps.setString(1, notification.getUserId());
+				ps.setString(2, writeNotification(notification));
+				ps.setLong(3, notification.getCreatedTime());
+			}
+
+			@Override
+			public int getBatchSize() {
+				return notifications.size();
+			}
+		});
+	}
+
+	private String writeNotification(WorkflowNotification notification) {
+		try {
+			return mapper.writeValueAsString(notification);
+		} catch (JsonProcessingException e) {
+			throw new ApplicationLogicError("Failed to write the workflow notification of " + notification.getUserId(),
+					e);
+		}
+	}
+
+	private WorkflowNotification readNotification(String notification) {
+		try {
+			return mapper.readValue(notification, WorkflowNotification.class);
+		} catch (IOException e) {
+			throw new ApplicationLogicError("Failed to read the workflow notification " + notification, e);
+		}
+	}
+}
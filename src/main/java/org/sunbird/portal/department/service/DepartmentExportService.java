@@ -0,0 +1,221 @@
+package org.sunbird.portal.department.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.sunbird.common.model.OpenSaberApiUserProfile;
+import org.sunbird.common.service.UserUtilityService;
+import org.sunbird.common.util.CbExtServerProperties;
+import org.sunbird.common.util.Constants;
+import org.sunbird.core.exception.BadRequestException;
+import org.sunbird.core.logger.CbExtLogger;
+import org.sunbird.portal.department.DepartmentReferenceDataCache;
+import org.sunbird.portal.department.dto.DepartmentType;
+import org.sunbird.portal.department.dto.Role;
+import org.sunbird.portal.department.repo.DepartmentExportRepo;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Streams every active department with its members and roles as CSV or
+ * NDJSON. Rows are read by keyset, one chunk per short transaction, and each
+ * chunk is enriched with user profiles and written out after its transaction
+ * has ended, so neither memory use nor the time a connection is held depends
+ * on the number of departments or members.
+ */
+@Service
+public class DepartmentExportService {
+
+	public static final String FORMAT_CSV = "csv";
+	public static final String FORMAT_NDJSON = "ndjson";
+
+	private static final List<String> COLUMNS = Collections.unmodifiableList(Arrays.asList("deptId", "deptName",
+			"rootOrg", "deptTypes", "userId", "firstName", "lastName", "email", "roles", "isActive", "isBlocked"));
+
+	private CbExtLogger logger = new CbExtLogger(getClass().getName());
+
+	@Autowired
+	DepartmentExportRepo exportRepo;
+
+	@Autowired
+	DepartmentReferenceDataCache refDataCache;
+
+	@Autowired
+	UserUtilityService userUtilService;
+
+	@Autowired
+	CbExtServerProperties serverConfig;
+
+	private final ObjectWriter jsonWriter = new ObjectMapper().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+			.writer();
+
+	public String validateFormat(String format) {
+		String exportFormat = format == null ? FORMAT_CSV : format.toLowerCase();
+		if (!FORMAT_CSV.equals(exportFormat) && !FORMAT_NDJSON.equals(exportFormat)) {
+			throw new BadRequestException(
+					"Invalid format: " + format + ", supported values are " + FORMAT_CSV + ", " + FORMAT_NDJSON);
+		}
+		return exportFormat;
+	}
+
+	public void exportDepartments(OutputStream out, String format, boolean isProfileRequired, String rootOrg)
+			throws IOException {
+		long startTime = System.currentTimeMillis();
+		Map<Integer, String> roleNames = new HashMap<>();
+		for (Role role : refDataCache.getAllRoles()) {
+			roleNames.put(role.getId(), role.getRoleName());
+		}
+		Map<Integer, String> deptTypeNames = new HashMap<>();
+		for (DepartmentType deptType : refDataCache.getAllDepartmentTypes()) {
+			deptTypeNames.put(deptType.getId(), deptType.getDeptType() + "/" + deptType.getDeptSubType());
+		}
+		int chunkSize = Math.max(1, serverConfig.getPortalDeptExportChunkSize());
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		if (FORMAT_CSV.equals(format)) {
+			writer.write(String.join(",", COLUMNS));
+			writer.write('\n');
+		}
+		long rowCount = 0;
+		int afterDeptId = 0;
+		int afterRowId = 0;
+		List<ExportRow> page;
+		do {
+			page = exportRepo.findPageAfter(afterDeptId, afterRowId, chunkSize,
+					(resultSet, rowNum) -> toRow(resultSet, roleNames, deptTypeNames));
+			if (page.isEmpty()) {
+				break;
+			}
+			ExportRow last = page.get(page.size() - 1);
+			afterDeptId = last.deptId;
+			afterRowId = last.rowId == null ? Integer.MAX_VALUE : last.rowId;
+			List<Map<String, Object>> chunk = new ArrayList<>(page.size());
+			for (ExportRow row : page) {
+				chunk.add(row.values);
+			}
+			writeChunk(writer, chunk, format, isProfileRequired, rootOrg);
+			rowCount += chunk.size();
+		} while (page.size() == chunkSize);
+		writer.flush();
+		logger.info("exportDepartments: format -> " + format + ", rows -> " + rowCount + ", timeTaken -> "
+				+ (System.currentTimeMillis() - startTime) + " ms");
+	}
+
+	private ExportRow toRow(ResultSet resultSet, Map<Integer, String> roleNames,
+			Map<Integer, String> deptTypeNames) throws SQLException {
+		Map<String, Object> row = new LinkedHashMap<>();
+		row.put("deptId", resultSet.getInt("id"));
+		row.put("deptName", resultSet.getString("dept_name"));
+		row.put("rootOrg", resultSet.getString("root_org"));
+		row.put("deptTypes", joinNames(resultSet.getArray("dept_type_ids"), deptTypeNames));
+		String userId = resultSet.getString("user_id");
+		row.put("userId", userId);
+		row.put("firstName", null);
+		row.put("lastName", null);
+		row.put("email", null);
+		row.put("roles", userId == null ? null : joinNames(resultSet.getArray("role_ids"), roleNames));
+		row.put("isActive", userId == null ? null : resultSet.getBoolean("isactive"));
+		row.put("isBlocked", userId == null ? null : resultSet.getBoolean("isblocked"));
+		return new ExportRow(resultSet.getInt("id"), (Integer) resultSet.getObject("row_id"), row);
+	}
+
+	private String joinNames(Array ids, Map<Integer, String> names) throws SQLException {
+		if (ids == null) {
+			return null;
+		}
+		StringJoiner joiner = new StringJoiner(";");
+		for (Object id : (Object[]) ids.getArray()) {
+			String name = names.get(((Number) id).intValue());
+			joiner.add(name == null ? String.valueOf(id) : name);
+		}
+		return joiner.toString();
+	}
+
+	private void writeChunk(Writer writer, List<Map<String, Object>> chunk, String format,
+			boolean isProfileRequired, String rootOrg) throws IOException {
+		if (isProfileRequired) {
+			enrichProfiles(chunk, rootOrg);
+		}
+		for (Map<String, Object> row : chunk) {
+			if (FORMAT_NDJSON.equals(format)) {
+				jsonWriter.writeValue(writer, row);
+			} else {
+				StringJoiner line = new StringJoiner(",");
+				for (Object value : row.values()) {
+					line.add(toCsvValue(value));
+				}
+				writer.write(line.toString());
+			}
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+
+	private void enrichProfiles(List<Map<String, Object>> chunk, String rootOrg) {
+		Set<String> userIdSet = new LinkedHashSet<>();
+		for (Map<String, Object> row : chunk) {
+			if (row.get("userId") != null) {
+				userIdSet.add((String) row.get("userId"));
+			}
+		}
+		List<String> userIds = new ArrayList<>(userIdSet);
+		Map<String, Object> profiles = new HashMap<>();
+		int profileChunkSize = Math.max(1, serverConfig.getPortalUserProfileChunkSize());
+		for (int i = 0; i < userIds.size(); i += profileChunkSize) {
+			profiles.putAll(userUtilService.getUsersDataFromUserIds(rootOrg,
+					userIds.subList(i, Math.min(i + profileChunkSize, userIds.size())),
+					new ArrayList<>(Arrays.asList(Constants.FIRST_NAME, Constants.LAST_NAME, Constants.EMAIL))));
+		}
+		for (Map<String, Object> row : chunk) {
+			OpenSaberApiUserProfile profile = (OpenSaberApiUserProfile) profiles.get(row.get("userId"));
+			if (profile != null && profile.getPersonalDetails() != null) {
+				row.put("firstName", profile.getPersonalDetails().getFirstname());
+				row.put("lastName", profile.getPersonalDetails().getSurname());
+				row.put("email", profile.getPersonalDetails().getPrimaryEmail());
+			}
+		}
+	}
+
+	private static String toCsvValue(Object value) {
+		if (value == null) {
+			return "";
+		}
+		String text = value.toString();
+		if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+			return text;
+		}
+		return "\"" + text.replace("\"", "\"\"") + "\"";
+	}
+
+	private static class ExportRow {
+		private final int deptId;
+		private final Integer rowId;
+		private final Map<String, Object> values;
+
+		ExportRow(int deptId, Integer rowId, Map<String, Object> values) {
+			this.deptId = deptId;
+			this.rowId = rowId;
+			this.values = values;
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package org.sunbird.portal.department.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+import org.sunbird.common.util.CbExtServerProperties;
+import org.sunbird.core.exception.ApplicationLogicError;
+import org.sunbird.core.exception.BadRequestException;
+import org.sunbird.core.logger.CbExtLogger;
+import org.sunbird.portal.department.dto.Department;
+import org.sunbird.portal.department.dto.DepartmentLogo;
+import org.sunbird.portal.department.repo.DepartmentLogoRepository;
+import org.sunbird.portal.department.repo.DepartmentRepository;
+
+/**
+ * Keeps uploaded department logos in department_logos, along with a fixed
+ * size PNG thumbnail, so that departments.logo only holds the URL of the logo
+ * endpoint. The URL carries the content hash, which lets clients cache it for
+ * long.
+ */
+@Service
+public class DepartmentLogoService {
+
+	public static final String THUMBNAIL_CONTENT_TYPE = "image/png";
+
+	private static final String LOGO_PATH = "/portal/department/%d/logo";
+	private static final String DATA_URI_PREFIX = "data:";
+	private static final String BASE64_MARKER = ";base64,";
+	private static final int INLINE_LOGO_MIN_LENGTH = 2048;
+	private static final int MAX_LOGO_DIMENSION = 4096;
+
+	private static final Map<String, String> CONTENT_TYPES = new HashMap<>();
+	static {
+		CONTENT_TYPES.put("png", "image/png");
+		CONTENT_TYPES.put("jpeg", "image/jpeg");
+		CONTENT_TYPES.put("gif", "image/gif");
+	}
+
+	private CbExtLogger logger = new CbExtLogger(getClass().getName());
+
+	@Autowired
+	DepartmentLogoRepository logoRepo;
+
+	@Autowired
+	DepartmentRepository deptRepo;
+
+	@Autowired
+	CbExtServerProperties serverConfig;
+
+	/**
+	 * Logos are inline when given as a data URI or as a long base64 string;
+	 * anything else is kept as a URL. Matches
+	 * DepartmentRepository.findIdsWithInlineLogo.
+	 */
+	public boolean isInline(String logo) {
+		return StringUtils.hasText(logo) && (logo.startsWith(DATA_URI_PREFIX)
+				|| (logo.length() > INLINE_LOGO_MIN_LENGTH && !logo.startsWith("http")));
+	}
+
+	public void validateLogo(String logo) {
+		if (isInline(logo)) {
+			createLogo(logo);
+		}
+	}
+
+	/**
+	 * Stores an inline logo for the department and returns its URL. A URL is
+	 * returned as is; any stored logo is dropped when the department no longer
+	 * points to it.
+	 */
+	public String updateLogo(Integer deptId, String logo) {
+		if (isInline(logo)) {
+			DepartmentLogo deptLogo = createLogo(logo);
+			deptLogo.setDeptId(deptId);
+			deptLogo.setUpdatedTime(System.currentTimeMillis());
+			logoRepo.save(deptLogo);
+			logger.info("Saved department logo -> " + deptLogo);
+			return getLogoUrl(deptId, deptLogo.getContentHash());
+		}
+		if ((logo == null || !logo.startsWith(String.format(LOGO_PATH, deptId))) && logoRepo.existsById(deptId)) {
+			logoRepo.deleteById(deptId);
+		}
+		return logo;
+	}
+
+	public String getContentHash(Integer deptId) {
+		return logoRepo.findContentHashByDeptId(deptId);
+	}
+
+	public DepartmentLogo getLogo(Integer deptId) {
+		Optional<DepartmentLogo> deptLogo = logoRepo.findById(deptId);
+		return deptLogo.isPresent() ? deptLogo.get() : null;
+	}
+
+	/**
+	 * Moves logos saved inline before logos were stored separately. Invalid
+	 * logos are left untouched.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void externalizeInlineLogos() {
+		for (Integer deptId : deptRepo.findIdsWithInlineLogo()) {
+			try {
+				Optional<Department> dept = deptRepo.findById(deptId);
+				if (dept.isPresent() && isInline(dept.get().getLogo())) {
+					dept.get().setLogo(updateLogo(deptId, dept.get().getLogo()));
+					deptRepo.save(dept.get());
+				}
+			} catch (Exception e) {
+				logger.warn("Failed to externalize logo of DeptId: " + deptId + ", " + e.getMessage());
+			}
+		}
+	}
+
+	private String getLogoUrl(Integer deptId, String contentHash) {
+		return String.format(LOGO_PATH, deptId) + "?v=" + contentHash;
+	}
+
+	private DepartmentLogo createLogo(String logo) {
+		byte[] content = decode(logo);
+		if (content.length > serverConfig.getPortalDeptLogoMaxSize()) {
+			throw new BadRequestException(
+					"Department logo exceeds the maximum size of " + serverConfig.getPortalDeptLogoMaxSize() + " bytes");
+		}
+		try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(content))) {
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+			ImageReader reader = readers.hasNext() ? readers.next() : null;
+			String contentType = reader == null ? null : CONTENT_TYPES.get(reader.getFormatName().toLowerCase());
+			if (contentType == null) {
+				throw new BadRequestException("Department logo must be a PNG, JPEG or GIF image");
+			}
+			try {
+				reader.setInput(input, true, true);
+				if (reader.getWidth(0) > MAX_LOGO_DIMENSION || reader.getHeight(0) > MAX_LOGO_DIMENSION) {
+					throw new BadRequestException("Department logo dimensions exceed " + MAX_LOGO_DIMENSION + " pixels");
+				}
+				BufferedImage image = reader.read(0);
+				DepartmentLogo deptLogo = new DepartmentLogo();
+				deptLogo.setContentHash(DigestUtils.md5DigestAsHex(content));
+				deptLogo.setContentType(contentType);
+				deptLogo.setLogo(content);
+				deptLogo.setThumbnail(createThumbnail(image));
+				return deptLogo;
+			} finally {
+				reader.dispose();
+			}
+		} catch (IOException e) {
+			throw new BadRequestException("Invalid department logo image");
+		}
+	}
+
+	private byte[] decode(String logo) {
+		String data = logo.trim();
+		if (data.startsWith(DATA_URI_PREFIX)) {
+			int marker = data.indexOf(BASE64_MARKER);
+			if (marker < 0) {
+				throw new BadRequestException("Department logo data URI must be base64 encoded");
+			}
+			data = data.substring(marker + BASE64_MARKER.length());
+		}
+		try {
+			return Base64.getMimeDecoder().decode(data);
+		} catch (IllegalArgumentException e) {
+			throw new BadRequestException("Department logo must be a base64 encoded image or a URL");
+		}
+	}
+
+	/**
+	 * Scales the image to fit a square of the thumbnail size, keeping its
+	 * aspect ratio, and centers it on a transparent background.
+	 */
+	private byte[] createThumbnail(BufferedImage image) {
+		int size = serverConfig.getPortalDeptLogoThumbnailSize();
+		double scale = Math.min(1d, Math.min((double) size / image.getWidth(), (double) size / image.getHeight()));
+		int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+		int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+		BufferedImage thumbnail = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = thumbnail.createGraphics();
+		try {
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+			graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			graphics.drawImage(image, (size - width) / 2, (size - height) / 2, width, height, null);
+		} finally {
+			graphics.dispose();
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			ImageIO.write(thumbnail, "png", out);
+		} catch (IOException e) {
+			throw new ApplicationLogicError("Failed to create department logo thumbnail", e);
+		}
+		return out.toByteArray();
+	}
+}
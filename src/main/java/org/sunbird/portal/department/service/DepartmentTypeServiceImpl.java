@@ -5,8 +5,8 @@ import java.util.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.sunbird.core.exception.BadRequestException;
+import org.sunbird.portal.department.DepartmentReferenceDataCache;
 import org.sunbird.portal.department.dto.DepartmentType;
-import org.sunbird.portal.department.repo.DepartmentTypeRepository;
 
 import org.sunbird.common.util.DataValidator;
 
@@ -14,12 +14,12 @@ import org.sunbird.common.util.DataValidator;
 public class DepartmentTypeServiceImpl implements DepartmentTypeService {
 
 	@Autowired
-	private DepartmentTypeRepository deptTypeRepo;
+	private DepartmentReferenceDataCache refDataCache;
 
 	@Override
 	public Map<String, List<DepartmentType>> getAllDepartmentTypes() {
 
-		Iterable<DepartmentType> deptTypes = deptTypeRepo.findAll();
+		Iterable<DepartmentType> deptTypes = refDataCache.getAllDepartmentTypes();
 		if (!DataValidator.isCollectionEmpty(deptTypes)) {
 			Map<String, List<DepartmentType>> retValue = new HashMap<>();
 			Iterator<DepartmentType> it = deptTypes.iterator();
@@ -42,14 +42,14 @@ public class DepartmentTypeServiceImpl implements DepartmentTypeService {
 
 	@Override
 	public List<DepartmentType> getDepartmentByType(String deptType) {
-		return deptTypeRepo.findByDeptTypeIgnoreCase(deptType);
+		return refDataCache.getDepartmentTypesByType(deptType);
 	}
 
 	@Override
 	public DepartmentType getDepartmentTypeById(Integer id) throws Exception {
-		Optional<DepartmentType> departmentType = deptTypeRepo.findById(id);
-		if (departmentType.isPresent()) {
-			return departmentType.get();
+		DepartmentType departmentType = refDataCache.getDepartmentType(id);
+		if (departmentType != null) {
+			return departmentType;
 		} else {
 			throw new BadRequestException("Failed to get the Department type . On Id : " + id);
 		}
@@ -57,7 +57,7 @@ public class DepartmentTypeServiceImpl implements DepartmentTypeService {
 
 	@Override
 	public Map<String, List<String>> getDepartmentTypeNames() {
-		Iterable<DepartmentType> deptTypes = deptTypeRepo.findAll();
+		Iterable<DepartmentType> deptTypes = refDataCache.getAllDepartmentTypes();
 		if (!DataValidator.isCollectionEmpty(deptTypes)) {
 			Map<String, List<String>> retValue = new HashMap<>();
 //			for (Object o : deptTypes) {
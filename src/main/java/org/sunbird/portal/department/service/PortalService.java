@@ -5,25 +5,43 @@ import java.util.List;
 import org.sunbird.portal.department.dto.Department;
 import org.sunbird.portal.department.dto.UserDepartmentRole;
 import org.sunbird.portal.department.model.DepartmentInfo;
+import org.sunbird.portal.department.model.DepartmentUserPage;
 import org.sunbird.portal.department.model.DeptPublicInfo;
 import org.sunbird.portal.department.model.SearchUserInfo;
+import org.sunbird.portal.department.model.UserAuthorizationProfile;
 import org.sunbird.portal.department.model.UserDepartmentInfo;
+import org.sunbird.portal.department.model.UserRoleAssignmentResult;
 
 public interface PortalService {
 	List<DepartmentInfo> getAllDepartments(String rootOrg);
 
+	List<DepartmentInfo> getAllDepartments(String rootOrg, Integer page, Integer size);
+
 	List<String> getDeptNameList();
 
 	List<DeptPublicInfo> getAllDept();
 
 	DeptPublicInfo searchDept(String deptName);
 
+	List<DeptPublicInfo> searchDeptByPrefix(String prefix, Integer limit);
+
 	DepartmentInfo getDepartmentById(Integer deptId, boolean isUserInfoRequired, String rootOrg);
 
+	DepartmentUserPage getDepartmentUsers(Integer deptId, String status, Integer roleId, Integer cursor,
+			Integer size, String rootOrg);
+
+	DepartmentUserPage getRoleMembers(String roleName, Integer deptId, String deptType, String status,
+			Integer cursor, Integer size, boolean isProfileRequired, String rootOrg);
+
 	List<Department> getDepartmentsByUserId(String userId);
 
 	UserDepartmentInfo addUserRoleInDepartment(UserDepartmentRole userDeptRole, String wid, String rootOrg, String org);
 
+	List<UserRoleAssignmentResult> bulkAddUserRoleInDepartment(List<UserDepartmentRole> userDeptRoles, String wid,
+			String rootOrg, String org);
+
+	List<UserDepartmentRole> parseUserDepartmentRoles(String csvData);
+
 	UserDepartmentInfo updateUserRoleInDepartment(UserDepartmentRole userDeptRole, String wid, String rootOrg,
 			String org);
 
@@ -37,12 +55,18 @@ public interface PortalService {
 
 	boolean isAdmin(String strDeptType, String roleName, String userId);
 
+	boolean isAdmin(String strDeptType, String roleName, UserAuthorizationProfile profile);
+
 	boolean validateCBPUserLogin(String userId);
 
 	boolean validateUserLogin(String userId, List<String> roles, String departmentType);
 
+	boolean validateUserLogin(UserAuthorizationProfile profile, List<String> roles, String departmentType);
+
 	boolean validateUserLoginForDepartment(String userId, String departmentType);
 
+	boolean validateUserLoginForDepartment(UserAuthorizationProfile profile, String departmentType);
+
 	DepartmentInfo addDepartment(String authUserToken, String userId, String userRoleName, DepartmentInfo deptInfo,
 			String rootOrg);
 
@@ -59,5 +83,8 @@ public interface PortalService {
 
 	List<SearchUserInfo> searchUserForRole(Integer deptId, String roleName, String userName);
 
+	List<SearchUserInfo> searchUserForRole(Integer deptId, String roleName, String userName, Integer from,
+			Integer size);
+
 	Boolean isUserActive(String userId);
 }
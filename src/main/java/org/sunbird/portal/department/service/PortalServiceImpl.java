@@ -1,24 +1,30 @@
 package org.sunbird.portal.department.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.util.StringUtils;
 import org.sunbird.common.model.OpenSaberApiUserProfile;
 import org.sunbird.common.service.UserUtilityService;
 import org.sunbird.common.util.CbExtServerProperties;
 import org.sunbird.common.util.Constants;
 import org.sunbird.common.util.DataValidator;
+import org.sunbird.core.exception.ApplicationLogicError;
 import org.sunbird.core.exception.BadRequestException;
 import org.sunbird.core.logger.CbExtLogger;
 import org.sunbird.core.producer.Producer;
+import org.sunbird.portal.department.DepartmentReferenceDataCache;
 import org.sunbird.portal.department.PortalConstants;
+import org.sunbird.portal.department.PublicDepartmentDirectory;
 import org.sunbird.portal.department.dto.*;
 import org.sunbird.portal.department.model.*;
 import org.sunbird.portal.department.repo.*;
+import org.sunbird.workallocation.service.AllocationService;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -41,103 +47,258 @@ public class PortalServiceImpl implements PortalService {
 	DepartmentTypeRepository deptTypeRepo;
 
 	@Autowired
-	DepartmentRoleRepository deptRoleRepo;
+	UserUtilityService userUtilService;
 
 	@Autowired
-	RoleRepository roleRepo;
+	CbExtServerProperties serverConfig;
 
 	@Autowired
-	UserUtilityService userUtilService;
+	Producer producer;
 
 	@Autowired
-	RestTemplate restTemplate;
+	DepartmentReferenceDataCache refDataCache;
 
 	@Autowired
-	CbExtServerProperties serverConfig;
+	UserAuthorizationService userAuthService;
 
 	@Autowired
-	Producer producer;
+	PublicDepartmentDirectory publicDirectory;
 
-	private static final String ROOT_ORG_CONST = "rootOrg";
-	private static final String ORG_CONST = "org";
+	@Autowired
+	DepartmentLogoService logoService;
+
+	@Autowired
+	AllocationService allocationService;
+
+	@Autowired
+	WorkflowNotificationOutboxRepo workflowNotificationOutboxRepo;
 
 	@Override
 	public List<String> getDeptNameList() {
-		Iterable<Department> deptList = deptRepo.findAllByIsDeletedOrderByDeptNameAsc(false);
-		if (!DataValidator.isCollectionEmpty(deptList)) {
-			List<String> deptNameList = new ArrayList<>();
-			for (Department dept : deptList) {
-				List<Integer> deptTypeIdList = Arrays.asList(dept.getDeptTypeIds());
-				Iterable<DepartmentType> deptTypeList = deptTypeRepo.findAllById(deptTypeIdList);
-				boolean isSpvTypeExist = false;
-				for (DepartmentType deptType : deptTypeList) {
-					if (PortalConstants.SPV_DEPT_TYPE.equalsIgnoreCase(deptType.getDeptType())) {
-						isSpvTypeExist = true;
-						break;
-					}
-				}
-				if (!isSpvTypeExist) {
-					deptNameList.add(dept.getDeptName());
-				}
+		return publicDirectory.getDeptNames();
+	}
+
+	@Override
+	public List<DeptPublicInfo> getAllDept() {
+		return publicDirectory.getAllDept();
+	}
+
+	@Override
+	public DeptPublicInfo searchDept(String deptName) {
+		return publicDirectory.getDept(deptName);
+	}
+
+	@Override
+	public List<DeptPublicInfo> searchDeptByPrefix(String prefix, Integer limit) {
+		int maxLimit = serverConfig.getPortalDeptTypeaheadMaxLimit();
+		return publicDirectory.searchByPrefix(prefix, limit == null ? maxLimit : Math.min(limit, maxLimit));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public DepartmentUserPage getDepartmentUsers(Integer deptId, String status, Integer roleId, Integer cursor,
+			Integer size, String rootOrg) {
+		Optional<Department> dept = deptRepo.findByIdAndIsDeleted(deptId, false);
+		if (!dept.isPresent()) {
+			throw new BadRequestException("No department exists on given id!");
+		}
+		String userStatus = validateUserStatus(status);
+		int pageSize = validateUserPageSize(cursor, size);
+
+		// Read one extra record to find out whether there is a next page
+		List<UserDepartmentRole> userDeptList = userDepartmentRoleRepo.findDepartmentUsersAfterId(deptId,
+				cursor == null ? 0 : cursor, userStatus, roleId == null ? -1 : roleId, pageSize + 1);
+		DepartmentUserPage userPage = new DepartmentUserPage();
+		userPage.setDeptId(deptId);
+		userDeptList = trimUserPage(userPage, userDeptList, pageSize);
+		if (userDeptList.isEmpty()) {
+			return userPage;
+		}
+
+		Map<Integer, Role> deptRoleMap = getDepartmentRoles(Arrays.asList(dept.get().getDeptTypeIds())).stream()
+				.collect(Collectors.toMap(Role::getId, roleInfo -> roleInfo));
+		List<String> userIds = userDeptList.stream().map(UserDepartmentRole::getUserId).distinct()
+				.collect(Collectors.toList());
+		Map<String, Object> result = getUserProfiles(rootOrg, userIds);
+		for (UserDepartmentRole userDeptRole : userDeptList) {
+			if (!result.containsKey(userDeptRole.getUserId())) {
+				logger.error(new Exception("UserRegistry not found for UserId --> " + userDeptRole.getUserId()));
+				continue;
 			}
-			if (!DataValidator.isCollectionEmpty(deptNameList)) {
-				Collections.sort(deptNameList);
+			OpenSaberApiUserProfile userProfile = (OpenSaberApiUserProfile) result.get(userDeptRole.getUserId());
+			PortalUserInfo pUserInfo = new PortalUserInfo();
+			pUserInfo.setUserId(userDeptRole.getUserId());
+			pUserInfo.setActive(userDeptRole.getIsActive());
+			pUserInfo.setBlocked(userDeptRole.getIsBlocked());
+			pUserInfo.setEmailId(userProfile.getPersonalDetails().getPrimaryEmail());
+			pUserInfo.setFirstName(userProfile.getPersonalDetails().getFirstname());
+			pUserInfo.setLastName(userProfile.getPersonalDetails().getSurname());
+			List<Role> userRoleInfo = new ArrayList<>();
+			for (Integer userRoleId : userDeptRole.getRoleIds()) {
+				if (deptRoleMap.containsKey(userRoleId)) {
+					userRoleInfo.add(deptRoleMap.get(userRoleId));
+				}
 			}
-			return deptNameList;
+			pUserInfo.setRoleInfo(userRoleInfo);
+			userPage.getUsers().add(pUserInfo);
 		}
-
-			return Collections.emptyList();
+		logger.info("getDepartmentUsers: " + userPage);
+		return userPage;
 	}
 
+	/**
+	 * Lists the users holding the given role, either in one department or in
+	 * every department of the given type. Profiles are fetched only for the
+	 * returned page and only when requested.
+	 */
 	@Override
-	public List<DeptPublicInfo> getAllDept() {
-		List<Department> deptList = deptRepo.findAllByIsDeletedOrderByDeptNameAsc(false);
-		if (!DataValidator.isCollectionEmpty(deptList)) {
-			List<DeptPublicInfo> publicDeptList = new ArrayList<>(deptList.size());
-			for (Department dept : deptList) {
-				publicDeptList.add(dept.getPublicInfo());
+	@Transactional(readOnly = true)
+	public DepartmentUserPage getRoleMembers(String roleName, Integer deptId, String deptType, String status,
+			Integer cursor, Integer size, boolean isProfileRequired, String rootOrg) {
+		Role role = refDataCache.getRoleByName(roleName);
+		if (role == null) {
+			throw new BadRequestException("Invalid Role Name provided.");
+		}
+		if ((deptId == null) == StringUtils.isEmpty(deptType)) {
+			throw new BadRequestException("Either deptId or deptType should be provided.");
+		}
+		String userStatus = validateUserStatus(status);
+		int pageSize = validateUserPageSize(cursor, size);
+		int afterId = cursor == null ? 0 : cursor;
+
+		List<UserDepartmentRole> userDeptList;
+		if (deptId != null) {
+			if (!deptRepo.findByIdAndIsDeleted(deptId, false).isPresent()) {
+				throw new BadRequestException("No department exists on given id!");
 			}
-			return publicDeptList;
+			userDeptList = userDepartmentRoleRepo.findDepartmentUsersAfterId(deptId, afterId, userStatus,
+					role.getId(), pageSize + 1);
+		} else {
+			List<Integer> deptTypeIds = refDataCache.getDepartmentTypesByType(deptType).stream()
+					.map(DepartmentType::getId).collect(Collectors.toList());
+			if (deptTypeIds.isEmpty()) {
+				throw new BadRequestException("Invalid Department Type: " + deptType);
+			}
+			userDeptList = userDepartmentRoleRepo.findRoleMembersByDeptTypeAfterId(deptTypeIds, afterId,
+					userStatus, role.getId(), pageSize + 1);
 		}
-		return Collections.emptyList();
+		DepartmentUserPage userPage = new DepartmentUserPage();
+		userPage.setDeptId(deptId);
+		userDeptList = trimUserPage(userPage, userDeptList, pageSize);
+		if (userDeptList.isEmpty()) {
+			return userPage;
+		}
+
+		Map<Integer, Role> roleMap = refDataCache.getAllRoles().stream()
+				.collect(Collectors.toMap(Role::getId, roleInfo -> roleInfo));
+		Map<String, Object> result = Collections.emptyMap();
+		if (isProfileRequired) {
+			result = getUserProfiles(rootOrg, userDeptList.stream().map(UserDepartmentRole::getUserId).distinct()
+					.collect(Collectors.toList()));
+		}
+		for (UserDepartmentRole userDeptRole : userDeptList) {
+			RoleMemberInfo memberInfo = new RoleMemberInfo();
+			memberInfo.setUserId(userDeptRole.getUserId());
+			memberInfo.setDeptId(userDeptRole.getDeptId());
+			memberInfo.setActive(userDeptRole.getIsActive());
+			memberInfo.setBlocked(userDeptRole.getIsBlocked());
+			OpenSaberApiUserProfile userProfile = (OpenSaberApiUserProfile) result.get(userDeptRole.getUserId());
+			if (userProfile != null) {
+				memberInfo.setEmailId(userProfile.getPersonalDetails().getPrimaryEmail());
+				memberInfo.setFirstName(userProfile.getPersonalDetails().getFirstname());
+				memberInfo.setLastName(userProfile.getPersonalDetails().getSurname());
+			}
+			List<Role> userRoleInfo = new ArrayList<>();
+			for (Integer userRoleId : userDeptRole.getRoleIds()) {
+				if (roleMap.containsKey(userRoleId)) {
+					userRoleInfo.add(roleMap.get(userRoleId));
+				}
+			}
+			memberInfo.setRoleInfo(userRoleInfo);
+			userPage.getUsers().add(memberInfo);
+		}
+		logger.info("getRoleMembers: role -> " + roleName + ", " + userPage);
+		return userPage;
 	}
 
-	@Override
-	public DeptPublicInfo searchDept(String deptName) {
-		Department dept = deptRepo.findByDeptNameIgnoreCaseAndIsDeleted(deptName, false);
-		if (dept != null) {
-			return dept.getPublicInfo();
+	private String validateUserStatus(String status) {
+		String userStatus = status == null ? PortalConstants.USER_STATUS_ALL : status.toUpperCase();
+		if (!PortalConstants.USER_STATUS_LIST.contains(userStatus)) {
+			throw new BadRequestException(
+					"Invalid status: " + status + ", supported values are " + PortalConstants.USER_STATUS_LIST);
 		}
-		return null;
+		return userStatus;
+	}
+
+	private int validateUserPageSize(Integer cursor, Integer size) {
+		int maxSize = serverConfig.getPortalDeptUsersPageMaxSize();
+		int pageSize = size == null ? maxSize : size;
+		if (pageSize <= 0 || pageSize > maxSize || (cursor != null && cursor < 0)) {
+			throw new BadRequestException("Invalid cursor: " + cursor + " or size: " + size
+					+ ", size should be between 1 and " + maxSize);
+		}
+		return pageSize;
+	}
+
+	/**
+	 * Drops the extra record read beyond the page and sets the next cursor
+	 * when there is one.
+	 */
+	private List<UserDepartmentRole> trimUserPage(DepartmentUserPage userPage, List<UserDepartmentRole> userDeptList,
+			int pageSize) {
+		if (userDeptList.size() > pageSize) {
+			userDeptList = userDeptList.subList(0, pageSize);
+			userPage.setNextCursor(userDeptList.get(pageSize - 1).getId());
+		}
+		return userDeptList;
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public List<DepartmentInfo> getAllDepartments(String rootOrg) {
-		return enrichDepartmentInfo(deptRepo.findAllByIsDeletedOrderByDeptNameAsc(false), true, rootOrg);
+		return enrichDepartmentInfo(deptRepo.findAllByIsDeletedOrderByDeptNameAsc(false), true);
 	}
 
 	@Override
+	@Transactional(readOnly = true)
+	public List<DepartmentInfo> getAllDepartments(String rootOrg, Integer page, Integer size) {
+		if (page == null && size == null) {
+			return getAllDepartments(rootOrg);
+		}
+		if (page == null || page < 0 || size == null || size <= 0) {
+			throw new BadRequestException("Invalid page: " + page + " or size: " + size);
+		}
+		return enrichDepartmentInfo(deptRepo.findAllByIsDeletedOrderByDeptNameAsc(false, PageRequest.of(page, size)),
+				true);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
 	public DepartmentInfo getDepartmentById(Integer deptId, boolean isUserInfoRequired, String rootOrg) {
 		return enrichDepartmentInfo(deptId, isUserInfoRequired, true, rootOrg);
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public DepartmentInfo getMyDepartment(String deptType, String userId, boolean isUserInfoRequired, String rootOrg) {
 		return enrichDepartmentInfo(getMyActiveDepartment(deptType, userId), isUserInfoRequired, true, rootOrg);
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public DepartmentInfo getMyDepartmentForRole(String roleName, String userId, boolean isUserInfoRequired,
 			String rootOrg){
 		return enrichDepartmentInfo(getMyCurrentDepartment(roleName, userId), isUserInfoRequired, true, rootOrg);
 	}
 
+	@Transactional(readOnly = true)
 	public DepartmentInfo getMyDepartmentForRoles(List<String> roleNames, String userId, boolean isUserInfoRequired,
 			String rootOrg){
 		return enrichDepartmentInfo(getMyCurrentDepartment(roleNames, userId), isUserInfoRequired, true, rootOrg);
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public DepartmentInfo getMyCbpDepartment(String userId, String rootOrg){
 		Department myDept = null;
 		List<UserDepartmentRole> userList = userDepartmentRoleRepo.findAllByUserIdAndIsActiveAndIsBlocked(userId, true,
@@ -151,7 +312,7 @@ public class PortalServiceImpl implements PortalService {
 		Iterable<Department> deptList = deptRepo.findAllById(deptIds);
 
 		for (Department dept : deptList) {
-			Iterable<DepartmentType> deptTypeList = deptTypeRepo.findAllById(Arrays.asList(dept.getDeptTypeIds()));
+			Iterable<DepartmentType> deptTypeList = refDataCache.getDepartmentTypes(Arrays.asList(dept.getDeptTypeIds()));
 			for (DepartmentType deptType : deptTypeList) {
 				if (deptType.getDeptType().equalsIgnoreCase(PortalConstants.CBP_DEPT_TYPE) && hasCBPRole(dept, userList)) {
 					// We found a CBP Type department which user is mapped... Now need to check user
@@ -190,7 +351,7 @@ public class PortalServiceImpl implements PortalService {
 
 	private Department filterCurrentDeptInfo(List<String> roleNames, List<UserDepartmentRole> userList, Department myDept, Map<Integer, Department> deptMap) {
 		for (UserDepartmentRole user : userList) {
-			Iterable<Role> roles = roleRepo.findAllById(Arrays.asList(user.getRoleIds()));
+			Iterable<Role> roles = refDataCache.getRoles(Arrays.asList(user.getRoleIds()));
 			for (Role r : roles) {
 				if (roleNames.contains(r.getRoleName())) {
 					if (myDept != null) {
@@ -225,7 +386,7 @@ public class PortalServiceImpl implements PortalService {
 		}
 
 		for (UserDepartmentRole user : userList) {
-			Iterable<Role> roles = roleRepo.findAllById(Arrays.asList(user.getRoleIds()));
+			Iterable<Role> roles = refDataCache.getRoles(Arrays.asList(user.getRoleIds()));
 			for (Role r : roles) {
 				if (r.getRoleName().equals(roleName)) {
 					if (myDept != null) {
@@ -242,7 +403,7 @@ public class PortalServiceImpl implements PortalService {
 	private boolean hasCBPRole(Department dept, List<UserDepartmentRole> userDeptRoleList) {
 		for (UserDepartmentRole userDeptRole : userDeptRoleList) {
 			if (userDeptRole.getDeptId() != null && userDeptRole.getDeptId().equals(dept.getDeptId())) {
-				Iterable<Role> userRoles = roleRepo.findAllById(Arrays.asList(userDeptRole.getRoleIds()));
+				Iterable<Role> userRoles = refDataCache.getRoles(Arrays.asList(userDeptRole.getRoleIds()));
 				for (Role r : userRoles) {
 					if (PortalConstants.CBP_ROLES.contains(r.getRoleName())) {
 						return true;
@@ -267,7 +428,7 @@ public class PortalServiceImpl implements PortalService {
 		Department myDept = null;
 
 		for (Department dept : deptList) {
-			Iterable<DepartmentType> deptTypeList = deptTypeRepo.findAllById(Arrays.asList(dept.getDeptTypeIds()));
+			Iterable<DepartmentType> deptTypeList = refDataCache.getDepartmentTypes(Arrays.asList(dept.getDeptTypeIds()));
 			for (DepartmentType deptType : deptTypeList) {
 				if (deptType.getDeptType().equalsIgnoreCase(strDeptType)) {
 					if (myDept != null) {
@@ -282,11 +443,13 @@ public class PortalServiceImpl implements PortalService {
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public DepartmentInfo getMyDepartment(String userId, String rootOrg){
 		return getMyDepartment("MDO", userId, true, rootOrg);
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public List<Department> getDepartmentsByUserId(String userId) {
 		return Collections.emptyList();
 	}
@@ -299,6 +462,7 @@ public class PortalServiceImpl implements PortalService {
 			validateDepartmentTypeInfo(deptInfo.getDeptTypeInfos());
 
 			List<Integer> deptTypeIds = new ArrayList<>();
+			boolean isNewDeptTypeAdded = false;
 			// We need to make sure this DeptType & subDeptType exist.
 			for (DeptTypeInfo deptTypeInfo : deptInfo.getDeptTypeInfos()) {
 				DepartmentType dType = deptTypeRepo.findByDeptTypeAndDeptSubType(deptTypeInfo.getDeptType(),
@@ -309,9 +473,13 @@ public class PortalServiceImpl implements PortalService {
 					deptType.setDeptSubType(deptTypeInfo.getDeptSubType());
 					deptType.setDescription(deptTypeInfo.getDescription());
 					dType = deptTypeRepo.save(deptType);
+					isNewDeptTypeAdded = true;
 				}
 				deptTypeIds.add(dType.getId());
 			}
+			if (isNewDeptTypeAdded) {
+				refDataCache.refresh();
+			}
 			deptInfo.setDeptTypeIds(deptTypeIds.toArray(new Integer[deptTypeIds.size()]));
 		} else {
 			validateDepartmentTypeInfo(deptInfo.getDeptTypeIds());
@@ -321,9 +489,15 @@ public class PortalServiceImpl implements PortalService {
 		Department dept = Department.clone(deptInfo);
 		dept.setCreationDate(java.time.Instant.now().toEpochMilli());
 		dept.setCreatedBy(userId);
+		if (logoService.isInline(dept.getLogo())) {
+			dept.setLogo(null);
+			dept = deptRepo.save(dept);
+			dept.setLogo(logoService.updateLogo(dept.getDeptId(), deptInfo.getLogo()));
+		}
 		dept = deptRepo.save(dept);
+		publicDirectory.invalidate();
 
-		Iterator<Role> roles = roleRepo.findAll().iterator();
+		Iterator<Role> roles = refDataCache.getAllRoles().iterator();
 		List<Integer> roleIds = new ArrayList<>();
 		List<Role> roleList = new ArrayList<>();
 		roles.forEachRemaining(roleList::add);
@@ -339,6 +513,7 @@ public class PortalServiceImpl implements PortalService {
 					userDeptRole.setIsActive(true);
 					userDeptRole.setIsBlocked(false);
 					userDeptRole = userDepartmentRoleRepo.save(userDeptRole);
+					userAuthService.evict(userDeptRole.getUserId());
 					createUserDepartmentRoleAudit(userDeptRole, userId);
 				} catch (Exception e) {
 					logger.error(e);
@@ -360,7 +535,7 @@ public class PortalServiceImpl implements PortalService {
 			logger.info("Updating Department record -> " + existingDept);
 			existingDept.setDescription(deptInfo.getDescription());
 			existingDept.setHeadquarters(deptInfo.getHeadquarters());
-			existingDept.setLogo(deptInfo.getLogo());
+			existingDept.setLogo(logoService.updateLogo(existingDept.getDeptId(), deptInfo.getLogo()));
 			existingDept.setDeptName(deptInfo.getDeptName());
 			existingDept.setDeptTypeIds(deptInfo.getDeptTypeIds());
 			if (deptInfo.getSourceId() != null) {
@@ -369,6 +544,8 @@ public class PortalServiceImpl implements PortalService {
 			logger.info("Updating Department with existing record -> " + existingDept);
 
 			existingDept = deptRepo.save(existingDept);
+			userAuthService.evictAll();
+			publicDirectory.invalidate();
 			return enrichDepartmentInfo(existingDept, false, true, rootOrg);
 		} else {
 			throw new BadRequestException("Failed to find Department for Id: " + deptInfo.getId());
@@ -387,7 +564,7 @@ public class PortalServiceImpl implements PortalService {
 		}
 
 		existingRecord = userDeptRole;
-		Iterator<Role> roles = roleRepo.findAll().iterator();
+		Iterator<Role> roles = refDataCache.getAllRoles().iterator();
 		Set<Integer> roleIds = new HashSet<>();
 
 		while (roles.hasNext()) {
@@ -406,44 +583,175 @@ public class PortalServiceImpl implements PortalService {
 		existingRecord.setDeptId(userDeptRole.getDeptId());
 		existingRecord.setRoleIds(roleIds.stream().collect(Collectors.toList()).toArray(new Integer[roleIds.size()]));
 
-		UserDepartmentInfo userDeptInfo = enrichUserDepartment(userDepartmentRoleRepo.save(existingRecord), rootOrg);
-		createUserDepartmentRoleAudit(existingRecord, wid);
 		// Update the WF history and OpenSaber profile for department details
-		HashMap<String, Object> request = new HashMap<>();
-		request.put("userId", userDeptInfo.getUserId());
-		request.put("applicationId", userDeptInfo.getUserId());
-		request.put("actorUserId", wid);
-		request.put("serviceName", "profile");
-		request.put("comment", "Updating Department Details.");
-		ArrayList<HashMap<String, Object>> fieldValues = new ArrayList<>();
-		HashMap<String, Object> fieldValue = new HashMap<>();
-		fieldValue.put("fieldKey", "employmentDetails");
+		WorkflowNotification notification = createWorkflowNotification(existingRecord.getUserId(),
+				getDepartmentName(existingRecord.getDeptId()), wid, prevDeptId, rootOrg, org);
+		UserDepartmentInfo userDeptInfo = enrichUserDepartment(
+				workflowNotificationOutboxRepo.saveWithNotification(existingRecord, notification), rootOrg);
+		userAuthService.evict(existingRecord.getUserId());
+		createUserDepartmentRoleAudit(existingRecord, wid);
+		return userDeptInfo;
+	}
 
-		// Try to get existing dept if available
-		String prevDeptName = "";
-		if (prevDeptId != 0) {
-			Optional<Department> optionalPrevDept = deptRepo.findByIdAndIsDeleted(prevDeptId, false);
-			if (optionalPrevDept.isPresent()) {
-				prevDeptName = optionalPrevDept.get().getDeptName();
+	/**
+	 * Adds many user department roles in one go. Users are validated in
+	 * chunks, departments, roles and existing records are read once for the
+	 * whole request and the accepted rows are inserted with JDBC batches. Each
+	 * row gets its own result, a failed row does not stop the others.
+	 */
+	@Override
+	public List<UserRoleAssignmentResult> bulkAddUserRoleInDepartment(List<UserDepartmentRole> userDeptRoles,
+			String wid, String rootOrg, String org) {
+		if (CollectionUtils.isEmpty(userDeptRoles)) {
+			throw new BadRequestException("User roles cannot be empty.");
+		}
+		int maxSize = serverConfig.getPortalUserRoleBulkMaxSize();
+		if (userDeptRoles.size() > maxSize) {
+			throw new BadRequestException("At most " + maxSize + " user roles can be added in one request.");
+		}
+
+		List<UserRoleAssignmentResult> results = new ArrayList<>(userDeptRoles.size());
+		Set<String> userIds = new LinkedHashSet<>();
+		Set<Integer> deptIds = new HashSet<>();
+		for (int i = 0; i < userDeptRoles.size(); i++) {
+			UserDepartmentRole userDeptRole = userDeptRoles.get(i);
+			UserRoleAssignmentResult result = new UserRoleAssignmentResult(i + 1, userDeptRole.getUserId(),
+					userDeptRole.getDeptId(), userDeptRole.getRoles());
+			results.add(result);
+			if (StringUtils.isEmpty(userDeptRole.getUserId()) || userDeptRole.getDeptId() == null) {
+				setAssignmentFailed(result, "UserId and DeptId are mandatory.");
+			} else if (DataValidator.isCollectionEmpty(userDeptRole.getRoles())) {
+				setAssignmentFailed(result, "Roles cannot be empty.");
+			} else {
+				userIds.add(userDeptRole.getUserId());
+				deptIds.add(userDeptRole.getDeptId());
 			}
 		}
 
-		HashMap<String, Object> fromValue = new HashMap<>();
-		fromValue.put(DEPARTMENT_NAME, prevDeptName);
-		fieldValue.put("fromValue", fromValue);
-		HashMap<String, Object> toValue = new HashMap<>();
-		toValue.put(DEPARTMENT_NAME, userDeptInfo.getDeptInfo().getDeptName());
-		fieldValue.put("toValue", toValue);
-		fieldValues.add(fieldValue);
-		request.put("updateFieldValues", fieldValues);
+		Map<String, Boolean> validUsers = validateUsers(rootOrg, new ArrayList<>(userIds));
+		Map<Integer, Department> deptMap = new HashMap<>();
+		for (Department dept : deptRepo.findAllById(deptIds)) {
+			if (!dept.getIsDeleted()) {
+				deptMap.put(dept.getDeptId(), dept);
+			}
+		}
+		Map<String, Role> roleMap = new HashMap<>();
+		Map<Integer, Role> roleIdMap = new HashMap<>();
+		for (Role role : refDataCache.getAllRoles()) {
+			roleMap.putIfAbsent(role.getRoleName(), role);
+			roleIdMap.put(role.getId(), role);
+		}
+		Map<Integer, Set<String>> deptRoleNames = new HashMap<>();
+		Map<String, List<UserDepartmentRole>> existingRecords = new HashMap<>();
+		if (!userIds.isEmpty()) {
+			for (UserDepartmentRole existingRecord : userDepartmentRoleRepo.findAllByUserIdIn(userIds)) {
+				existingRecords.computeIfAbsent(existingRecord.getUserId(), k -> new ArrayList<>())
+						.add(existingRecord);
+			}
+		}
 
-		HttpHeaders headers = new HttpHeaders();
-		headers.set(ROOT_ORG_CONST, rootOrg);
-		headers.set(ORG_CONST, org);
-		HttpEntity<Object> entity = new HttpEntity<>(request, headers);
-		restTemplate.postForObject(serverConfig.getWfServiceHost() + serverConfig.getWfServicePath(), entity,
-				Map.class);
-		return userDeptInfo;
+		List<UserDepartmentRole> newRecords = new ArrayList<>();
+		List<UserRoleAssignmentResult> newRecordResults = new ArrayList<>();
+		for (int i = 0; i < userDeptRoles.size(); i++) {
+			UserDepartmentRole userDeptRole = userDeptRoles.get(i);
+			UserRoleAssignmentResult result = results.get(i);
+			if (result.getStatus() != null) {
+				continue;
+			}
+			List<UserDepartmentRole> userRecords = existingRecords.computeIfAbsent(userDeptRole.getUserId(),
+					k -> new ArrayList<>());
+			Department dept = deptMap.get(userDeptRole.getDeptId());
+			Set<String> availableRoleNames = dept == null ? Collections.emptySet()
+					: deptRoleNames.computeIfAbsent(dept.getDeptId(),
+							k -> getDepartmentRoles(Arrays.asList(dept.getDeptTypeIds())).stream()
+									.map(Role::getRoleName).collect(Collectors.toSet()));
+			String error = validateBulkUserDepartmentRole(userDeptRole, validUsers, dept, roleMap, roleIdMap,
+					availableRoleNames, userRecords);
+			if (error != null) {
+				setAssignmentFailed(result, error);
+				continue;
+			}
+			UserDepartmentRole newRecord = new UserDepartmentRole();
+			newRecord.setUserId(userDeptRole.getUserId());
+			newRecord.setSourceUserId(userDeptRole.getSourceUserId());
+			newRecord.setDeptId(userDeptRole.getDeptId());
+			newRecord.setRoleIds(userDeptRole.getRoles().stream().map(r -> roleMap.get(r).getId()).distinct()
+					.toArray(Integer[]::new));
+			newRecord.setIsActive(userDeptRole.getIsActive() == null || userDeptRole.getIsActive());
+			newRecord.setIsBlocked(Boolean.TRUE.equals(userDeptRole.getIsBlocked()));
+			// Later rows of the same user are validated against this one as well
+			userRecords.add(newRecord);
+			newRecords.add(newRecord);
+			newRecordResults.add(result);
+		}
+
+		int batchSize = Math.max(1, serverConfig.getPortalUserRoleBulkBatchSize());
+		int addedCount = 0;
+		for (int i = 0; i < newRecords.size(); i += batchSize) {
+			int end = Math.min(i + batchSize, newRecords.size());
+			List<UserDepartmentRole> batch = newRecords.subList(i, end);
+			List<WorkflowNotification> notifications = new ArrayList<>(batch.size());
+			for (UserDepartmentRole newRecord : batch) {
+				notifications.add(createWorkflowNotification(newRecord.getUserId(),
+						deptMap.get(newRecord.getDeptId()).getDeptName(), wid, 0, rootOrg, org));
+			}
+			try {
+				workflowNotificationOutboxRepo.insertAllWithNotifications(batch, notifications);
+			} catch (DataAccessException e) {
+				logger.error(e);
+				newRecordResults.subList(i, end)
+						.forEach(result -> setAssignmentFailed(result, "Failed to save the user role."));
+				continue;
+			}
+			for (int j = i; j < end; j++) {
+				UserDepartmentRole newRecord = newRecords.get(j);
+				newRecordResults.get(j).setStatus(Constants.SUCCESSFUL);
+				userAuthService.evict(newRecord.getUserId());
+				createUserDepartmentRoleAudit(newRecord, wid);
+			}
+			addedCount += batch.size();
+		}
+		logger.info("bulkAddUserRoleInDepartment: requested -> " + userDeptRoles.size() + ", added -> " + addedCount);
+		return results;
+	}
+
+	/**
+	 * Parses user roles from CSV lines of userId,deptId,roles[,isActive,isBlocked]
+	 * where roles are separated by ';'. The first line is the header.
+	 */
+	@Override
+	public List<UserDepartmentRole> parseUserDepartmentRoles(String csvData) {
+		List<UserDepartmentRole> userDeptRoles = new ArrayList<>();
+		if (StringUtils.isEmpty(csvData)) {
+			return userDeptRoles;
+		}
+		String[] lines = csvData.split("\\r?\\n");
+		for (int i = 1; i < lines.length; i++) {
+			if (lines[i].trim().isEmpty()) {
+				continue;
+			}
+			String[] fields = lines[i].split(",", -1);
+			if (fields.length < 3) {
+				throw new BadRequestException("Invalid CSV line " + (i + 1) + ", expected userId,deptId,roles");
+			}
+			UserDepartmentRole userDeptRole = new UserDepartmentRole();
+			userDeptRole.setUserId(fields[0].trim());
+			try {
+				userDeptRole.setDeptId(Integer.valueOf(fields[1].trim()));
+			} catch (NumberFormatException e) {
+				throw new BadRequestException("Invalid deptId in CSV line " + (i + 1));
+			}
+			userDeptRole.setRoles(Arrays.stream(fields[2].split(";")).map(String::trim).filter(r -> !r.isEmpty())
+					.collect(Collectors.toList()));
+			if (fields.length > 3 && !fields[3].trim().isEmpty()) {
+				userDeptRole.setIsActive(Boolean.valueOf(fields[3].trim()));
+			}
+			if (fields.length > 4 && !fields[4].trim().isEmpty()) {
+				userDeptRole.setIsBlocked(Boolean.valueOf(fields[4].trim()));
+			}
+			userDeptRoles.add(userDeptRole);
+		}
+		return userDeptRoles;
 	}
 
 	public UserDepartmentInfo updateUserRoleInDepartment(UserDepartmentRole userDeptRole, String wid, String rootOrg,
@@ -454,7 +762,7 @@ public class PortalServiceImpl implements PortalService {
 		if (existingRecord == null) {
 			throw new BadRequestException("Failed to identify User details for UserId: " + userDeptRole.getUserId());
 		}
-		Iterator<Role> roles = roleRepo.findAll().iterator();
+		Iterator<Role> roles = refDataCache.getAllRoles().iterator();
 		List<Role> roleList = new ArrayList<>();
 		roles.forEachRemaining(roleList::add);
 		Set<Integer> roleIds = new HashSet<>();
@@ -472,44 +780,13 @@ public class PortalServiceImpl implements PortalService {
 		existingRecord.setDeptId(userDeptRole.getDeptId());
 		existingRecord.setRoleIds(roleIds.stream().collect(Collectors.toList()).toArray(new Integer[roleIds.size()]));
 
-		UserDepartmentInfo userDeptInfo = enrichUserDepartment(userDepartmentRoleRepo.save(existingRecord), rootOrg);
-		createUserDepartmentRoleAudit(existingRecord, wid);
 		// Update the WF history and OpenSaber profile for department details
-		HashMap<String, Object> request = new HashMap<>();
-		request.put("userId", userDeptInfo.getUserId());
-		request.put("applicationId", userDeptInfo.getUserId());
-		request.put("actorUserId", wid);
-		request.put("serviceName", "profile");
-		request.put("comment", "Updating Department Details.");
-		ArrayList<HashMap<String, Object>> fieldValues = new ArrayList<>();
-		HashMap<String, Object> fieldValue = new HashMap<>();
-		fieldValue.put("fieldKey", "employmentDetails");
-
-		// Try to get existing dept if available
-		String prevDeptName = "";
-		if (prevDeptId != 0) {
-			Optional<Department> optionalPrevDept = deptRepo.findByIdAndIsDeleted(prevDeptId, false);
-			if (optionalPrevDept.isPresent()) {
-				prevDeptName = optionalPrevDept.get().getDeptName();
-			}
-		}
-		HashMap<String, Object> fromValue = new HashMap<>();
-		fromValue.put(DEPARTMENT_NAME, prevDeptName);
-		fieldValue.put("fromValue", fromValue);
-		HashMap<String, Object> toValue = new HashMap<>();
-		toValue.put(DEPARTMENT_NAME, userDeptInfo.getDeptInfo().getDeptName());
-		fieldValue.put("toValue", toValue);
-		fieldValues.add(fieldValue);
-		request.put("updateFieldValues", fieldValues);
-
-		HttpHeaders headers = new HttpHeaders();
-		headers.set(ROOT_ORG_CONST, rootOrg);
-		headers.set(ORG_CONST, org);
-		HttpEntity<Object> entity = new HttpEntity<>(request, headers);
-
-		restTemplate.postForObject(serverConfig.getWfServiceHost() + serverConfig.getWfServicePath(), entity,
-				Map.class);
-
+		WorkflowNotification notification = createWorkflowNotification(existingRecord.getUserId(),
+				getDepartmentName(existingRecord.getDeptId()), wid, prevDeptId, rootOrg, org);
+		UserDepartmentInfo userDeptInfo = enrichUserDepartment(
+				workflowNotificationOutboxRepo.saveWithNotification(existingRecord, notification), rootOrg);
+		userAuthService.evict(existingRecord.getUserId());
+		createUserDepartmentRoleAudit(existingRecord, wid);
 		return userDeptInfo;
 	}
 
@@ -530,98 +807,114 @@ public class PortalServiceImpl implements PortalService {
 
 	@Override
 	public Boolean checkMdoAdminPrivilage(String deptKey, String userId){
-		boolean retValue = false;
-		try {
-			logger.info("checkMdoAdminPrivilage... userId: " + userId + ", deptKey: " + deptKey);
-			// Find MDO Departments
-			List<DepartmentType> deptTypes = deptTypeRepo.findByDeptTypeIgnoreCase(deptKey);
-
-			List<Integer> deptTypeIds = new ArrayList<>();
-			if (!DataValidator.isCollectionEmpty(deptTypes)) {
-				deptTypeIds = deptTypes.stream().map(DepartmentType::getId).collect(Collectors.toList());
-			}
-
-			List<Department> depts = deptRepo.findAllByIdIn(deptTypeIds);
-			List<Integer> deptIds = new ArrayList<>();
-			if (!DataValidator.isCollectionEmpty(depts)) {
-				deptIds = depts.stream().map(Department::getDeptId).collect(Collectors.toList());
-			}
-			List<UserDepartmentRole> userDeptRoles = userDepartmentRoleRepo.findAllByUserIdAndDeptId(userId, deptIds);
-			for (UserDepartmentRole userDeptRole : userDeptRoles) {
-				if (userDeptRole.getUserId().equalsIgnoreCase(userId)) {
-					retValue = userDeptRole.getIsActive() && !userDeptRole.getIsBlocked();
-					break;
-				}
-			}
-
-			logger.info("checkMdoAdminPrivilage... returns : " + retValue);
-		} catch (Exception e) {
-			logger.error(e);
-			throw e;
-		}
+		UserAuthorizationProfile profile = userAuthService.getUserAuthorizationProfile(userId);
+		boolean retValue = profile.hasDepartmentType(deptKey);
+		logger.info("checkMdoAdminPrivilage... userId: " + userId + ", deptKey: " + deptKey + ", returns : " + retValue);
 		return retValue;
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public DepartmentInfo getMyDepartmentDetails(String userId, boolean isUserInfoRequired){
 		return null;
 	}
 
 	@Override
 	public boolean isAdmin(String strDeptType, String roleName, String userId) {
-		boolean retValue = false;
-		StringBuilder str = new StringBuilder("isAdmin");
-		str.append("strDeptType: ").append(strDeptType).append(", roleName: ").append(roleName);
-		str.append(", userId: ").append(userId).append(", roleName: ").append(roleName).append(System.lineSeparator());
-		List<UserDepartmentRole> userDeptRoleList = userDepartmentRoleRepo
-				.findAllByUserIdAndIsActiveAndIsBlocked(userId, true, false);
-		if (!DataValidator.isCollectionEmpty(userDeptRoleList)) {
-			for (UserDepartmentRole userDeptRole : userDeptRoleList) {
-				if (!Boolean.TRUE.equals(userDeptRole.getIsActive()) || Boolean.TRUE.equals(userDeptRole.getIsBlocked())) {
-					continue;
-				}
-				str.append("Found userDepartmentRole entry id= ").append(userDeptRole.getId())
-						.append(System.lineSeparator());
-				// Get Roles
-				Iterable<Role> roles = roleRepo.findAllById(Arrays.asList(userDeptRole.getRoleIds()));
-				if (!DataValidator.isCollectionEmpty(roles)) {
-					for (Role role : roles) {
-						if (role.getRoleName().contains(roleName)) {
-							// Just check this department type is equal to given roleName
-							Optional<Department> dept = deptRepo.findByIdAndIsDeleted(userDeptRole.getDeptId(), false);
-
-							if (dept.isPresent()) {
-								str.append("Found Department with Id: ").append(dept.get().getDeptId())
-										.append(System.lineSeparator());
-								Iterable<DepartmentType> deptTypeList = deptTypeRepo
-										.findAllById(Arrays.asList(dept.get().getDeptTypeIds()));
-								if (!DataValidator.isCollectionEmpty(deptTypeList)) {
-									for (DepartmentType deptType : deptTypeList) {
-										if (deptType.getDeptType().equalsIgnoreCase(strDeptType)) {
-											// We have found the expected Department.
-											retValue = true;
-											str.append("Found that department has Type: ").append(strDeptType);
-											break;
-										}
-									}
-								}
-							}
-						}
-						if (retValue) {
-							break;
-						}
-					}
-				}
-			}
-		}
-		str.append("Return value: ").append(retValue);
-		logger.info(str.toString());
+		return isAdmin(strDeptType, roleName, userAuthService.getUserAuthorizationProfile(userId));
+	}
+
+	@Override
+	public boolean isAdmin(String strDeptType, String roleName, UserAuthorizationProfile profile) {
+		boolean retValue = profile.hasRoleContaining(strDeptType, roleName);
+		logger.info("isAdmin strDeptType: " + strDeptType + ", roleName: " + roleName + ", userId: "
+				+ profile.getUserId() + ", Return value: " + retValue);
 		return retValue;
 	}
 
 	@Override
 	public List<SearchUserInfo> searchUserForRole(Integer deptId, String roleName, String userName) {
-		return Collections.emptyList();
+		return searchUserForRole(deptId, roleName, userName, null, null);
+	}
+
+	/**
+	 * Active members of the department holding the role are read from
+	 * user_department_role and the name/email prefix match is done by the
+	 * profile index, restricted to those members, one page at a time. Roles
+	 * with more than portal.user.search.max.members members are searched one
+	 * chunk of that many member ids at a time, so every member is searched.
+	 */
+	@Override
+	public List<SearchUserInfo> searchUserForRole(Integer deptId, String roleName, String userName, Integer from,
+			Integer size) {
+		Role role = refDataCache.getRoleByName(roleName);
+		if (role == null) {
+			throw new BadRequestException("Invalid Role Name provided.");
+		}
+		Optional<Department> dept = deptRepo.findByIdAndIsDeleted(deptId, false);
+		if (!dept.isPresent()) {
+			throw new BadRequestException("No department exists on given id!");
+		}
+		int offset = from == null ? 0 : from;
+		int pageSize = size == null ? serverConfig.getPortalUserSearchPageSize() : size;
+		int maxSize = serverConfig.getPortalDeptUsersPageMaxSize();
+		if (offset < 0 || pageSize <= 0 || pageSize > maxSize) {
+			throw new BadRequestException("Invalid from: " + from + " or size: " + size
+					+ ", size should be between 1 and " + maxSize);
+		}
+		int maxMembers = serverConfig.getPortalUserSearchMaxMembers();
+		List<String> userIds = userDepartmentRoleRepo.findActiveUserIdsByDeptIdAndRoleIdAfter(deptId, role.getId(),
+				"", maxMembers + 1);
+		if (userIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<SearchUserInfo> userList = new ArrayList<>();
+		try {
+			List<Map<String, Object>> users = userIds.size() > maxMembers
+					? searchRoleMembers(deptId, role.getId(), userName.trim(), offset, pageSize, maxMembers)
+					: allocationService.getUserSearchData(userName.trim(), userIds, offset, pageSize);
+			for (Map<String, Object> user : users) {
+				SearchUserInfo userInfo = new SearchUserInfo();
+				userInfo.setWid((String) user.get("wid"));
+				userInfo.setFirst_name((String) user.get("first_name"));
+				userInfo.setLast_name((String) user.get("last_name"));
+				userInfo.setEmail((String) user.get("email"));
+				userInfo.setDepartment_name(dept.get().getDeptName());
+				userList.add(userInfo);
+			}
+		} catch (IOException e) {
+			throw new ApplicationLogicError("Failed to search users of DeptId: " + deptId, e);
+		}
+		return userList;
+	}
+
+	/**
+	 * Searches the members of a large role in chunks of member ids in user id
+	 * order, each chunk applied as a filter of the profile query. Matches are
+	 * ordered by chunk and by relevance within a chunk.
+	 */
+	private List<Map<String, Object>> searchRoleMembers(Integer deptId, Integer roleId, String userName, int offset,
+			int pageSize, int chunkSize) throws IOException {
+		List<Map<String, Object>> members = new ArrayList<>();
+		int toSkip = offset;
+		String afterUserId = "";
+		while (members.size() < pageSize) {
+			List<String> userIds = userDepartmentRoleRepo.findActiveUserIdsByDeptIdAndRoleIdAfter(deptId, roleId,
+					afterUserId, chunkSize);
+			if (userIds.isEmpty()) {
+				break;
+			}
+			List<Map<String, Object>> users = allocationService.getUserSearchData(userName, userIds, 0,
+					toSkip + pageSize - members.size());
+			int skipped = Math.min(toSkip, users.size());
+			toSkip -= skipped;
+			members.addAll(users.subList(skipped, users.size()));
+			if (userIds.size() < chunkSize) {
+				break;
+			}
+			afterUserId = userIds.get(userIds.size() - 1);
+		}
+		return members;
 	}
 
 	private DepartmentInfo enrichDepartmentInfo(Integer deptId, boolean isUserInfoRequired, boolean enrichData,
@@ -637,42 +930,26 @@ public class PortalServiceImpl implements PortalService {
 			String rootOrg) {
 		DepartmentInfo deptInfo = null;
 		if (dept != null) {
-			deptInfo = new DepartmentInfo();
-			deptInfo.setDeptName(dept.getDeptName());
-			deptInfo.setDescription(dept.getDescription());
-			deptInfo.setId(dept.getDeptId());
-			deptInfo.setRootOrg(dept.getRootOrg());
-			deptInfo.setDeptTypeIds(dept.getDeptTypeIds());
-			deptInfo.setHeadquarters(dept.getHeadquarters());
-			deptInfo.setLogo(dept.getLogo());
-			deptInfo.setCreationDate(dept.getCreationDate());
-			deptInfo.setCreatedBy(dept.getCreatedBy());
-			if (dept.getSourceId() != null) {
-				deptInfo.setSourceId(dept.getSourceId());
-			}
-			// Get Dept Type Information
-			deptInfo.setDeptTypeInfos(enrichDepartmentTypeInfo(dept.getDeptTypeIds()));
+			deptInfo = createDepartmentInfo(dept);
 
 			// Get Number of Users in Department
 			if (enrichData) {
-				List<UserDepartmentRole> userDeptList = userDepartmentRoleRepo.findByDeptId(deptInfo.getId());
-				deptInfo.setNoOfUsers(userDeptList == null ? 0 : userDeptList.size());
+				List<UserDepartmentRole> userDeptList = null;
+				if (isUserInfoRequired) {
+					userDeptList = userDepartmentRoleRepo.findByDeptId(deptInfo.getId());
+					deptInfo.setNoOfUsers(userDeptList == null ? 0 : userDeptList.size());
+				} else {
+					deptInfo.setNoOfUsers(getUserCounts(Collections.singletonList(deptInfo.getId()))
+							.getOrDefault(deptInfo.getId(), 0));
+				}
 
 				// Get Role Informations
 				List<Role> roleList = getDepartmentRoles(Arrays.asList(deptInfo.getDeptTypeIds()));
 				Collections.sort(roleList, Comparator.nullsFirst(Comparator.comparing(Role::getRoleName)));
 				if (!isUserInfoRequired && !CollectionUtils.isEmpty(roleList)) {
-					List<Role> newRoleList = new ArrayList<>();
-					for (Role role : roleList) {
-						Role assignRole = new Role();
-						assignRole.setDescription(role.getDescription());
-						assignRole.setId(role.getId());
-						assignRole.setRoleName(role.getRoleName());
-						assignRole.setNoOfUsers(userDepartmentRoleRepo.getTotalUserCountOnRoleIdAndDeptId(role.getId(),
-								deptInfo.getId()));
-						newRoleList.add(assignRole);
-					}
-					deptInfo.setRolesInfo(newRoleList);
+					Map<Integer, Map<Integer, Integer>> roleUserCounts = getRoleUserCounts(
+							Collections.singletonList(deptInfo.getId()));
+					deptInfo.setRolesInfo(assignRoleUserCounts(roleList, roleUserCounts.get(deptInfo.getId())));
 				} else {
 					deptInfo.setRolesInfo(roleList);
 				}
@@ -682,9 +959,7 @@ public class PortalServiceImpl implements PortalService {
 				if (isUserInfoRequired && userDeptList != null && !CollectionUtils.isEmpty(userDeptList)) {
 					Set<String> userIdSet = userDeptList.stream().map(UserDepartmentRole::getUserId).collect(Collectors.toSet());
 					List<String> userIds = userIdSet.stream().collect(Collectors.toList());
-					Map<String, Object> result = userUtilService.getUsersDataFromUserIds(rootOrg, userIds,
-							new ArrayList<>(Arrays.asList(Constants.FIRST_NAME, Constants.LAST_NAME, Constants.EMAIL,
-									Constants.DEPARTMENT_NAME)));
+					Map<String, Object> result = getUserProfiles(rootOrg, userIds);
 					logger.info("enrichDepartmentInfo UserIds -> " + userIds.toString() + ", fetched Information -> "
 							+ result.size());
 					for (UserDepartmentRole userDeptRole : userDeptList) {
@@ -750,11 +1025,38 @@ public class PortalServiceImpl implements PortalService {
 		return null;
 	}
 
-	private List<DepartmentInfo> enrichDepartmentInfo(List<Department> depts, boolean enrichData, String rootOrg) {
+	/**
+	 * Enriches a list of departments with set based queries -- the user counts and
+	 * the per role user counts of all departments are fetched in one round trip
+	 * each, and department roles are resolved once per distinct set of
+	 * department types.
+	 */
+	private List<DepartmentInfo> enrichDepartmentInfo(List<Department> depts, boolean enrichData) {
 		List<DepartmentInfo> deptInfoList = new ArrayList<>();
+		if (DataValidator.isCollectionEmpty(depts)) {
+			return deptInfoList;
+		}
+		List<Integer> deptIds = depts.stream().map(Department::getDeptId).collect(Collectors.toList());
+		Map<Integer, Integer> userCounts = Collections.emptyMap();
+		Map<Integer, Map<Integer, Integer>> roleUserCounts = Collections.emptyMap();
+		if (enrichData) {
+			userCounts = getUserCounts(deptIds);
+			roleUserCounts = getRoleUserCounts(deptIds);
+		}
+		Map<String, List<Role>> deptTypeRoles = new HashMap<>();
 		for (Department dept : depts) {
 			try {
-				deptInfoList.add(enrichDepartmentInfo(dept, false, enrichData, rootOrg));
+				DepartmentInfo deptInfo = createDepartmentInfo(dept);
+				if (enrichData) {
+					deptInfo.setNoOfUsers(userCounts.getOrDefault(dept.getDeptId(), 0));
+					List<Role> roleList = deptTypeRoles.computeIfAbsent(Arrays.toString(dept.getDeptTypeIds()), k -> {
+						List<Role> roles = getDepartmentRoles(Arrays.asList(dept.getDeptTypeIds()));
+						Collections.sort(roles, Comparator.nullsFirst(Comparator.comparing(Role::getRoleName)));
+						return roles;
+					});
+					deptInfo.setRolesInfo(assignRoleUserCounts(roleList, roleUserCounts.get(dept.getDeptId())));
+				}
+				deptInfoList.add(deptInfo);
 			} catch (Exception e) {
 				logger.error(e);
 			}
@@ -762,9 +1064,97 @@ public class PortalServiceImpl implements PortalService {
 		return deptInfoList;
 	}
 
+	private DepartmentInfo createDepartmentInfo(Department dept) {
+		DepartmentInfo deptInfo = new DepartmentInfo();
+		deptInfo.setDeptName(dept.getDeptName());
+		deptInfo.setDescription(dept.getDescription());
+		deptInfo.setId(dept.getDeptId());
+		deptInfo.setRootOrg(dept.getRootOrg());
+		deptInfo.setDeptTypeIds(dept.getDeptTypeIds());
+		deptInfo.setHeadquarters(dept.getHeadquarters());
+		deptInfo.setLogo(dept.getLogo());
+		deptInfo.setCreationDate(dept.getCreationDate());
+		deptInfo.setCreatedBy(dept.getCreatedBy());
+		if (dept.getSourceId() != null) {
+			deptInfo.setSourceId(dept.getSourceId());
+		}
+		// Get Dept Type Information
+		deptInfo.setDeptTypeInfos(enrichDepartmentTypeInfo(dept.getDeptTypeIds()));
+		return deptInfo;
+	}
+
+	private List<Role> assignRoleUserCounts(List<Role> roleList, Map<Integer, Integer> deptRoleUserCounts) {
+		List<Role> newRoleList = new ArrayList<>();
+		for (Role role : roleList) {
+			Role assignRole = new Role();
+			assignRole.setDescription(role.getDescription());
+			assignRole.setId(role.getId());
+			assignRole.setRoleName(role.getRoleName());
+			if (deptRoleUserCounts != null) {
+				assignRole.setNoOfUsers(deptRoleUserCounts.getOrDefault(role.getId(), 0));
+			}
+			newRoleList.add(assignRole);
+		}
+		return newRoleList;
+	}
+
+	/**
+	 * Fetches user profiles in chunks of portal.user.profile.chunk.size so a
+	 * single search request never carries an unbounded id list.
+	 *
+	 * @param rootOrg root org
+	 * @param userIds user ids
+	 * @return user profiles, keyed by user id
+	 */
+	private Map<String, Object> getUserProfiles(String rootOrg, List<String> userIds) {
+		Map<String, Object> result = new HashMap<>();
+		int chunkSize = Math.max(1, serverConfig.getPortalUserProfileChunkSize());
+		for (int i = 0; i < userIds.size(); i += chunkSize) {
+			result.putAll(userUtilService.getUsersDataFromUserIds(rootOrg,
+					userIds.subList(i, Math.min(i + chunkSize, userIds.size())),
+					new ArrayList<>(Arrays.asList(Constants.FIRST_NAME, Constants.LAST_NAME, Constants.EMAIL,
+							Constants.DEPARTMENT_NAME))));
+		}
+		return result;
+	}
+
+	/**
+	 * @param deptIds department ids
+	 * @return number of users, grouped by department id
+	 */
+	private Map<Integer, Integer> getUserCounts(Collection<Integer> deptIds) {
+		Map<Integer, Integer> userCounts = new HashMap<>();
+		if (CollectionUtils.isEmpty(deptIds)) {
+			return userCounts;
+		}
+		for (Object[] row : userDepartmentRoleRepo.getUserCountByDeptId(deptIds)) {
+			userCounts.put(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+		}
+		return userCounts;
+	}
+
+	/**
+	 * @param deptIds department ids
+	 * @return number of users per role, grouped by department id and then role id
+	 */
+	private Map<Integer, Map<Integer, Integer>> getRoleUserCounts(Collection<Integer> deptIds) {
+		Map<Integer, Map<Integer, Integer>> roleUserCounts = new HashMap<>();
+		if (CollectionUtils.isEmpty(deptIds)) {
+			return roleUserCounts;
+		}
+		for (Object[] row : userDepartmentRoleRepo.getUserCountByDeptIdAndRoleId(deptIds)) {
+			if (row[0] == null || row[1] == null) {
+				continue;
+			}
+			roleUserCounts.computeIfAbsent(((Number) row[0]).intValue(), k -> new HashMap<>())
+					.put(((Number) row[1]).intValue(), ((Number) row[2]).intValue());
+		}
+		return roleUserCounts;
+	}
+
 	private List<DeptTypeInfo> enrichDepartmentTypeInfo(Integer[] deptTypeId) {
 		List<DeptTypeInfo> deptTypeInfoList = new ArrayList<>();
-		Iterable<DepartmentType> dTypeList = deptTypeRepo.findAllById(Arrays.asList(deptTypeId));
+		Iterable<DepartmentType> dTypeList = refDataCache.getDepartmentTypes(Arrays.asList(deptTypeId));
 		if (!DataValidator.isCollectionEmpty(dTypeList)) {
 			for (DepartmentType dType : dTypeList) {
 				DeptTypeInfo deptTypeInfo = new DeptTypeInfo();
@@ -788,7 +1178,7 @@ public class PortalServiceImpl implements PortalService {
 		deptInfo.setDeptInfo(enrichDepartmentInfo(userDeptRole.getDeptId(), false, false, rootOrg));
 
 		// Enrich Department Role Info
-		deptInfo.setRoleInfo(roleRepo.findAllById(Arrays.asList(userDeptRole.getRoleIds())));
+		deptInfo.setRoleInfo(refDataCache.getRoles(Arrays.asList(userDeptRole.getRoleIds())));
 
 		return deptInfo;
 	}
@@ -803,6 +1193,7 @@ public class PortalServiceImpl implements PortalService {
 		if (!isValid) {
 			throw new BadRequestException("Failed to create Department. Given Department is null OR RootOrg/DeptName is null");
 		}
+		logoService.validateLogo(deptInfo.getLogo());
 	}
 
 	private void validateDepartmentTypeInfo(List<DeptTypeInfo> deptTypeInfoList){
@@ -819,8 +1210,7 @@ public class PortalServiceImpl implements PortalService {
 
 	private void validateDepartmentTypeInfo(Integer[] deptTypeIds){
 		for (Integer deptTypeId : deptTypeIds) {
-			Optional<DepartmentType> dType = deptTypeRepo.findById(deptTypeId);
-			if (!dType.isPresent()) {
+			if (refDataCache.getDepartmentType(deptTypeId) == null) {
 				throw new BadRequestException(
 						"Failed to create Department. Given deptTypeId: '" + deptTypeId + "' doesn't exist");
 			}
@@ -840,7 +1230,7 @@ public class PortalServiceImpl implements PortalService {
 		// Check Role exist
 		if (!DataValidator.isCollectionEmpty(userDeptRole.getRoles())) {
 			boolean isCbpRoleGiven = false;
-			List<Role> roles = roleRepo.findAllByRoleNameIn(userDeptRole.getRoles());
+			List<Role> roles = refDataCache.getRolesByNames(userDeptRole.getRoles());
 			for (Role r : roles) {
 				if (PortalConstants.CBP_ROLES.contains(r.getRoleName())) {
 					isCbpRoleGiven = true;
@@ -871,8 +1261,8 @@ public class PortalServiceImpl implements PortalService {
 					for (UserDepartmentRole uDeptRole : existingUserDepts) {
 						if (isCbpRoleGiven) {
 							// Just check any CBP role is already assigned
-							Iterable<Role> existingUserDeptRoles = roleRepo
-									.findAllById(Arrays.asList(uDeptRole.getRoleIds()));
+							Iterable<Role> existingUserDeptRoles = refDataCache
+									.getRoles(Arrays.asList(uDeptRole.getRoleIds()));
 							for (Role r : existingUserDeptRoles) {
 								if (PortalConstants.CBP_ROLES.contains(r.getRoleName())) {
 									throw new BadRequestException(
@@ -894,8 +1284,82 @@ public class PortalServiceImpl implements PortalService {
 		}
 	}
 
+	/**
+	 * Same checks as validateUserDepartmentRole for an add request, evaluated
+	 * against data loaded once for the whole bulk request.
+	 *
+	 * @return the validation error, or null when the row is valid
+	 */
+	private String validateBulkUserDepartmentRole(UserDepartmentRole userDeptRole, Map<String, Boolean> validUsers,
+			Department dept, Map<String, Role> roleMap, Map<Integer, Role> roleIdMap, Set<String> availableRoleNames,
+			List<UserDepartmentRole> userRecords) {
+		if (!Boolean.TRUE.equals(validUsers.get(userDeptRole.getUserId()))) {
+			return "Invalid UserId.";
+		}
+		if (dept == null) {
+			return "Invalid Department";
+		}
+		boolean isCbpRoleGiven = false;
+		Set<Integer> givenRoleIds = new HashSet<>();
+		for (String roleName : userDeptRole.getRoles()) {
+			Role role = roleMap.get(roleName);
+			if (role == null) {
+				return "Invalid Role Names Provided";
+			}
+			if (!availableRoleNames.contains(roleName)) {
+				return "Invalid Role Name provided for the Department";
+			}
+			if (!role.getRoleName().equalsIgnoreCase("MEMBER")) {
+				givenRoleIds.add(role.getId());
+			}
+			isCbpRoleGiven = isCbpRoleGiven || PortalConstants.CBP_ROLES.contains(roleName);
+		}
+		for (UserDepartmentRole userRecord : userRecords) {
+			if (userRecord.getDeptId().equals(userDeptRole.getDeptId())) {
+				return "Record already exist for UserId: '" + userDeptRole.getUserId() + ", RoleName: "
+						+ userDeptRole.getRoles();
+			}
+		}
+		if (serverConfig.isUserMultiMapDeptEnabled()) {
+			return null;
+		}
+		for (UserDepartmentRole userRecord : userRecords) {
+			if (!Boolean.TRUE.equals(userRecord.getIsActive()) || Boolean.TRUE.equals(userRecord.getIsBlocked())) {
+				continue;
+			}
+			for (Integer roleId : userRecord.getRoleIds()) {
+				Role role = roleIdMap.get(roleId);
+				if (isCbpRoleGiven && role != null && PortalConstants.CBP_ROLES.contains(role.getRoleName())) {
+					return "User is already assigned with a CBP Role in another Department.";
+				}
+				if (givenRoleIds.contains(roleId)) {
+					return "User is already assigned with given Role in another Department.";
+				}
+			}
+		}
+		return null;
+	}
+
+	private void setAssignmentFailed(UserRoleAssignmentResult result, String message) {
+		result.setStatus(Constants.FAILED);
+		result.setMessage(message);
+	}
+
+	/**
+	 * Validates users in chunks of portal.user.profile.chunk.size.
+	 */
+	private Map<String, Boolean> validateUsers(String rootOrg, List<String> userIds) {
+		Map<String, Boolean> validUsers = new HashMap<>();
+		int chunkSize = Math.max(1, serverConfig.getPortalUserProfileChunkSize());
+		for (int i = 0; i < userIds.size(); i += chunkSize) {
+			validUsers.putAll(
+					userUtilService.validateUsers(rootOrg, userIds.subList(i, Math.min(i + chunkSize, userIds.size()))));
+		}
+		return validUsers;
+	}
+
 	private List<Role> getDepartmentRoles(List<Integer> deptTypeIdList) {
-		Iterable<DepartmentType> deptTypeList = deptTypeRepo.findAllById(deptTypeIdList);
+		Iterable<DepartmentType> deptTypeList = refDataCache.getDepartmentTypes(deptTypeIdList);
 		if (DataValidator.isCollectionEmpty(deptTypeList)) {
 			return Collections.emptyList();
 		}
@@ -905,15 +1369,15 @@ public class PortalServiceImpl implements PortalService {
 			deptTypeNames.add(deptType.getDeptType());
 		}
 
-		Iterable<DepartmentRole> deptRoleList = deptRoleRepo
-				.findAllByDeptTypeIn(deptTypeNames.stream().collect(Collectors.toList()));
+		Iterable<DepartmentRole> deptRoleList = refDataCache
+				.getDepartmentRoles(deptTypeNames.stream().collect(Collectors.toList()));
 		Set<Role> roleList = new HashSet<>();
 		if (DataValidator.isCollectionEmpty(deptRoleList)) {
 			return Collections.emptyList();
 		}
 
 		for (DepartmentRole deptRole : deptRoleList) {
-			Iterable<Role> existingRoles = roleRepo.findAllById(Arrays.asList(deptRole.getRoleIds()));
+			Iterable<Role> existingRoles = refDataCache.getRoles(Arrays.asList(deptRole.getRoleIds()));
 			for (Role r : existingRoles) {
 				roleList.add(r);
 			}
@@ -923,118 +1387,82 @@ public class PortalServiceImpl implements PortalService {
 
 	@Override
 	public boolean validateCBPUserLogin(String userId) {
-		List<UserDepartmentRole> userDeptRoleList = userDepartmentRoleRepo
-				.findAllByUserIdAndIsActiveAndIsBlocked(userId, true, false);
-		DepartmentRole cbpRole = deptRoleRepo.findByDeptTypeIgnoreCase(PortalConstants.CBP_DEPT_TYPE);
-		Set<Integer> cbpRoleIds = new HashSet<>();
-		if (cbpRole != null) {
-			cbpRoleIds.addAll(Arrays.asList(cbpRole.getRoleIds()));
-		}
-		if (!DataValidator.isCollectionEmpty(userDeptRoleList)) {
-			for (UserDepartmentRole userDeptRole : userDeptRoleList) {
-				if (!Boolean.TRUE.equals(userDeptRole.getIsActive()) || Boolean.TRUE.equals(userDeptRole.getIsBlocked())) {
-					continue;
-				}
-				// Just check this department type is "SPV"
-				Optional<Department> dept = deptRepo.findByIdAndIsDeleted(userDeptRole.getDeptId(), false);
-				if (dept.isPresent()) {
-					Iterable<DepartmentType> deptTypeList = deptTypeRepo
-							.findAllById(Arrays.asList(dept.get().getDeptTypeIds()));
-					if (!DataValidator.isCollectionEmpty(deptTypeList)) {
-						for (DepartmentType deptType : deptTypeList) {
-							if (deptType.getDeptType().equalsIgnoreCase(PortalConstants.CBP_DEPT_TYPE)) {
-								// We have found the expected Department.
-								// Let's check user has at least one Role.
-								for (Integer uRoleId : userDeptRole.getRoleIds()) {
-									if (cbpRoleIds.contains(uRoleId)) {
-										return true;
-									}
-								}
-							}
-						}
-					}
-				}
-			}
-		}
-		return false;
+		return validateUserLoginForDepartment(userId, PortalConstants.CBP_DEPT_TYPE);
 	}
 
 	@Override
 	public boolean validateUserLogin(String userId, List<String> roles, String departmentType) {
-		List<Role> roleList = roleRepo.findAllByRoleNameIn(roles);
-		Set<Integer> fracRoleIds = new HashSet<>();
-		for (Role r : roleList) {
-			fracRoleIds.add(r.getId());
-		}
-
-		List<UserDepartmentRole> userDeptRoleList = userDepartmentRoleRepo
-				.findAllByUserIdAndIsActiveAndIsBlocked(userId, true, false);
-		if (!DataValidator.isCollectionEmpty(userDeptRoleList)) {
-			for (UserDepartmentRole userDeptRole : userDeptRoleList) {
-				if (!Boolean.TRUE.equals(userDeptRole.getIsActive()) || Boolean.TRUE.equals(userDeptRole.getIsBlocked())) {
-					continue;
-				}
-				Optional<Department> dept = deptRepo.findByIdAndIsDeleted(userDeptRole.getDeptId(), false);
-				if (dept.isPresent()) {
-					Iterable<DepartmentType> deptTypeList = deptTypeRepo
-							.findAllById(Arrays.asList(dept.get().getDeptTypeIds()));
-					if (!DataValidator.isCollectionEmpty(deptTypeList)) {
-						for (DepartmentType deptType : deptTypeList) {
-							if (deptType.getDeptType().equalsIgnoreCase(departmentType)) {
-								// We have found the expected Department.
-								// Let's check user has at least one Role.
-								for (Integer uRoleId : userDeptRole.getRoleIds()) {
-									if (fracRoleIds.contains(uRoleId)) {
-										return true;
-									}
-								}
-							}
-						}
-					}
-				}
-			}
-		}
+		return validateUserLogin(userAuthService.getUserAuthorizationProfile(userId), roles, departmentType);
+	}
 
-		return false;
+	@Override
+	public boolean validateUserLogin(UserAuthorizationProfile profile, List<String> roles, String departmentType) {
+		return profile.hasAnyRole(departmentType, roles);
 	}
 
 	@Override
 	public boolean validateUserLoginForDepartment(String userId, String departmentType) {
-		List<UserDepartmentRole> userDeptRoleList = userDepartmentRoleRepo
-				.findAllByUserIdAndIsActiveAndIsBlocked(userId, true, false);
-		DepartmentRole departmentRole = deptRoleRepo.findByDeptTypeIgnoreCase(departmentType);
-		Set<Integer> departmentRoleIds = new HashSet<>();
-		if (departmentRole != null) {
-			departmentRoleIds.addAll(Arrays.asList(departmentRole.getRoleIds()));
-		}
-		if (!DataValidator.isCollectionEmpty(userDeptRoleList)) {
-			for (UserDepartmentRole userDeptRole : userDeptRoleList) {
-				Optional<Department> dept = deptRepo.findByIdAndIsDeleted(userDeptRole.getDeptId(), false);
-				if (dept.isPresent()) {
-					Iterable<DepartmentType> deptTypeList = deptTypeRepo
-							.findAllById(Arrays.asList(dept.get().getDeptTypeIds()));
-					if (!DataValidator.isCollectionEmpty(deptTypeList)) {
-						for (DepartmentType deptType : deptTypeList) {
-							if (deptType.getDeptType().equalsIgnoreCase(departmentType)) {
-								for (Integer uRoleId : userDeptRole.getRoleIds()) {
-									if (departmentRoleIds.contains(uRoleId)) {
-										return true;
-									}
-								}
-							}
-						}
-					}
-				}
-			}
+		return validateUserLoginForDepartment(userAuthService.getUserAuthorizationProfile(userId), departmentType);
+	}
+
+	@Override
+	public boolean validateUserLoginForDepartment(UserAuthorizationProfile profile, String departmentType) {
+		if (!profile.hasDepartmentType(departmentType)) {
+			return false;
 		}
-		return false;
+		DepartmentRole departmentRole = refDataCache.getDepartmentRole(departmentType);
+		if (departmentRole == null) {
+			return false;
+		}
+		return profile.hasAnyRoleId(departmentType, Arrays.asList(departmentRole.getRoleIds()));
 	}
 
 	@Override
 	public Boolean isUserActive(String userId) {
-		List<UserDepartmentRole> userDepartmentRole = userDepartmentRoleRepo
-				.findAllByUserIdAndIsActiveAndIsBlocked(userId, true, false);
-		return !CollectionUtils.isEmpty(userDepartmentRole);
+		return userAuthService.getUserAuthorizationProfile(userId).isActive();
+	}
+
+	/**
+	 * Creates the WF history / OpenSaber profile update for the user's new
+	 * department. It is stored in the outbox together with the change and
+	 * WorkflowNotificationConsumer delivers it to the workflow service, so the
+	 * API call no longer waits on it.
+	 */
+	private WorkflowNotification createWorkflowNotification(String userId, String deptName, String wid,
+			int prevDeptId, String rootOrg, String org) {
+		HashMap<String, Object> request = new HashMap<>();
+		request.put("userId", userId);
+		request.put("applicationId", userId);
+		request.put("actorUserId", wid);
+		request.put("serviceName", "profile");
+		request.put("comment", "Updating Department Details.");
+		ArrayList<HashMap<String, Object>> fieldValues = new ArrayList<>();
+		HashMap<String, Object> fieldValue = new HashMap<>();
+		fieldValue.put("fieldKey", "employmentDetails");
+
+		// Try to get existing dept if available
+		String prevDeptName = "";
+		if (prevDeptId != 0) {
+			Optional<Department> optionalPrevDept = deptRepo.findByIdAndIsDeleted(prevDeptId, false);
+			if (optionalPrevDept.isPresent()) {
+				prevDeptName = optionalPrevDept.get().getDeptName();
+			}
+		}
+
+		HashMap<String, Object> fromValue = new HashMap<>();
+		fromValue.put(DEPARTMENT_NAME, prevDeptName);
+		fieldValue.put("fromValue", fromValue);
+		HashMap<String, Object> toValue = new HashMap<>();
+		toValue.put(DEPARTMENT_NAME, deptName);
+		fieldValue.put("toValue", toValue);
+		fieldValues.add(fieldValue);
+		request.put("updateFieldValues", fieldValues);
+
+		return new WorkflowNotification(userId, rootOrg, org, request);
+	}
+
+	private String getDepartmentName(int deptId) {
+		return deptRepo.findByIdAndIsDeleted(deptId, false).map(Department::getDeptName).orElse("");
 	}
 
 	/**
@@ -2,10 +2,12 @@ package org.sunbird.portal.department.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 import org.sunbird.common.util.DataValidator;
 import org.sunbird.core.exception.BadRequestException;
 import org.sunbird.core.logger.CbExtLogger;
+import org.sunbird.portal.department.DepartmentReferenceDataCache;
 import org.sunbird.portal.department.dto.DepartmentRole;
 import org.sunbird.portal.department.dto.Role;
 import org.sunbird.portal.department.dto.UserDepartmentRole;
@@ -29,12 +31,16 @@ public class RoleServiceImpl implements RoleService {
 	@Autowired
 	UserDepartmentRoleRepository userDepartmentRoleRepository;
 
+	@Autowired
+	DepartmentReferenceDataCache refDataCache;
+
 	@Override
 	public Iterable<Role> getAllRoles() {
-		return roleRepo.findAll();
+		return refDataCache.getAllRoles();
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public Role getRoleById(Integer roleId) throws Exception {
 		Optional<Role> role = roleRepo.findById(roleId);
 		if (role.isPresent()) {
@@ -52,7 +58,9 @@ public class RoleServiceImpl implements RoleService {
 		if (existingRole != null) {
 			throw new BadRequestException("Role exist with name - " + role.getRoleName());
 		} else {
-			return roleRepo.save(role);
+			Role savedRole = roleRepo.save(role);
+			refDataCache.refresh();
+			return savedRole;
 		}
 	}
 
@@ -62,18 +70,22 @@ public class RoleServiceImpl implements RoleService {
 		if (existingRole.isPresent()) {
 			existingRole.get().setRoleName(role.getRoleName());
 			existingRole.get().setDescription(role.getDescription());
-			return roleRepo.save(existingRole.get());
+			Role savedRole = roleRepo.save(existingRole.get());
+			refDataCache.refresh();
+			return savedRole;
 		} else {
 			throw new BadRequestException("Role doesn't exist with Id - " + role.getId());
 		}
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public Iterable<DepartmentRole> getAllDepartmentRoles() {
 		return enrichDepartmentRoleInfo(deptRoleRepo.findAll());
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public DepartmentRole getDepartmentRoleById(String deptType) {
 		return enrichDepartmentRoleInfo(deptRoleRepo.findByDeptTypeIgnoreCase(deptType));
 	}
@@ -115,7 +127,7 @@ public class RoleServiceImpl implements RoleService {
 
 	private DepartmentRole enrichDepartmentRoleInfo(DepartmentRole deptRole) {
 		if (deptRole != null) {
-			Iterable<Role> rList = roleRepo.findAllById(Arrays.asList(deptRole.getRoleIds()));
+			Iterable<Role> rList = refDataCache.getRoles(Arrays.asList(deptRole.getRoleIds()));
 			deptRole.setRoles(rList);
 		}
 		return deptRole;
@@ -139,7 +151,7 @@ public class RoleServiceImpl implements RoleService {
 
 			if (roleIds.isEmpty())
 				return Collections.emptyList();
-			Iterator<Role> iterableRole = roleRepo.findAllById(roleIds).iterator();
+			Iterator<Role> iterableRole = refDataCache.getRoles(roleIds).iterator();
 			while (iterableRole.hasNext()) {
 				returnedRoleList.add(iterableRole.next().getRoleName());
 			}
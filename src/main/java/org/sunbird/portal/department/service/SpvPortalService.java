@@ -8,6 +8,8 @@ import org.sunbird.portal.department.model.DepartmentInfo;
 public interface SpvPortalService {
 	public List<DepartmentInfo> getAllDepartments(String rootOrg) throws Exception;
 
+	List<DepartmentInfo> getAllDepartments(String rootOrg, Integer page, Integer size) throws Exception;
+
 	public DepartmentInfo addDepartment(String authUserToken, String userId, DepartmentInfo deptInfo,String rootOrg) throws Exception;
 
 	DepartmentInfo updateDepartment(DepartmentInfo deptInfo,String rootOrg) throws Exception;
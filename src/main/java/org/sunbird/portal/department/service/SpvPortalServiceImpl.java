@@ -11,6 +11,7 @@ import org.sunbird.common.model.Response;
 import org.sunbird.common.util.Constants;
 import org.sunbird.core.exception.BadRequestException;
 import org.sunbird.portal.department.PortalConstants;
+import org.sunbird.portal.department.PublicDepartmentDirectory;
 import org.sunbird.portal.department.dto.Department;
 import org.sunbird.portal.department.model.DepartmentInfo;
 import org.sunbird.portal.department.repo.DepartmentRepository;
@@ -35,11 +36,22 @@ public class SpvPortalServiceImpl implements SpvPortalService {
 	@Autowired
 	DepartmentTypeRepository deptTypeRepo;
 
+	@Autowired
+	UserAuthorizationService userAuthService;
+
+	@Autowired
+	PublicDepartmentDirectory publicDirectory;
+
 	@Override
 	public List<DepartmentInfo> getAllDepartments(String rootOrg) throws Exception {
 		return portalService.getAllDepartments(rootOrg);
 	}
 
+	@Override
+	public List<DepartmentInfo> getAllDepartments(String rootOrg, Integer page, Integer size) throws Exception {
+		return portalService.getAllDepartments(rootOrg, page, size);
+	}
+
 	@Override
 	public DepartmentInfo getMyDepartment(String userId, boolean isUserInfoRequired, String rootOrg) throws Exception {
 		return portalService.getMyDepartment(PortalConstants.SPV_DEPT_TYPE, userId, isUserInfoRequired, rootOrg);
@@ -68,6 +80,8 @@ public class SpvPortalServiceImpl implements SpvPortalService {
 			Department department = dept.get();
 			department.setIsDeleted(true);
 			deptRepo.save(department);
+			userAuthService.evictAll();
+			publicDirectory.invalidate();
 		}
 		else {
 			throw new BadRequestException("No department exists on given id!");
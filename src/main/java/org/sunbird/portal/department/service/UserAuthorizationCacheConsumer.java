@@ -0,0 +1,47 @@
+package org.sunbird.portal.department.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+import org.sunbird.common.util.CbExtServerProperties;
+import org.sunbird.core.logger.CbExtLogger;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Evicts cached authorization profiles when a UserDepartmentRoleAudit event or
+ * a department level revocation is published by any node. The group id is unique to the node, so every node is
+ * assigned all partitions of the topic and keeps its own cache in sync.
+ */
+@Service
+public class UserAuthorizationCacheConsumer {
+
+    @Autowired
+    UserAuthorizationService userAuthService;
+
+    @Autowired
+    CbExtServerProperties serverConfig;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private CbExtLogger logger = new CbExtLogger(getClass().getName());
+
+    @KafkaListener(id = "id2", groupId = "userRoleAuthCache-consumer-#{T(java.util.UUID).randomUUID().toString()}",
+            topics = {"${kafka.topics.userrole.audit}", "${kafka.topics.userrole.auth.revocation}"},
+            containerFactory = "broadcastKafkaListenerContainerFactory")
+    public void processMessage(ConsumerRecord<String, String> data) {
+        try {
+            Map<String, Object> message = mapper.readValue(String.valueOf(data.value()), Map.class);
+            if (data.topic().equals(serverConfig.getUserRoleAuthRevocationTopic())) {
+                userAuthService.evictAll(((Number) message.get("revokedAt")).longValue());
+            } else {
+                userAuthService.evict((String) message.get("userId"));
+            }
+        } catch (IOException e) {
+            logger.error(e);
+        }
+    }
+}
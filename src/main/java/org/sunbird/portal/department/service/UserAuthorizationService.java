@@ -0,0 +1,176 @@
+package org.sunbird.portal.department.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.sunbird.common.util.CbExtServerProperties;
+import org.sunbird.core.exception.ApplicationLogicError;
+import org.sunbird.core.logger.CbExtLogger;
+import org.sunbird.core.producer.Producer;
+import org.sunbird.portal.department.model.UserAuthorizationProfile;
+import org.sunbird.portal.department.repo.UserDepartmentRoleRepository;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+
+/**
+ * Resolves the department types and roles of a user with a single query over
+ * user_department_role, departments, department_types and roles. Resolved
+ * profiles are kept in a bounded, TTL-backed cache keyed by wid; entries are
+ * evicted whenever the user's department roles change. Evictions are also
+ * recorded so that claims tokens issued before the change are rejected. Every
+ * eviction moves a generation counter, and a profile loaded while it moved is
+ * removed from the cache again, since it may have been read before the change.
+ * Department level evictions are published on
+ * kafka.topics.userrole.auth.revocation so every node applies them.
+ */
+@Service
+public class UserAuthorizationService {
+
+	private CbExtLogger logger = new CbExtLogger(getClass().getName());
+
+	@Autowired
+	UserDepartmentRoleRepository userDepartmentRoleRepo;
+
+	@Autowired
+	CbExtServerProperties serverConfig;
+
+	@Autowired
+	Producer producer;
+
+	private Cache<String, UserAuthorizationProfile> profileCache;
+
+	private Cache<String, Long> revokedAt;
+
+	private volatile long allRevokedAt;
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	@PostConstruct
+	public void init() {
+		profileCache = CacheBuilder.newBuilder().maximumSize(serverConfig.getPortalAuthCacheMaxSize())
+				.expireAfterWrite(serverConfig.getPortalAuthCacheTtl(), TimeUnit.MILLISECONDS).recordStats().build();
+		revokedAt = CacheBuilder.newBuilder().maximumSize(serverConfig.getPortalClaimsTokenRevocationMaxSize())
+				.expireAfterWrite(serverConfig.getPortalClaimsTokenTtl(), TimeUnit.MILLISECONDS)
+				.<String, Long>removalListener(removal -> {
+					// A revocation dropped for size must still reject the older tokens
+					if (removal.getCause() == RemovalCause.SIZE) {
+						revokeAll(removal.getValue());
+					}
+				}).build();
+	}
+
+	public UserAuthorizationProfile getUserAuthorizationProfile(String userId) {
+		long[] loadedAt = { -1 };
+		UserAuthorizationProfile profile;
+		try {
+			profile = profileCache.get(userId, () -> {
+				loadedAt[0] = evictions.get();
+				return loadProfile(userId);
+			});
+		} catch (ExecutionException e) {
+			throw new ApplicationLogicError("Failed to resolve authorization details for UserId: " + userId,
+					e.getCause());
+		}
+		if (loadedAt[0] != -1 && loadedAt[0] != evictions.get()) {
+			profileCache.asMap().remove(userId, profile);
+		}
+		return profile;
+	}
+
+	/**
+	 * Reads the profile from the database, skipping the cache, for callers that
+	 * must not act on a profile cached before a change.
+	 */
+	public UserAuthorizationProfile loadUserAuthorizationProfile(String userId) {
+		long loadedAt = evictions.get();
+		UserAuthorizationProfile profile = loadProfile(userId);
+		profileCache.put(userId, profile);
+		if (loadedAt != evictions.get()) {
+			profileCache.asMap().remove(userId, profile);
+		}
+		return profile;
+	}
+
+	public void evict(String userId) {
+		if (userId != null) {
+			evictions.incrementAndGet();
+			profileCache.invalidate(userId);
+			revokedAt.put(userId, System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * Department level changes (type change, delete) affect every member, so the
+	 * whole cache is dropped instead of looking up the members, here and on the
+	 * other nodes.
+	 */
+	public void evictAll() {
+		long now = System.currentTimeMillis();
+		evictAll(now);
+		producer.push(serverConfig.getUserRoleAuthRevocationTopic(), Collections.singletonMap("revokedAt", now));
+	}
+
+	/**
+	 * Applies a department level eviction published by any node.
+	 */
+	public void evictAll(long revokedAt) {
+		evictions.incrementAndGet();
+		profileCache.invalidateAll();
+		revokeAll(revokedAt);
+	}
+
+	/**
+	 * Revocations are kept for the token TTL only, since older tokens have
+	 * expired anyway.
+	 */
+	public boolean isRevoked(String userId, long issuedAt) {
+		if (issuedAt <= allRevokedAt) {
+			return true;
+		}
+		Long userRevokedAt = revokedAt.getIfPresent(userId);
+		return userRevokedAt != null && issuedAt <= userRevokedAt;
+	}
+
+	public Map<String, Object> getStats() {
+		CacheStats cacheStats = profileCache.stats();
+		Map<String, Object> stats = new HashMap<>();
+		stats.put("size", profileCache.size());
+		stats.put("hitCount", cacheStats.hitCount());
+		stats.put("missCount", cacheStats.missCount());
+		stats.put("hitRate", cacheStats.hitRate());
+		stats.put("evictionCount", cacheStats.evictionCount());
+		stats.put("averageLoadPenaltyNanos", cacheStats.averageLoadPenalty());
+		return stats;
+	}
+
+	private synchronized void revokeAll(long revokedAt) {
+		allRevokedAt = Math.max(allRevokedAt, revokedAt);
+	}
+
+	private UserAuthorizationProfile loadProfile(String userId) {
+		UserAuthorizationProfile profile = new UserAuthorizationProfile(userId);
+		List<Object[]> rows = userDepartmentRoleRepo.getUserAuthorizationDetails(userId);
+		for (Object[] row : rows) {
+			profile.addDepartment(toInteger(row[0]));
+			profile.addRole((String) row[1], toInteger(row[2]), (String) row[3]);
+		}
+		logger.debug("loadUserAuthorizationProfile: " + profile);
+		return profile;
+	}
+
+	private Integer toInteger(Object value) {
+		return value == null ? null : ((Number) value).intValue();
+	}
+}
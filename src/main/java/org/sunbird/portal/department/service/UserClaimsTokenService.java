@@ -0,0 +1,132 @@
+package org.sunbird.portal.department.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.sunbird.common.util.CbExtServerProperties;
+import org.sunbird.core.exception.ApplicationLogicError;
+import org.sunbird.core.logger.CbExtLogger;
+import org.sunbird.portal.department.model.UserAuthorizationProfile;
+import org.sunbird.portal.department.model.UserClaims;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Issues and verifies short-lived, HMAC-SHA256 signed tokens carrying a
+ * user's department ids, department types and role names, so guarded
+ * endpoints can authorize a caller without a lookup. A token is
+ * {@code base64url(claims).base64url(signature)}; it is rejected once
+ * expired or when the user's department roles changed after it was issued.
+ * Tokens are signed from a profile read from the database, never the cache.
+ */
+@Service
+public class UserClaimsTokenService {
+
+	public static final String CLAIMS_TOKEN_HEADER = "x-claims-token";
+
+	private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+	private CbExtLogger logger = new CbExtLogger(getClass().getName());
+
+	@Autowired
+	UserAuthorizationService userAuthService;
+
+	@Autowired
+	CbExtServerProperties serverConfig;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private SecretKeySpec signingKey;
+
+	private ThreadLocal<Mac> mac;
+
+	@PostConstruct
+	public void init() {
+		if (!StringUtils.hasText(serverConfig.getPortalClaimsTokenSecret())) {
+			logger.warn("portal.claims.token.secret is not configured, claims tokens are disabled");
+			return;
+		}
+		signingKey = new SecretKeySpec(serverConfig.getPortalClaimsTokenSecret().getBytes(StandardCharsets.UTF_8),
+				HMAC_ALGORITHM);
+		mac = ThreadLocal.withInitial(() -> {
+			try {
+				Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+				instance.init(signingKey);
+				return instance;
+			} catch (GeneralSecurityException e) {
+				throw new ApplicationLogicError("Failed to initialize claims token signer", e);
+			}
+		});
+	}
+
+	/**
+	 * @return signed token for the user, or null when tokens are disabled
+	 */
+	public String issueToken(String userId) {
+		if (signingKey == null) {
+			return null;
+		}
+		// Taken before the profile is read, so a change committed after the read
+		// is evicted later than the token was issued and revokes it
+		long issuedAt = System.currentTimeMillis();
+		UserClaims claims = new UserClaims(userAuthService.loadUserAuthorizationProfile(userId), issuedAt,
+				issuedAt + serverConfig.getPortalClaimsTokenTtl());
+		try {
+			String payload = encode(mapper.writeValueAsBytes(claims));
+			return payload + "." + encode(sign(payload));
+		} catch (IOException e) {
+			throw new ApplicationLogicError("Failed to issue claims token for UserId: " + userId, e);
+		}
+	}
+
+	/**
+	 * @return the authorization profile carried by the token, or null when the
+	 *         token is missing, invalid, expired, revoked or issued to another
+	 *         user
+	 */
+	public UserAuthorizationProfile verifyToken(String token, String userId) {
+		if (signingKey == null || !StringUtils.hasText(token) || userId == null) {
+			return null;
+		}
+		int separator = token.indexOf('.');
+		if (separator < 0) {
+			return null;
+		}
+		String payload = token.substring(0, separator);
+		try {
+			byte[] signature = Base64.getUrlDecoder().decode(token.substring(separator + 1));
+			if (!MessageDigest.isEqual(sign(payload), signature)) {
+				logger.warn("Invalid claims token signature for UserId: " + userId);
+				return null;
+			}
+			UserClaims claims = mapper.readValue(Base64.getUrlDecoder().decode(payload), UserClaims.class);
+			if (claims.getProfile() == null || !userId.equals(claims.getProfile().getUserId())
+					|| claims.getExpiresAt() < System.currentTimeMillis()
+					|| userAuthService.isRevoked(userId, claims.getIssuedAt())) {
+				return null;
+			}
+			return claims.getProfile();
+		} catch (IllegalArgumentException | IOException e) {
+			logger.warn("Malformed claims token for UserId: " + userId);
+			return null;
+		}
+	}
+
+	private byte[] sign(String payload) {
+		return mac.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private static String encode(byte[] value) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value);
+	}
+}
@@ -0,0 +1,350 @@
+package org.sunbird.portal.department.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.sunbird.common.service.AdvisoryLockService;
+import org.sunbird.common.util.CbExtServerProperties;
+import org.sunbird.core.logger.CbExtLogger;
+
+/**
+ * Maintains the monthly range partitions of user_department_role_audit on
+ * created_time. Partitions for the current and the next few months are
+ * created on startup and on every run, so inserts always land in the small
+ * partition of the current month; a default partition takes the records of
+ * months without one, so inserts never fail. Partitions older than the
+ * retention are written to a gzipped CSV file in the archive directory and
+ * dropped. A Postgres advisory lock keeps nodes from running the job
+ * concurrently.
+ */
+@Service
+public class UserDepartmentRoleAuditArchiver {
+
+	private static final String SCHEMA = "wingspan";
+	private static final String AUDIT_TABLE = "user_department_role_audit";
+	private static final Pattern PARTITION_NAME = Pattern.compile("^" + AUDIT_TABLE + "_p(\\d{6})$");
+	private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+	private static final String DEFAULT_PARTITION = AUDIT_TABLE + "_default";
+	private static final long ADVISORY_LOCK_KEY = 4_820_190_601L;
+	private static final int EXPORT_FETCH_SIZE = 5000;
+
+	private static final String IS_PARTITIONED = "SELECT count(*) FROM pg_partitioned_table pt "
+			+ "JOIN pg_class c ON c.oid = pt.partrelid JOIN pg_namespace n ON n.oid = c.relnamespace "
+			+ "WHERE n.nspname = ? AND c.relname = ?";
+	private static final String LIST_PARTITIONS = "SELECT c.relname FROM pg_inherits i "
+			+ "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+			+ "JOIN pg_namespace n ON n.oid = p.relnamespace WHERE n.nspname = ? AND p.relname = ?";
+	private static final String EXPORT_COLUMNS = "id, user_id, dept_id, role_ids, isactive, isblocked, created_by, "
+			+ "created_time";
+
+	private CbExtLogger logger = new CbExtLogger(getClass().getName());
+
+	@Autowired
+	AdvisoryLockService advisoryLockService;
+
+	@Autowired
+	CbExtServerProperties serverConfig;
+
+	private final AtomicLong partitionsCreated = new AtomicLong();
+	private final AtomicLong partitionsArchived = new AtomicLong();
+	private final AtomicLong rowsArchived = new AtomicLong();
+	private final AtomicLong rowsMovedFromDefault = new AtomicLong();
+	private volatile long lastRunAt;
+	private volatile String lastError;
+
+	@Scheduled(fixedDelayString = "${portal.audit.maintenance.interval.ms}")
+	public void maintainPartitions() {
+		lastError = null;
+		try {
+			boolean executed = advisoryLockService.executeExclusively(ADVISORY_LOCK_KEY, connection -> {
+				if (!isPartitioned(connection)) {
+					logger.warn(SCHEMA + "." + AUDIT_TABLE + " is not partitioned, skipping partition maintenance");
+					return null;
+				}
+				createPartitions(connection);
+				archivePartitions(connection);
+				return null;
+			});
+			if (!executed) {
+				logger.info("Audit partition maintenance is running on another node");
+			}
+		} catch (Exception e) {
+			lastError = e.getMessage();
+			logger.error(e);
+		}
+		lastRunAt = System.currentTimeMillis();
+	}
+
+	public Map<String, Object> getStats() {
+		Map<String, Object> stats = new HashMap<>();
+		stats.put("partitionsCreated", partitionsCreated.get());
+		stats.put("partitionsArchived", partitionsArchived.get());
+		stats.put("rowsArchived", rowsArchived.get());
+		stats.put("rowsMovedFromDefault", rowsMovedFromDefault.get());
+		stats.put("lastRunAt", lastRunAt);
+		stats.put("lastError", lastError);
+		return stats;
+	}
+
+	private void createPartitions(Connection connection) throws SQLException {
+		List<String> existing = listPartitions(connection);
+		if (!existing.contains(DEFAULT_PARTITION)) {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("CREATE TABLE IF NOT EXISTS " + SCHEMA + "." + DEFAULT_PARTITION + " PARTITION OF "
+						+ SCHEMA + "." + AUDIT_TABLE + " DEFAULT");
+			}
+			partitionsCreated.incrementAndGet();
+			logger.info("Created audit partition " + DEFAULT_PARTITION);
+		}
+		YearMonth month = YearMonth.now(ZoneOffset.UTC);
+		for (int i = 0; i <= serverConfig.getPortalAuditPartitionPremakeMonths(); i++) {
+			String partition = getPartitionName(month.plusMonths(i));
+			if (!existing.contains(partition)) {
+				createPartition(connection, partition, month.plusMonths(i));
+			}
+		}
+	}
+
+	/**
+	 * Records inserted while the partition of their month was missing are in
+	 * the default partition. Postgres cannot create a partition for a range the
+	 * default partition has rows in, so they are moved into the new partition
+	 * before it is attached, in one transaction.
+	 */
+	private void createPartition(Connection connection, String partition, YearMonth month) throws SQLException {
+		String range = "created_time >= " + getStartTime(month) + " AND created_time < " + getStartTime(month.plusMonths(1));
+		boolean autoCommit = connection.getAutoCommit();
+		connection.setAutoCommit(false);
+		long rowsMoved;
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE " + SCHEMA + "." + partition + " (LIKE " + SCHEMA + "." + AUDIT_TABLE
+					+ " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+			rowsMoved = statement.executeUpdate("INSERT INTO " + SCHEMA + "." + partition + " SELECT * FROM " + SCHEMA
+					+ "." + DEFAULT_PARTITION + " WHERE " + range);
+			statement.executeUpdate("DELETE FROM " + SCHEMA + "." + DEFAULT_PARTITION + " WHERE " + range);
+			statement.execute("ALTER TABLE " + SCHEMA + "." + AUDIT_TABLE + " ATTACH PARTITION " + SCHEMA + "."
+					+ partition + " FOR VALUES FROM (" + getStartTime(month) + ") TO ("
+					+ getStartTime(month.plusMonths(1)) + ")");
+			connection.commit();
+		} catch (SQLException e) {
+			connection.rollback();
+			throw e;
+		} finally {
+			connection.setAutoCommit(autoCommit);
+		}
+		partitionsCreated.incrementAndGet();
+		rowsMovedFromDefault.addAndGet(rowsMoved);
+		logger.info("Created audit partition " + partition + " -> rows moved from default: " + rowsMoved);
+	}
+
+	private void archivePartitions(Connection connection) throws SQLException {
+		Path archiveDir = getArchiveDir();
+		if (archiveDir == null) {
+			return;
+		}
+		YearMonth oldestRetained = YearMonth.now(ZoneOffset.UTC)
+				.minusMonths(serverConfig.getPortalAuditRetentionMonths());
+		for (String partition : listPartitions(connection)) {
+			Matcher matcher = PARTITION_NAME.matcher(partition);
+			if (matcher.matches() && YearMonth.parse(matcher.group(1), PARTITION_SUFFIX).isBefore(oldestRetained)) {
+				try {
+					archivePartition(connection, archiveDir, partition);
+				} catch (IOException e) {
+					lastError = "Failed to archive " + partition + ": " + e.getMessage();
+					logger.error(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Partitions are only archived to an absolute directory, which should be
+	 * on a volume shared by all nodes; a relative one would resolve to the
+	 * local disk of whichever node holds the lock.
+	 *
+	 * @return the archive directory, or null when archiving is not configured
+	 */
+	private Path getArchiveDir() {
+		String archiveDir = serverConfig.getPortalAuditArchiveDir();
+		if (!StringUtils.hasText(archiveDir) || !Paths.get(archiveDir).isAbsolute()) {
+			logger.warn("portal.audit.archive.dir is not an absolute path, old audit partitions are not archived");
+			return null;
+		}
+		return Paths.get(archiveDir);
+	}
+
+	/**
+	 * The partition is locked against writes while it is exported, and dropped
+	 * only after the archive file is synced to disk and read back with the
+	 * same number of rows as the partition.
+	 */
+	private void archivePartition(Connection connection, Path archiveDir, String partition)
+			throws SQLException, IOException {
+		Files.createDirectories(archiveDir);
+		Path archiveFile = archiveDir.resolve(partition + ".csv.gz");
+		Path tempFile = archiveDir.resolve(partition + ".csv.gz.tmp");
+		long rows = 0;
+		boolean autoCommit = connection.getAutoCommit();
+		// Postgres streams the result with a cursor only inside a transaction
+		connection.setAutoCommit(false);
+		try {
+			long expectedRows;
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("LOCK TABLE " + SCHEMA + "." + partition + " IN SHARE MODE");
+				try (ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM " + SCHEMA + "." + partition)) {
+					resultSet.next();
+					expectedRows = resultSet.getLong(1);
+				}
+			}
+			try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+					PreparedStatement statement = connection.prepareStatement(
+							"SELECT " + EXPORT_COLUMNS + " FROM " + SCHEMA + "." + partition + " ORDER BY id")) {
+				GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel));
+				Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8));
+				statement.setFetchSize(EXPORT_FETCH_SIZE);
+				writer.write(EXPORT_COLUMNS.replace(" ", ""));
+				writer.write('\n');
+				try (ResultSet resultSet = statement.executeQuery()) {
+					int columns = resultSet.getMetaData().getColumnCount();
+					while (resultSet.next()) {
+						for (int i = 1; i <= columns; i++) {
+							if (i > 1) {
+								writer.write(',');
+							}
+							writer.write(toCsvValue(resultSet.getString(i)));
+						}
+						writer.write('\n');
+						rows++;
+					}
+				}
+				writer.flush();
+				gzip.finish();
+				channel.force(true);
+				writer.close();
+			}
+			long archivedRows = countArchivedRows(tempFile);
+			if (rows != expectedRows || archivedRows != expectedRows) {
+				throw new IOException("Row count mismatch for " + partition + " -> partition: " + expectedRows
+						+ ", exported: " + rows + ", archive file: " + archivedRows);
+			}
+			Files.move(tempFile, archiveFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			try (FileChannel directory = FileChannel.open(archiveDir, StandardOpenOption.READ)) {
+				directory.force(true);
+			}
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("ALTER TABLE " + SCHEMA + "." + AUDIT_TABLE + " DETACH PARTITION " + SCHEMA + "."
+						+ partition);
+				statement.execute("DROP TABLE " + SCHEMA + "." + partition);
+			}
+			connection.commit();
+		} catch (SQLException | IOException e) {
+			connection.rollback();
+			Files.deleteIfExists(tempFile);
+			throw e;
+		} finally {
+			connection.setAutoCommit(autoCommit);
+		}
+		partitionsArchived.incrementAndGet();
+		rowsArchived.addAndGet(rows);
+		logger.info("Archived audit partition " + partition + " -> rows: " + rows + ", file: " + archiveFile);
+	}
+
+	/**
+	 * @return the number of records in the archive file, not counting the
+	 *         header and line breaks inside quoted values
+	 */
+	static long countArchivedRows(Path archiveFile) throws IOException {
+		long lines = 0;
+		boolean quoted = false;
+		try (Reader reader = new BufferedReader(new InputStreamReader(
+				new GZIPInputStream(Files.newInputStream(archiveFile)), StandardCharsets.UTF_8))) {
+			int c;
+			while ((c = reader.read()) != -1) {
+				if (c == '"') {
+					quoted = !quoted;
+				} else if (c == '\n' && !quoted) {
+					lines++;
+				}
+			}
+		}
+		return Math.max(0, lines - 1);
+	}
+
+	private boolean isPartitioned(Connection connection) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(IS_PARTITIONED)) {
+			statement.setString(1, SCHEMA);
+			statement.setString(2, AUDIT_TABLE);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				return resultSet.next() && resultSet.getInt(1) > 0;
+			}
+		}
+	}
+
+	private List<String> listPartitions(Connection connection) throws SQLException {
+		List<String> partitions = new ArrayList<>();
+		try (PreparedStatement statement = connection.prepareStatement(LIST_PARTITIONS)) {
+			statement.setString(1, SCHEMA);
+			statement.setString(2, AUDIT_TABLE);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					partitions.add(resultSet.getString(1));
+				}
+			}
+		}
+		return partitions;
+	}
+
+	static String getPartitionName(YearMonth month) {
+		return AUDIT_TABLE + "_p" + month.format(PARTITION_SUFFIX);
+	}
+
+	private static long getStartTime(YearMonth month) {
+		return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+	}
+
+	static String toCsvValue(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+				&& value.indexOf('\r') < 0) {
+			return value;
+		}
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+}
@@ -1,38 +1,161 @@
 package org.sunbird.portal.department.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
+import org.sunbird.common.util.CbExtServerProperties;
 import org.sunbird.core.logger.CbExtLogger;
 import org.sunbird.portal.department.dto.UserDepartmentRoleAudit;
-import org.sunbird.portal.department.repo.UserDepartmentRoleAuditRepo;
+import org.sunbird.portal.department.repo.UserDepartmentRoleBatchRepo;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Persists UserDepartmentRoleAudit events one poll at a time. Each poll is
+ * written with a single JDBC batch in one transaction and the offsets are
+ * committed only after that batch is stored. When the batch fails, its
+ * records are inserted one by one and those that still fail, like malformed
+ * ones, are published to the audit dead letter topic.
+ */
 @Service
 public class UserDepartmentRoleAuditProcessing {
 
+    private static final String RECORDS_LAG_MAX = "records-lag-max";
+    private static final long DEAD_LETTER_TIMEOUT_MS = 2000;
+
+    @Autowired
+    private UserDepartmentRoleBatchRepo userDeptRoleBatchRepo;
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
     @Autowired
-    private UserDepartmentRoleAuditRepo userDepartmentRoleAuditRepo;
+    private CbExtServerProperties serverConfig;
+
+    private final ObjectReader auditReader = new ObjectMapper().readerFor(UserDepartmentRoleAudit.class);
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong recordCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong deadLetteredCount = new AtomicLong();
+    private final AtomicLong lastBatchSize = new AtomicLong();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+    private final AtomicLong consumerLag = new AtomicLong();
 
     private CbExtLogger logger = new CbExtLogger(getClass().getName());
 
-    @KafkaListener(id = "id1", groupId = "userRoleAuditTopic-consumer", topicPartitions = {
-            @TopicPartition(topic = "${kafka.topics.userrole.audit}", partitions = {"0", "1", "2", "3"})})
-    public void processMessage(ConsumerRecord<String, String> data) {
+    @KafkaListener(id = "id1", groupId = "userRoleAuditTopic-consumer", topics = "${kafka.topics.userrole.audit}",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void processMessages(List<ConsumerRecord<String, String>> records, Acknowledgment ack,
+            Consumer<?, ?> consumer) {
+        logger.info("Consuming " + records.size() + " audit records .....");
+        List<UserDepartmentRoleAudit> audits = new ArrayList<>(records.size());
+        List<ConsumerRecord<String, String>> auditRecords = new ArrayList<>(records.size());
+        long createdTime = new Date().getTime();
+        for (ConsumerRecord<String, String> data : records) {
+            try {
+                UserDepartmentRoleAudit auditObject = auditReader.readValue(String.valueOf(data.value()));
+                auditObject.setCreatedTime(createdTime);
+                audits.add(auditObject);
+                auditRecords.add(data);
+            } catch (IOException e) {
+                skippedCount.incrementAndGet();
+                logger.error(e);
+                deadLetter(data);
+            }
+        }
+        if (!audits.isEmpty()) {
+            try {
+                userDeptRoleBatchRepo.insertAllAudits(audits);
+            } catch (DataAccessException e) {
+                logger.info("Batch insert of " + audits.size() + " audit records failed, inserting them one by one: "
+                        + e.getMessage());
+                insertOneByOne(audits, auditRecords);
+            }
+        }
+        ack.acknowledge();
+
+        batchCount.incrementAndGet();
+        recordCount.addAndGet(audits.size());
+        lastBatchSize.set(records.size());
+        maxBatchSize.accumulateAndGet(records.size(), Math::max);
+        consumerLag.set(getRecordsLagMax(consumer));
+    }
+
+    /**
+     * Isolates the records that fail to insert, so one bad record does not
+     * block its partition.
+     */
+    private void insertOneByOne(List<UserDepartmentRoleAudit> audits, List<ConsumerRecord<String, String>> auditRecords) {
+        for (int i = 0; i < audits.size(); i++) {
+            try {
+                userDeptRoleBatchRepo.insertAudit(audits.get(i));
+            } catch (DataAccessException e) {
+                logger.error(new Exception("Failed to store audit record: " + auditRecords.get(i).value(), e));
+                deadLetter(auditRecords.get(i));
+            }
+        }
+    }
+
+    /**
+     * Publishes the record to the dead letter topic to be inspected and
+     * replayed. If that fails too, the record is only logged, so the batch is
+     * never retried forever.
+     */
+    private void deadLetter(ConsumerRecord<String, String> data) {
         try {
-            logger.info("Consuming the audit records .....");
-            ObjectMapper mapper = new ObjectMapper();
-            UserDepartmentRoleAudit auditObject = mapper.readValue(String.valueOf(data.value()), UserDepartmentRoleAudit.class);
-            auditObject.setCreatedTime(new Date().getTime());
-            userDepartmentRoleAuditRepo.save(auditObject);
-        } catch (IOException e) {
-            logger.error(e);
+            kafkaTemplate.send(serverConfig.getUserRoleAuditDeadLetterTopic(), data.key(), data.value())
+                    .get(DEAD_LETTER_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            deadLetteredCount.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error(new Exception("Dropped audit record: " + data.value(), e));
+        } catch (ExecutionException | TimeoutException e) {
+            logger.error(new Exception("Dropped audit record: " + data.value(), e));
         }
     }
 
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("batchCount", batchCount.get());
+        stats.put("recordCount", recordCount.get());
+        stats.put("skippedCount", skippedCount.get());
+        stats.put("deadLetteredCount", deadLetteredCount.get());
+        stats.put("lastBatchSize", lastBatchSize.get());
+        stats.put("maxBatchSize", maxBatchSize.get());
+        stats.put("averageBatchSize", batchCount.get() == 0 ? 0 : (double) recordCount.get() / batchCount.get());
+        stats.put("consumerLag", consumerLag.get());
+        return stats;
+    }
+
+    private long getRecordsLagMax(Consumer<?, ?> consumer) {
+        for (Map.Entry<MetricName, ? extends Metric> entry : consumer.metrics().entrySet()) {
+            // The consumer level metric, the per partition ones carry a topic tag
+            if (RECORDS_LAG_MAX.equals(entry.getKey().name()) && !entry.getKey().tags().containsKey("topic")) {
+                Object value = entry.getValue().metricValue();
+                if (value instanceof Number && !Double.isNaN(((Number) value).doubleValue())) {
+                    return ((Number) value).longValue();
+                }
+            }
+        }
+        return 0;
+    }
 }
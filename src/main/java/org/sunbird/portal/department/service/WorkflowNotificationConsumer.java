@@ -0,0 +1,181 @@
+package org.sunbird.portal.department.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.sunbird.common.util.CbExtServerProperties;
+import org.sunbird.core.logger.CbExtLogger;
+import org.sunbird.core.producer.Producer;
+import org.sunbird.portal.department.model.WorkflowNotification;
+import org.sunbird.portal.department.repo.WorkflowNotificationOutboxRepo;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Delivers department change notifications to the workflow service. Each
+ * notification is delivered once from kafka.topics.workflow.notification; a
+ * failed one is published to the retry topic with exponential backoff and,
+ * after the last attempt, to the dead letter topic. Retries are not waited
+ * for on the poll thread: a record that is not due yet is sought back to and
+ * the retry listener is paused until it is. A notification is removed from
+ * the outbox once it is delivered or dead lettered, and
+ * WorkflowNotificationOutboxRelay publishes the next notification of a user
+ * only then, so a later notification of a user never overtakes one that is
+ * being retried.
+ */
+@Service
+public class WorkflowNotificationConsumer {
+
+    private static final String ROOT_ORG_CONST = "rootOrg";
+    private static final String ORG_CONST = "org";
+    private static final String LISTENER_ID = "workflowNotification";
+    private static final String RETRY_LISTENER_ID = "workflowNotificationRetry";
+    private static final long PUBLISH_TIMEOUT_MS = 5000;
+
+    @Autowired
+    RestTemplate restTemplate;
+
+    @Autowired
+    CbExtServerProperties serverConfig;
+
+    @Autowired
+    Producer producer;
+
+    @Autowired
+    KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Autowired
+    TaskScheduler taskScheduler;
+
+    @Autowired
+    WorkflowNotificationOutboxRepo outboxRepo;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private CbExtLogger logger = new CbExtLogger(getClass().getName());
+
+    @KafkaListener(id = LISTENER_ID, groupId = "workflowNotification-consumer",
+            topics = "${kafka.topics.workflow.notification}", containerFactory = "deferringKafkaListenerContainerFactory")
+    public void processMessages(List<ConsumerRecord<String, String>> records, Consumer<?, ?> consumer) {
+        process(LISTENER_ID, records, consumer);
+    }
+
+    @KafkaListener(id = RETRY_LISTENER_ID, groupId = "workflowNotificationRetry-consumer",
+            topics = "${kafka.topics.workflow.notification.retry}", containerFactory = "deferringKafkaListenerContainerFactory")
+    public void processRetries(List<ConsumerRecord<String, String>> records, Consumer<?, ?> consumer) {
+        process(RETRY_LISTENER_ID, records, consumer);
+    }
+
+    /**
+     * Records of a partition after one that is deferred are skipped, they are
+     * read again once the listener resumes.
+     */
+    private void process(String listenerId, List<ConsumerRecord<String, String>> records, Consumer<?, ?> consumer) {
+        Map<TopicPartition, Long> deferredUntil = new HashMap<>();
+        for (ConsumerRecord<String, String> data : records) {
+            TopicPartition partition = new TopicPartition(data.topic(), data.partition());
+            if (deferredUntil.containsKey(partition)) {
+                continue;
+            }
+            WorkflowNotification notification;
+            try {
+                notification = mapper.readValue(String.valueOf(data.value()), WorkflowNotification.class);
+            } catch (IOException e) {
+                logger.error(e);
+                continue;
+            }
+            long now = System.currentTimeMillis();
+            if (notification.getRetryAt() > now) {
+                consumer.seek(partition, data.offset());
+                deferredUntil.put(partition, notification.getRetryAt());
+                continue;
+            }
+            try {
+                deliverOrRetry(notification);
+            } catch (Exception e) {
+                logger.error(new Exception("Failed to complete workflow notification: " + data.value(), e));
+                consumer.seek(partition, data.offset());
+                deferredUntil.put(partition, now + serverConfig.getWorkflowNotificationBackoff());
+            }
+        }
+        if (!deferredUntil.isEmpty()) {
+            pauseUntil(listenerId, Collections.min(deferredUntil.values()));
+        }
+    }
+
+    private void deliverOrRetry(WorkflowNotification notification)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        try {
+            deliver(notification);
+        } catch (Exception e) {
+            notification.setAttempt(notification.getAttempt() + 1);
+            logger.info("Workflow notification attempt " + notification.getAttempt() + " of "
+                    + serverConfig.getWorkflowNotificationMaxAttempts() + " failed for " + notification + ": "
+                    + e.getMessage());
+            retry(notification);
+            return;
+        }
+        removeFromOutbox(notification);
+    }
+
+    private void retry(WorkflowNotification notification)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        boolean deadLettered = notification.getAttempt() >= serverConfig.getWorkflowNotificationMaxAttempts();
+        String topic;
+        if (deadLettered) {
+            topic = serverConfig.getWorkflowNotificationDeadLetterTopic();
+            notification.setRetryAt(0);
+        } else {
+            topic = serverConfig.getWorkflowNotificationRetryTopic();
+            notification.setRetryAt(System.currentTimeMillis()
+                    + (serverConfig.getWorkflowNotificationBackoff() << Math.min(notification.getAttempt() - 1, 16)));
+        }
+        producer.push(topic, notification.getUserId(), notification).get(PUBLISH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        if (deadLettered) {
+            removeFromOutbox(notification);
+        }
+    }
+
+    /**
+     * Lets the relay publish the next notification of the user. Notifications
+     * published before the outbox existed have no outbox id.
+     */
+    private void removeFromOutbox(WorkflowNotification notification) {
+        if (notification.getOutboxId() != 0) {
+            outboxRepo.delete(notification.getOutboxId());
+        }
+    }
+
+    private void pauseUntil(String listenerId, long resumeAt) {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(listenerId);
+        container.pause();
+        taskScheduler.schedule(container::resume, new Date(resumeAt));
+    }
+
+    private void deliver(WorkflowNotification notification) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(ROOT_ORG_CONST, notification.getRootOrg());
+        headers.set(ORG_CONST, notification.getOrg());
+        HttpEntity<Object> entity = new HttpEntity<>(notification.getRequest(), headers);
+        restTemplate.postForObject(serverConfig.getWfServiceHost() + serverConfig.getWfServicePath(), entity,
+                Map.class);
+    }
+}
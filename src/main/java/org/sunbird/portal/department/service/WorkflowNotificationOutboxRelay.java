@@ -0,0 +1,78 @@
+package org.sunbird.portal.department.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.sunbird.common.service.AdvisoryLockService;
+import org.sunbird.common.util.CbExtServerProperties;
+import org.sunbird.core.logger.CbExtLogger;
+import org.sunbird.core.producer.Producer;
+import org.sunbird.portal.department.model.WorkflowNotification;
+import org.sunbird.portal.department.repo.WorkflowNotificationOutboxRepo;
+
+/**
+ * Publishes the workflow notifications stored in the outbox to
+ * kafka.topics.workflow.notification. Each publish is waited for before the
+ * row is marked published; a failed one is left in the outbox and published
+ * on the next run. The relay runs on one node at a time under a Postgres
+ * advisory lock, so the rows are published in the order they were stored.
+ */
+@Service
+public class WorkflowNotificationOutboxRelay {
+
+	private static final long ADVISORY_LOCK_KEY = 4_820_190_604L;
+	private static final long PUBLISH_TIMEOUT_MS = 5000;
+
+	private CbExtLogger logger = new CbExtLogger(getClass().getName());
+
+	@Autowired
+	WorkflowNotificationOutboxRepo outboxRepo;
+
+	@Autowired
+	AdvisoryLockService advisoryLockService;
+
+	@Autowired
+	Producer producer;
+
+	@Autowired
+	CbExtServerProperties serverConfig;
+
+	@Scheduled(fixedDelayString = "${workflow.notification.outbox.relay.interval.ms}")
+	public void relay() {
+		try {
+			advisoryLockService.executeExclusively(ADVISORY_LOCK_KEY, connection -> {
+				publishAll();
+				return null;
+			});
+		} catch (Exception e) {
+			logger.error(e);
+		}
+	}
+
+	private void publishAll() {
+		int batchSize = serverConfig.getWorkflowNotificationOutboxBatchSize();
+		List<WorkflowNotification> notifications;
+		do {
+			long now = System.currentTimeMillis();
+			notifications = outboxRepo.findNextToPublish(now - serverConfig.getWorkflowNotificationOutboxRepublishAfter(),
+					batchSize);
+			for (WorkflowNotification notification : notifications) {
+				try {
+					producer.push(serverConfig.getWorkflowNotificationTopic(), notification.getUserId(), notification)
+							.get(PUBLISH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				} catch (Exception e) {
+					logger.error(new Exception("Failed to publish workflow notification " + notification
+							+ ", it is published again on the next run", e));
+					return;
+				}
+				outboxRepo.markPublished(notification.getOutboxId(), now);
+			}
+		} while (notifications.size() == batchSize);
+	}
+}
@@ -5,6 +5,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.sunbird.common.model.Response;
+import org.sunbird.common.util.Constants;
 import org.sunbird.workallocation.model.SearchCriteria;
 import org.sunbird.workallocation.model.WorkAllocationDTOV2;
 import org.sunbird.workallocation.model.WorkOrderDTO;
@@ -63,8 +64,13 @@ public class AllocationControllerV2 {
 
     @PostMapping("/copy/workOrder")
     public ResponseEntity<Response> copyWorkOrder(@RequestHeader("userId") String userId, @RequestBody WorkOrderDTO workOrderDTO){
-        return new ResponseEntity<>(allocationServiceV2.copyWorkOrder(userId, workOrderDTO),
-                HttpStatus.OK);
+        Response response = allocationServiceV2.copyWorkOrder(userId, workOrderDTO);
+        return new ResponseEntity<>(response, (HttpStatus) response.get(Constants.STATUS));
+    }
+
+    @GetMapping("/copy/workOrder/{copyId}/progress")
+    public ResponseEntity<Response> getCopyWorkOrderProgress(@PathVariable("copyId") String copyId) {
+        return new ResponseEntity<>(allocationServiceV2.getCopyWorkOrderProgress(copyId), HttpStatus.OK);
     }
 
     @GetMapping("/user/basicInfo/{userId}")
@@ -0,0 +1,89 @@
+package org.sunbird.workallocation.model;
+
+import org.springframework.data.cassandra.core.mapping.Column;
+import org.springframework.data.cassandra.core.mapping.PrimaryKey;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+/**
+ * Index request that could not be written to Elasticsearch, kept to be replayed. Only the latest
+ * failed version of an entity is kept.
+ */
+@Table("work_allocation_index_dead_letter")
+public class IndexDeadLetterCassandraModel {
+
+    public IndexDeadLetterCassandraModel(){
+        super();
+    }
+
+    public IndexDeadLetterCassandraModel(String indexName, String entityId){
+        this.primaryKey = new IndexDeadLetterPrimaryKeyModel();
+        this.primaryKey.setIndexName(indexName);
+        this.primaryKey.setEntityId(entityId);
+    }
+
+    @PrimaryKey
+    private IndexDeadLetterPrimaryKeyModel primaryKey;
+
+    @Column("index_type")
+    private String indexType;
+
+    @Column("version")
+    private long version;
+
+    @Column("data")
+    private String data;
+
+    @Column("error")
+    private String error;
+
+    @Column("failed_at")
+    private long failedAt;
+
+    public IndexDeadLetterPrimaryKeyModel getPrimaryKey() {
+        return primaryKey;
+    }
+
+    public void setPrimaryKey(IndexDeadLetterPrimaryKeyModel primaryKey) {
+        this.primaryKey = primaryKey;
+    }
+
+    public String getIndexType() {
+        return indexType;
+    }
+
+    public void setIndexType(String indexType) {
+        this.indexType = indexType;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public void setData(String data) {
+        this.data = data;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public long getFailedAt() {
+        return failedAt;
+    }
+
+    public void setFailedAt(long failedAt) {
+        this.failedAt = failedAt;
+    }
+}
@@ -0,0 +1,32 @@
+package org.sunbird.workallocation.model;
+
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyClass;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+
+@PrimaryKeyClass
+public class IndexDeadLetterPrimaryKeyModel {
+
+    private static final long serialVersionUID = 1L;
+    @PrimaryKeyColumn(name = "index_name", ordinal = 0, type = PrimaryKeyType.PARTITIONED)
+    private String indexName;
+
+    @PrimaryKeyColumn(name = "entity_id", ordinal = 1, type = PrimaryKeyType.PARTITIONED)
+    private String entityId;
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public String getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(String entityId) {
+        this.entityId = entityId;
+    }
+}
@@ -0,0 +1,115 @@
+package org.sunbird.workallocation.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress of a work order copy, saved in Cassandra under its copy id so it can be read from any node.
+ */
+public class WorkOrderCopyProgress {
+
+    public static final String IN_PROGRESS = "InProgress";
+    public static final String COMPLETED = "Completed";
+    public static final String FAILED = "Failed";
+
+    private String copyId;
+    private String sourceWorkOrderId;
+    private String workOrderId;
+    private int total;
+    private int copied;
+    private long startedAt;
+    private long completedAt;
+    private String status;
+    // One message per chunk of allocations that could not be saved
+    private List<String> errors = new ArrayList<>();
+
+    public WorkOrderCopyProgress() {
+        super();
+    }
+
+    public WorkOrderCopyProgress(String copyId, String sourceWorkOrderId, String workOrderId, int total) {
+        this.copyId = copyId;
+        this.sourceWorkOrderId = sourceWorkOrderId;
+        this.workOrderId = workOrderId;
+        this.total = total;
+        this.startedAt = System.currentTimeMillis();
+        this.status = IN_PROGRESS;
+    }
+
+    public String getCopyId() {
+        return copyId;
+    }
+
+    public void setCopyId(String copyId) {
+        this.copyId = copyId;
+    }
+
+    public String getSourceWorkOrderId() {
+        return sourceWorkOrderId;
+    }
+
+    public void setSourceWorkOrderId(String sourceWorkOrderId) {
+        this.sourceWorkOrderId = sourceWorkOrderId;
+    }
+
+    public String getWorkOrderId() {
+        return workOrderId;
+    }
+
+    public void setWorkOrderId(String workOrderId) {
+        this.workOrderId = workOrderId;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getCopied() {
+        return copied;
+    }
+
+    public void setCopied(int copied) {
+        this.copied = copied;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(long startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public long getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(long completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+
+    public void complete(String status) {
+        this.status = status;
+        this.completedAt = System.currentTimeMillis();
+    }
+}
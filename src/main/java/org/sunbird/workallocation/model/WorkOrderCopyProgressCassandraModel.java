@@ -0,0 +1,41 @@
+package org.sunbird.workallocation.model;
+
+import org.springframework.data.cassandra.core.mapping.Column;
+import org.springframework.data.cassandra.core.mapping.PrimaryKey;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+@Table("work_order_copy_progress")
+public class WorkOrderCopyProgressCassandraModel {
+
+    public WorkOrderCopyProgressCassandraModel(){
+        super();
+    }
+
+    public WorkOrderCopyProgressCassandraModel(String id, String data){
+        this.primaryKey = new WorkOrderCopyProgressPrimaryKeyModel();
+        this.primaryKey.setId(id);
+        this.data = data;
+    }
+
+    @PrimaryKey
+    private WorkOrderCopyProgressPrimaryKeyModel primaryKey;
+
+    @Column("data")
+    private String data;
+
+    public WorkOrderCopyProgressPrimaryKeyModel getPrimaryKey() {
+        return primaryKey;
+    }
+
+    public void setPrimaryKey(WorkOrderCopyProgressPrimaryKeyModel primaryKey) {
+        this.primaryKey = primaryKey;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public void setData(String data) {
+        this.data = data;
+    }
+}
@@ -21,6 +21,7 @@ public class WorkOrderDTO {
     private String updatedByName;
     private long updatedAt;
     private int progress;
+    private Integer progressTotal;
     private int errorCount;
     private int rolesCount;
     private int activitiesCount;
@@ -186,4 +187,12 @@ public class WorkOrderDTO {
     public void setCompetenciesCount(int competenciesCount) {
         this.competenciesCount = competenciesCount;
     }
+
+    public Integer getProgressTotal() {
+        return progressTotal;
+    }
+
+    public void setProgressTotal(Integer progressTotal) {
+        this.progressTotal = progressTotal;
+    }
 }
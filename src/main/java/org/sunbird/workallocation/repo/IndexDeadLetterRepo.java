@@ -0,0 +1,12 @@
+package org.sunbird.workallocation.repo;
+
+import org.springframework.data.cassandra.repository.CassandraRepository;
+import org.springframework.stereotype.Repository;
+import org.sunbird.workallocation.model.IndexDeadLetterCassandraModel;
+import org.sunbird.workallocation.model.IndexDeadLetterPrimaryKeyModel;
+
+@Repository
+public interface IndexDeadLetterRepo extends CassandraRepository<IndexDeadLetterCassandraModel, IndexDeadLetterPrimaryKeyModel>,
+        IndexDeadLetterRepoCustom {
+
+}
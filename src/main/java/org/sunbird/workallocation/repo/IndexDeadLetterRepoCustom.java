@@ -0,0 +1,12 @@
+package org.sunbird.workallocation.repo;
+
+public interface IndexDeadLetterRepoCustom {
+
+    /**
+     * Deletes the dead letter only if it still holds the given version, so a later failure of the same
+     * entity stored meanwhile is kept.
+     *
+     * @return false when the dead letter was replaced or deleted
+     */
+    boolean deleteIfVersion(String indexName, String entityId, long version);
+}
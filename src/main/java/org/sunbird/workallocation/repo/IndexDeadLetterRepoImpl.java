@@ -0,0 +1,18 @@
+package org.sunbird.workallocation.repo;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.cassandra.core.CassandraOperations;
+
+public class IndexDeadLetterRepoImpl implements IndexDeadLetterRepoCustom {
+
+    private static final String DELETE_IF_VERSION = "DELETE FROM work_allocation_index_dead_letter "
+            + "WHERE index_name = ? AND entity_id = ? IF version = ?";
+
+    @Autowired
+    CassandraOperations cassandraOperations;
+
+    @Override
+    public boolean deleteIfVersion(String indexName, String entityId, long version) {
+        return cassandraOperations.getCqlOperations().execute(DELETE_IF_VERSION, indexName, entityId, version);
+    }
+}
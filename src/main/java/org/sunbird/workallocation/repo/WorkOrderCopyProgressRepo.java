@@ -0,0 +1,11 @@
+package org.sunbird.workallocation.repo;
+
+import org.springframework.data.cassandra.repository.CassandraRepository;
+import org.springframework.stereotype.Repository;
+import org.sunbird.workallocation.model.WorkOrderCopyProgressCassandraModel;
+import org.sunbird.workallocation.model.WorkOrderCopyProgressPrimaryKeyModel;
+
+@Repository
+public interface WorkOrderCopyProgressRepo extends CassandraRepository<WorkOrderCopyProgressCassandraModel, WorkOrderCopyProgressPrimaryKeyModel> {
+
+}
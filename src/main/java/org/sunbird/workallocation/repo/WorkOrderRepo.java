@@ -6,6 +6,7 @@ import org.sunbird.workallocation.model.WorkOrderCassandraModel;
 import org.sunbird.workallocation.model.WorkOrderPrimaryKeyModel;
 
 @Repository
-public interface WorkOrderRepo extends CassandraRepository<WorkOrderCassandraModel, WorkOrderPrimaryKeyModel> {
+public interface WorkOrderRepo extends CassandraRepository<WorkOrderCassandraModel, WorkOrderPrimaryKeyModel>,
+        WorkOrderRepoCustom {
 
 }
\ No newline at end of file
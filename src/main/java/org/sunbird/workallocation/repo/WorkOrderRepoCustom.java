@@ -0,0 +1,16 @@
+package org.sunbird.workallocation.repo;
+
+public interface WorkOrderRepoCustom {
+
+    /**
+     * @return false when a work order with the id already exists
+     */
+    boolean insertIfNotExists(String id, String data);
+
+    /**
+     * Replaces the data of the work order only if it is still the given previous data.
+     *
+     * @return false when the work order was changed or deleted since previousData was read
+     */
+    boolean updateIfUnchanged(String id, String data, String previousData);
+}
@@ -0,0 +1,28 @@
+package org.sunbird.workallocation.repo;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.cassandra.core.CassandraOperations;
+
+/**
+ * Lightweight transactions on work_order. Every write to the table must go through these, since
+ * conditional and plain writes to the same row do not serialize with each other.
+ */
+public class WorkOrderRepoImpl implements WorkOrderRepoCustom {
+
+    private static final String INSERT_IF_NOT_EXISTS = "INSERT INTO work_order (id, data) VALUES (?, ?) IF NOT EXISTS";
+
+    private static final String UPDATE_IF_UNCHANGED = "UPDATE work_order SET data = ? WHERE id = ? IF data = ?";
+
+    @Autowired
+    CassandraOperations cassandraOperations;
+
+    @Override
+    public boolean insertIfNotExists(String id, String data) {
+        return cassandraOperations.getCqlOperations().execute(INSERT_IF_NOT_EXISTS, id, data);
+    }
+
+    @Override
+    public boolean updateIfUnchanged(String id, String data, String previousData) {
+        return cassandraOperations.getCqlOperations().execute(UPDATE_IF_UNCHANGED, data, id, previousData);
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.lucene.search.join.ScoreMode;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -247,7 +248,7 @@ public class AllocationService {
 		Map<String, Object> result = new HashMap<>();
 		final BoolQueryBuilder query = QueryBuilders.boolQuery();
 		query.must(QueryBuilders.termsQuery("id.keyword", userIds));
-		SearchSourceBuilder sourceBuilder = new SearchSourceBuilder().query(query);
+		SearchSourceBuilder sourceBuilder = new SearchSourceBuilder().query(query).size(userIds.size());
 		sourceBuilder.fetchSource(includeFields, new String[] {});
 		SearchResponse searchResponse = indexerService.getEsResult(configuration.getEsProfileIndex(),
 				configuration.getEsProfileIndexType(), sourceBuilder);
@@ -298,16 +299,49 @@ public class AllocationService {
 	public List<Map<String, Object>> getUserSearchData(String searchTerm) throws IOException {
 		if (StringUtils.isEmpty(searchTerm))
 			throw new BadRequestException("Search term should not be empty!");
-		List<Map<String, Object>> resultArray = new ArrayList<>();
-		Map<String, Object> result;
+		SearchSourceBuilder sourceBuilder = new SearchSourceBuilder().query(getUserSearchQuery(searchTerm));
+		return searchUsers(sourceBuilder);
+	}
+
+	/**
+	 * Search the given user's based on searchTerm, one page at a time
+	 *
+	 * @param searchTerm prefix of the name or email
+	 * @param userIds    user's to search within
+	 * @param from       offset of the page
+	 * @param size       size of the page
+	 * @return list of user's
+	 * @throws IOException
+	 */
+	public List<Map<String, Object>> getUserSearchData(String searchTerm, Collection<String> userIds, int from,
+			int size) throws IOException {
+		if (StringUtils.isEmpty(searchTerm))
+			throw new BadRequestException("Search term should not be empty!");
+		BoolQueryBuilder query = getUserSearchQuery(searchTerm).minimumShouldMatch(1)
+				.filter(QueryBuilders.termsQuery("id.keyword", userIds));
+		SearchSourceBuilder sourceBuilder = new SearchSourceBuilder().query(query).from(from).size(size)
+				.sort(SortBuilders.scoreSort()).sort(SortBuilders.fieldSort("id.keyword").order(SortOrder.ASC))
+				.timeout(TimeValue.timeValueMillis(configuration.getEsProfileSearchTimeout()));
+		return searchUsers(sourceBuilder);
+	}
+
+	private BoolQueryBuilder getUserSearchQuery(String searchTerm) {
 		final BoolQueryBuilder query = QueryBuilders.boolQuery();
 		query.should(QueryBuilders.matchPhrasePrefixQuery("personalDetails.primaryEmail", searchTerm))
 				.should(QueryBuilders.matchPhrasePrefixQuery("personalDetails.firstname", searchTerm))
 				.should(QueryBuilders.matchPhrasePrefixQuery("personalDetails.surname", searchTerm));
-		SearchSourceBuilder sourceBuilder = new SearchSourceBuilder().query(query);
+		return query;
+	}
+
+	private List<Map<String, Object>> searchUsers(SearchSourceBuilder sourceBuilder) throws IOException {
+		List<Map<String, Object>> resultArray = new ArrayList<>();
+		Map<String, Object> result;
 		sourceBuilder.fetchSource(includeFields, new String[] {});
 		SearchResponse searchResponse = indexerService.getEsResult(configuration.getEsProfileIndex(),
 				configuration.getEsProfileIndexType(), sourceBuilder);
+		if (searchResponse.isTimedOut()) {
+			logger.warn("User search timed out, returning partial results");
+		}
 		for (SearchHit hit : searchResponse.getHits()) {
 			result = extractUserDetails(hit.getSourceAsMap());
 			resultArray.add(result);
@@ -2,7 +2,6 @@ package org.sunbird.workallocation.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -13,6 +12,7 @@ import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.search.sort.SortOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.FileSystemResource;
@@ -27,21 +27,44 @@ import org.sunbird.common.util.Constants;
 import org.sunbird.core.exception.ApplicationLogicError;
 import org.sunbird.core.exception.BadRequestException;
 import org.sunbird.workallocation.model.*;
-import org.sunbird.workallocation.repo.WorkAllocationRepo;
-import org.sunbird.workallocation.repo.WorkOrderRepo;
 import org.sunbird.workallocation.util.Validator;
 import org.sunbird.workallocation.util.WorkAllocationConstants;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 @Service
 public class AllocationServiceV2 {
 
     public static final String RESULT = "result";
+    private static final String ROLES_COUNT = "rolesCount";
+    private static final String ACTIVITIES_COUNT = "activitiesCount";
+    private static final String COMPETENCIES_COUNT = "competenciesCount";
+    private static final String ERROR_COUNT = "errorCount";
+    private static final String PROGRESS_TOTAL = "progressTotal";
+    private static final String PROGRESS = "progress";
+    // Kept from the stored work order on update, they are maintained from its allocations
+    private static final String[] WORK_ORDER_DERIVED_FIELDS = { "userIds", "progress", "progressTotal", "errorCount",
+            "rolesCount", "activitiesCount", "competenciesCount", "updatedAt" };
+
     @Autowired
     private IndexerService indexerService;
 
+    @Autowired
+    private BulkIndexingService bulkIndexingService;
+
+    @Autowired
+    private WorkAllocationStoreService workAllocationStoreService;
+
     @Autowired
     private Validator validator;
 
@@ -63,12 +86,6 @@ public class AllocationServiceV2 {
     @Autowired
     private CbExtServerProperties cbExtServerProperties;
 
-    @Autowired
-    private WorkAllocationRepo workAllocationRepo;
-
-    @Autowired
-    private WorkOrderRepo workOrderRepo;
-
     @Value("${workorder.index.name}")
     public String workOrderIndex;
 
@@ -86,6 +103,37 @@ public class AllocationServiceV2 {
 
     private Logger logger = LoggerFactory.getLogger(AllocationServiceV2.class);
 
+    // Runs the background copies, bounded so that a burst of copies is rejected instead of piling up
+    private ThreadPoolExecutor copyExecutor;
+
+    /**
+     * Registers how to read the documents of both indexes back from Cassandra, for requests the index
+     * rejects as older than what it holds.
+     */
+    @PostConstruct
+    public void init() {
+        copyExecutor = new ThreadPoolExecutor(cbExtServerProperties.getWorkOrderCopyPoolSize(),
+                cbExtServerProperties.getWorkOrderCopyPoolSize(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, cbExtServerProperties.getWorkOrderCopyQueueSize())), runnable -> {
+                    Thread thread = new Thread(runnable, "work-order-copier");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        bulkIndexingService.registerReloader(workOrderIndex, workOrderId -> {
+            WorkOrderDTO workOrder = workAllocationStoreService.loadWorkOrder(workOrderId);
+            if (workOrder != null) {
+                bulkIndexingService.reindex(workOrderIndex, workOrderIndexType, workOrderId, workOrder, workOrder.getUpdatedAt());
+            }
+        });
+        bulkIndexingService.registerReloader(workAllocationIndex, workAllocationId -> {
+            WorkAllocationDTOV2 workAllocation = workAllocationStoreService.loadWorkAllocation(workAllocationId);
+            if (workAllocation != null) {
+                bulkIndexingService.reindex(workAllocationIndex, workAllocationIndexType, workAllocationId, workAllocation,
+                        workAllocation.getUpdatedAt());
+            }
+        });
+    }
+
     /**
      *
      * @param userId user Id of the user
@@ -97,10 +145,7 @@ public class AllocationServiceV2 {
         enrichmentService.enrichWorkOrder(workOrder, userId, WorkAllocationConstants.ADD);
         RestStatus restStatus = null;
         try {
-            WorkOrderCassandraModel workOrderCassandraModel = new WorkOrderCassandraModel(workOrder.getId(), mapper.writeValueAsString(workOrder));
-            workOrderRepo.save(workOrderCassandraModel);
-            restStatus = indexerService.addEntity(workOrderIndex, workOrderIndexType, workOrder.getId(),
-                    mapper.convertValue(workOrder, Map.class));
+            restStatus = createWorkOrder(workOrder);
         }catch (Exception ex){
             logger.error("Exception occurred while creating the work order", ex);
             throw new ApplicationLogicError("Exception occurred while creating the work order", ex);
@@ -128,23 +173,29 @@ public class AllocationServiceV2 {
         validator.validateWorkOrder(workOrder, WorkAllocationConstants.UPDATE);
         enrichmentService.enrichWorkOrder(workOrder, userId, WorkAllocationConstants.UPDATE);
         RestStatus restStatus = null;
+        WorkOrderDTO savedWorkOrder;
         try {
-            WorkOrderCassandraModel workOrderCassandraModel = new WorkOrderCassandraModel(workOrder.getId(), mapper.writeValueAsString(workOrder));
-            workOrderRepo.save(workOrderCassandraModel);
-            restStatus = indexerService.updateEntity(workOrderIndex, workOrderIndexType, workOrder.getId(),
-                    mapper.convertValue(workOrder, Map.class));
-            String publishedPdfLink = uploadPdfToContentService(workOrder, xAuthUser);
-            if (!StringUtils.isEmpty(publishedPdfLink)) {
-                workOrder.setPublishedPdfLink(publishedPdfLink);
-                workOrderCassandraModel = new WorkOrderCassandraModel(workOrder.getId(), mapper.writeValueAsString(workOrder));
-                workOrderRepo.save(workOrderCassandraModel);
-                indexerService.updateEntity(workOrderIndex, workOrderIndexType, workOrder.getId(),
-                        mapper.convertValue(workOrder, Map.class));
+            savedWorkOrder = updateWorkOrder(workOrder.getId(), storedWorkOrder -> {
+                BeanUtils.copyProperties(workOrder, storedWorkOrder, WORK_ORDER_DERIVED_FIELDS);
+                return true;
+            });
+            if (savedWorkOrder != null) {
+                restStatus = RestStatus.OK;
+                String publishedPdfLink = uploadPdfToContentService(savedWorkOrder, xAuthUser);
+                if (!StringUtils.isEmpty(publishedPdfLink)) {
+                    updateWorkOrder(workOrder.getId(), storedWorkOrder -> {
+                        storedWorkOrder.setPublishedPdfLink(publishedPdfLink);
+                        return true;
+                    });
+                }
             }
         } catch (Exception ex) {
             logger.error("Exception occurred while updating the work order", ex);
             throw new ApplicationLogicError("Exception occurred while updating the work order", ex);
         }
+        if (savedWorkOrder == null) {
+            throw new BadRequestException("No work order found on given Id!");
+        }
         Response response = new Response();
         if (!ObjectUtils.isEmpty(restStatus)) {
             response.put(Constants.MESSAGE, Constants.SUCCESSFUL);
@@ -178,21 +229,10 @@ public class AllocationServiceV2 {
             workAllocationDTO.setPositionId(allocationService.createUserPosition(authUserToken, workAllocationDTO.getUserPosition()));
         }
         try {
-            WorkAllocationCassandraModel workAllocationCassandraModel = new WorkAllocationCassandraModel(workAllocationDTO.getId(), mapper.writeValueAsString(workAllocationDTO));
-            workAllocationRepo.save(workAllocationCassandraModel);
-            restStatus = indexerService.addEntity(workAllocationIndex, workAllocationIndexType, workAllocationDTO.getId(),
-                    mapper.convertValue(workAllocationDTO, Map.class));
-            Map<String, Object> workOrderObject = indexerService.readEntity(workOrderIndex, workOrderIndexType, workAllocationDTO.getWorkOrderId());
-            WorkOrderDTO workOrder = mapper.convertValue(workOrderObject, WorkOrderDTO.class);
-            if (CollectionUtils.isEmpty(workOrder.getUserIds())) {
-                workOrder.setUserIds(new ArrayList<>());
-            }
-            workOrder.addUserId(workAllocationDTO.getId());
-            updateWorkOderCount(workOrder);
-            enrichmentService.enrichWorkOrder(workOrder, userId, WorkAllocationConstants.UPDATE);
-            WorkOrderCassandraModel  workOrderCassandraModel = new WorkOrderCassandraModel(workOrder.getId(), mapper.writeValueAsString(workOrder));
-            workOrderRepo.save(workOrderCassandraModel);
-            indexerService.updateEntity(workOrderIndex, workOrderIndexType, workOrder.getId(), mapper.convertValue(workOrder, Map.class));
+            workAllocationStoreService.saveWorkAllocation(workAllocationDTO);
+            indexWorkAllocation(workAllocationDTO);
+            restStatus = RestStatus.CREATED;
+            updateWorkOrderWithAllocation(null, workAllocationDTO);
         }catch (Exception ex){
             logger.error("Exception occurred while saving the work allocation!!", ex);
             throw new ApplicationLogicError("Exception occurred while saving the work allocation!!", ex);
@@ -229,21 +269,14 @@ public class AllocationServiceV2 {
             workAllocationDTO.setPositionId(allocationService.createUserPosition(authUserToken, workAllocationDTO.getUserPosition()));
         }
         try {
-            WorkAllocationCassandraModel workAllocationCassandraModel = new WorkAllocationCassandraModel(workAllocationDTO.getId(), mapper.writeValueAsString(workAllocationDTO));
-            workAllocationRepo.save(workAllocationCassandraModel);
-            restStatus = indexerService.updateEntity(workAllocationIndex, workAllocationIndexType, workAllocationDTO.getId(),
-                    mapper.convertValue(workAllocationDTO, Map.class));
-            Map<String, Object> workOrderObject = indexerService.readEntity(workOrderIndex, workOrderIndexType, workAllocationDTO.getWorkOrderId());
-            WorkOrderDTO workOrder = mapper.convertValue(workOrderObject, WorkOrderDTO.class);
-            if (CollectionUtils.isEmpty(workOrder.getUserIds())) {
-                workOrder.setUserIds(new ArrayList<>());
+            WorkAllocationDTOV2 oldWorkAllocation = workAllocationStoreService.loadWorkAllocation(workAllocationDTO.getId());
+            if (oldWorkAllocation != null) {
+                workAllocationDTO.setUpdatedAt(WorkAllocationStoreService.nextVersion(oldWorkAllocation.getUpdatedAt()));
             }
-            workOrder.addUserId(workAllocationDTO.getId());
-            updateWorkOderCount(workOrder);
-            enrichmentService.enrichWorkOrder(workOrder, userId, WorkAllocationConstants.UPDATE);
-            WorkOrderCassandraModel  workOrderCassandraModel = new WorkOrderCassandraModel(workOrder.getId(), mapper.writeValueAsString(workOrder));
-            workOrderRepo.save(workOrderCassandraModel);
-            indexerService.updateEntity(workOrderIndex, workOrderIndexType, workOrder.getId(), mapper.convertValue(workOrder, Map.class));
+            workAllocationStoreService.saveWorkAllocation(workAllocationDTO);
+            indexWorkAllocation(workAllocationDTO);
+            restStatus = RestStatus.OK;
+            updateWorkOrderWithAllocation(oldWorkAllocation, workAllocationDTO);
         }catch (Exception ex){
             logger.error("Exception occurred while saving the work allocation!!", ex);
             throw new ApplicationLogicError("Exception occurred while saving the work allocation!!", ex);
@@ -370,9 +403,13 @@ public class AllocationServiceV2 {
 
     public Map<String, Object> getWorkOrderObject(String workOrderId)
     {
-        Map<String, Object> workOrderObject = indexerService.readEntity(workOrderIndex, workOrderIndexType, workOrderId);
-        if (!CollectionUtils.isEmpty((Collection<?>) workOrderObject.get("userIds"))) {
-            List<WorkAllocationDTOV2> workAllocationDTOV2List =  getWorkAllocationListByIds((List<String>)workOrderObject.get("userIds"));
+        WorkOrderDTO workOrder = workAllocationStoreService.getWorkOrder(workOrderId);
+        if (workOrder == null) {
+            throw new BadRequestException("No work order found on given Id!");
+        }
+        Map<String, Object> workOrderObject = mapper.convertValue(workOrder, Map.class);
+        if (!CollectionUtils.isEmpty(workOrder.getUserIds())) {
+            List<WorkAllocationDTOV2> workAllocationDTOV2List = workAllocationStoreService.getWorkAllocations(workOrder.getUserIds());
             workOrderObject.put("users", workAllocationDTOV2List);
         } else {
             workOrderObject.put("users", new ArrayList<>());
@@ -381,7 +418,7 @@ public class AllocationServiceV2 {
     }
 
     public Response getWorkAllocationById(String workAllocationId){
-        Map<String, Object> workAllocationObject = indexerService.readEntity(workAllocationIndex, workAllocationIndexType, workAllocationId);
+        Map<String, Object> workAllocationObject = mapper.convertValue(workAllocationStoreService.getWorkAllocation(workAllocationId), Map.class);
         Response response = new Response();
         response.put(Constants.MESSAGE, Constants.SUCCESSFUL);
         response.put(Constants.DATA, workAllocationObject);
@@ -396,36 +433,22 @@ public class AllocationServiceV2 {
         return indexerService.getEsResult(workAllocationIndex, workAllocationIndexType, sourceBuilder);
     }
 
-    private List<WorkAllocationDTOV2> getWorkAllocationListByIds(List<String> workAllocationIds){
-        List<WorkAllocationDTOV2> workAllocationDTOV2List = new ArrayList<>();
-        if (!CollectionUtils.isEmpty(workAllocationIds)) {
-            workAllocationIds.forEach(id -> {
-                try {
-                    WorkAllocationDTOV2 workAllocationDTOV2 = mapper.convertValue(indexerService.readEntity(workAllocationIndex, workAllocationIndexType, id), WorkAllocationDTOV2.class);
-                    workAllocationDTOV2List.add(workAllocationDTOV2);
-                } catch (Exception ex) {
-                    logger.error("Exception occurred while reading the work allocation for id, {}", id);
-                }
-            });
-        }
-        return workAllocationDTOV2List;
-    }
-
     /**
+     * Validates the work order and copies it. A work order with up to workorder.copy.async.threshold
+     * allocations is copied before returning; a larger one is copied in the background.
      *
      * @param userId user Id of the user
      * @param workOrderDTO work order object
-     * @return response message as success of failed
+     * @return the id of the new work order, and for a background copy the copy id to read its progress with
      */
     public Response copyWorkOrder(String userId, WorkOrderDTO workOrderDTO) {
         if(StringUtils.isEmpty(workOrderDTO.getId())){
             throw new BadRequestException("Work Order Id should not be empty!");
         }
-        Map<String, Object> workOrderObject = indexerService.readEntity(workOrderIndex, workOrderIndexType, workOrderDTO.getId());
-        if(ObjectUtils.isEmpty(workOrderObject)){
+        WorkOrderDTO workOrder = workAllocationStoreService.getWorkOrder(workOrderDTO.getId());
+        if(ObjectUtils.isEmpty(workOrder)){
             throw new BadRequestException("No work order found on given Id!");
         }
-        WorkOrderDTO workOrder = mapper.convertValue(workOrderObject, WorkOrderDTO.class);
         if(!WorkAllocationConstants.PUBLISHED_STATUS.equals(workOrder.getStatus())){
             throw new BadRequestException("Can not copy the work order, work order is not in published status!");
         }
@@ -435,63 +458,168 @@ public class AllocationServiceV2 {
         }
         enrichmentService.enrichCopyWorkOrder(workOrder, userId);
         ArrayList<String> workAllocationIds = new ArrayList<>();
-        List<IndexRequest> indexRequestList = new ArrayList<>();
-        List<WorkAllocationCassandraModel> cassandraModelList = new ArrayList<>();
-        prepareWorkAllocations(userId, workOrder, workAllocationIds, indexRequestList, cassandraModelList);
-        RestStatus restStatus = null;
-        if(!CollectionUtils.isEmpty(indexRequestList)){
-            workAllocationRepo.saveAll(cassandraModelList);
-            indexerService.BulkInsert(indexRequestList);
-        }
+        List<WorkAllocationDTOV2> workAllocationList = new ArrayList<>();
+        prepareWorkAllocations(userId, workOrder, workAllocationIds, workAllocationList);
         workOrder.setUserIds(workAllocationIds);
-        WorkOrderCassandraModel workOrderCassandraModel = null;
-        try {
-            workOrderCassandraModel = new WorkOrderCassandraModel(workOrder.getId(), mapper.writeValueAsString(workOrder));
-            workOrderRepo.save(workOrderCassandraModel);
-            restStatus = indexerService.addEntity(workOrderIndex, workOrderIndexType, workOrder.getId(),
-                    mapper.convertValue(workOrder, Map.class));
-        } catch (JsonProcessingException e) {
-            logger.error("Exception occurred while saving the work order!!", e);
-            throw new ApplicationLogicError("Exception occurred while saving the work order!!", e);
-        }
         Response response = new Response();
-        if (!ObjectUtils.isEmpty(restStatus)) {
-            response.put(Constants.MESSAGE, Constants.SUCCESSFUL);
-        } else {
-            response.put(Constants.MESSAGE, Constants.FAILED);
-        }
+        response.put(Constants.MESSAGE, Constants.SUCCESSFUL);
         HashMap<String, Object> data = new HashMap<>();
         data.put("id", workOrder.getId());
         response.put(Constants.DATA, data);
-        response.put(Constants.STATUS, HttpStatus.OK);
+        if (workAllocationList.size() <= cbExtServerProperties.getWorkOrderCopyAsyncThreshold()) {
+            WorkOrderCopyProgress progress = new WorkOrderCopyProgress(null, workOrderDTO.getId(), workOrder.getId(),
+                    workAllocationList.size());
+            copyWorkOrder(workOrder, workAllocationList, progress);
+            if (WorkOrderCopyProgress.FAILED.equals(progress.getStatus())) {
+                throw new ApplicationLogicError("Exception occurred while copying the work order! " + progress.getErrors());
+            }
+            response.put(Constants.STATUS, HttpStatus.OK);
+            return response;
+        }
+        WorkOrderCopyProgress progress = new WorkOrderCopyProgress(UUID.randomUUID().toString(), workOrderDTO.getId(),
+                workOrder.getId(), workAllocationList.size());
+        try {
+            workAllocationStoreService.saveCopyProgress(progress);
+        } catch (JsonProcessingException e) {
+            logger.error("Exception occurred while saving the copy progress!", e);
+            throw new ApplicationLogicError("Exception occurred while saving the copy progress!", e);
+        }
+        try {
+            copyExecutor.execute(() -> copyWorkOrder(workOrder, workAllocationList, progress));
+        } catch (RejectedExecutionException e) {
+            logger.error("Rejected the copy of work order {}, too many copies are running", workOrderDTO.getId());
+            synchronized (progress) {
+                progress.getErrors().add("Too many work orders are being copied");
+            }
+            completeCopy(progress, WorkOrderCopyProgress.FAILED);
+            throw new ApplicationLogicError("Too many work orders are being copied, please try again later!");
+        }
+        data.put("copyId", progress.getCopyId());
+        response.put(Constants.STATUS, HttpStatus.ACCEPTED);
         return response;
     }
 
-    private void prepareWorkAllocations(String userId, WorkOrderDTO workOrder, ArrayList<String> workAllocationIds,
-                                        List<IndexRequest> indexRequestList, List<WorkAllocationCassandraModel> cassandraModelList) {
+    /**
+     * Saves the copied allocations, then the work order, and only then queues the allocations for
+     * indexing, so nothing of a failed copy is indexed. When the copy fails, the allocations it saved
+     * are deleted.
+     */
+    private void copyWorkOrder(WorkOrderDTO workOrder, List<WorkAllocationDTOV2> workAllocationList,
+                               WorkOrderCopyProgress progress) {
         try {
-            if (!CollectionUtils.isEmpty(workOrder.getUserIds())) {
-                for (String id : workOrder.getUserIds()) {
-                    WorkAllocationDTOV2 workAllocationDTO = mapper.convertValue(indexerService.readEntity(workAllocationIndex, workOrderIndexType, id), WorkAllocationDTOV2.class);
-                    if (!ObjectUtils.isEmpty(workAllocationDTO)) {
-                        workAllocationDTO.setCreatedBy(null);
-                        enrichmentService.enrichWorkAllocation(workAllocationDTO, userId);
-                        workAllocationDTO.setId(UUID.randomUUID().toString());
-                        workAllocationDTO.setWorkOrderId(workOrder.getId());
-                        workAllocationIds.add(workAllocationDTO.getId());
-                        WorkAllocationCassandraModel workAllocationCassandraModel = null;
-                        workAllocationCassandraModel = new WorkAllocationCassandraModel(workAllocationDTO.getId(), mapper.writeValueAsString(workAllocationDTO));
-                        cassandraModelList.add(workAllocationCassandraModel);
-                        IndexRequest indexRequest = new IndexRequest(workAllocationIndex, workAllocationIndexType, workAllocationDTO.getId()).
-                                source(mapper.convertValue(workAllocationDTO, Map.class));
-                        indexRequestList.add(indexRequest);
+            if (copyWorkAllocations(workAllocationList, progress)) {
+                createWorkOrder(workOrder);
+                workAllocationList.forEach(this::indexWorkAllocation);
+                completeCopy(progress, WorkOrderCopyProgress.COMPLETED);
+                return;
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.error("Exception occurred while copying the work order {}", progress.getSourceWorkOrderId(), e);
+            synchronized (progress) {
+                progress.getErrors().add("The work order was not saved: " + e.getMessage());
+            }
+        }
+        List<String> workAllocationIds = new ArrayList<>();
+        workAllocationList.forEach(workAllocationDTO -> workAllocationIds.add(workAllocationDTO.getId()));
+        try {
+            workAllocationStoreService.deleteWorkAllocations(workAllocationIds);
+        } catch (RuntimeException e) {
+            logger.error("Exception occurred while deleting the work allocations of the failed copy {}",
+                    progress.getCopyId(), e);
+            synchronized (progress) {
+                progress.getErrors().add("The copied work allocations were not deleted: " + e.getMessage());
+            }
+        }
+        completeCopy(progress, WorkOrderCopyProgress.FAILED);
+    }
+
+    private void prepareWorkAllocations(String userId, WorkOrderDTO workOrder, ArrayList<String> workAllocationIds,
+                                        List<WorkAllocationDTOV2> workAllocationList) {
+        if (!CollectionUtils.isEmpty(workOrder.getUserIds())) {
+            for (WorkAllocationDTOV2 workAllocationDTO : workAllocationStoreService.getWorkAllocations(workOrder.getUserIds())) {
+                workAllocationDTO.setCreatedBy(null);
+                workAllocationDTO.setId(UUID.randomUUID().toString());
+                workAllocationDTO.setWorkOrderId(workOrder.getId());
+                workAllocationIds.add(workAllocationDTO.getId());
+                workAllocationList.add(workAllocationDTO);
+            }
+            enrichmentService.enrichWorkAllocations(workAllocationList, userId);
+        }
+    }
+
+    /**
+     * Saves the copied allocations in chunks written in parallel, recording the progress, or the error, of
+     * each chunk.
+     *
+     * @return true when all the chunks were saved
+     */
+    private boolean copyWorkAllocations(List<WorkAllocationDTOV2> workAllocationList, WorkOrderCopyProgress progress) {
+        int chunkSize = Math.max(1, cbExtServerProperties.getWorkOrderCopyChunkSize());
+        List<CompletableFuture<Boolean>> writes = new ArrayList<>();
+        for (int i = 0; i < workAllocationList.size(); i += chunkSize) {
+            int from = i;
+            List<WorkAllocationDTOV2> chunk = workAllocationList.subList(i, Math.min(i + chunkSize, workAllocationList.size()));
+            writes.add(workAllocationStoreService.saveWorkAllocationsAsync(chunk).handle((result, e) -> {
+                synchronized (progress) {
+                    if (e == null) {
+                        progress.setCopied(progress.getCopied() + chunk.size());
+                        logger.info("Copied {}/{} work allocations of work order {}", progress.getCopied(),
+                                progress.getTotal(), progress.getSourceWorkOrderId());
+                    } else {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        logger.error("Exception occurred while saving the copy work allocations!", cause);
+                        progress.getErrors().add("Work allocations " + (from + 1) + " to " + (from + chunk.size())
+                                + " were not saved: " + cause.getMessage());
                     }
+                    updateCopyProgress(progress);
                 }
-            }
-        } catch (JsonProcessingException e) {
-            logger.error("Exception occurred while preparing the copy work allocation!", e);
-            throw new ApplicationLogicError("Exception occurred while preparing the copy work allocation!", e);
+                return e == null;
+            }));
+        }
+        boolean copied = true;
+        for (CompletableFuture<Boolean> write : writes) {
+            copied &= write.join();
+        }
+        return copied;
+    }
+
+    private void completeCopy(WorkOrderCopyProgress progress, String status) {
+        synchronized (progress) {
+            progress.complete(status);
+            updateCopyProgress(progress);
+        }
+    }
+
+    /**
+     * Saves the progress of a running background copy, a failure is only logged since it does not affect
+     * the copy. The progress of a copy made before returning has no copy id and is not saved.
+     */
+    private void updateCopyProgress(WorkOrderCopyProgress progress) {
+        if (progress.getCopyId() == null) {
+            return;
+        }
+        try {
+            workAllocationStoreService.saveCopyProgress(progress);
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.error("Exception occurred while saving the progress of the copy {}", progress.getCopyId(), e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        copyExecutor.shutdown();
+    }
+
+    public Response getCopyWorkOrderProgress(String copyId) {
+        WorkOrderCopyProgress progress = workAllocationStoreService.getCopyProgress(copyId);
+        if (progress == null) {
+            throw new BadRequestException("No copy found for the given copy Id!");
         }
+        Response response = new Response();
+        response.put(Constants.MESSAGE, Constants.SUCCESSFUL);
+        response.put(Constants.DATA, progress);
+        response.put(Constants.STATUS, HttpStatus.OK);
+        return response;
     }
 
     public Response getUserBasicDetails(String userId) throws IOException {
@@ -504,14 +632,119 @@ public class AllocationServiceV2 {
         return response;
     }
 
-    private void updateWorkOderCount(WorkOrderDTO workOrderDTO) {
+    /**
+     * Adds the allocation to its work order and applies the change in its share of the work order counts,
+     * so the other allocations need not be read again.
+     */
+    private void updateWorkOrderWithAllocation(WorkAllocationDTOV2 oldWorkAllocation, WorkAllocationDTOV2 workAllocationDTO)
+            throws JsonProcessingException {
+        WorkOrderDTO savedWorkOrder = updateWorkOrder(workAllocationDTO.getWorkOrderId(), workOrder -> {
+            if (CollectionUtils.isEmpty(workOrder.getUserIds())) {
+                workOrder.setUserIds(new ArrayList<>());
+            }
+            if (workOrder.getProgressTotal() == null) {
+                workOrder.setProgressTotal(workOrder.getProgress() * workOrder.getUserIds().size());
+            }
+            boolean isNew = !workOrder.getUserIds().contains(workAllocationDTO.getId());
+            Map<String, Integer> oldCounts = getWorkAllocationCounts(isNew || oldWorkAllocation == null
+                    || !workAllocationDTO.getWorkOrderId().equals(oldWorkAllocation.getWorkOrderId()) ? null : oldWorkAllocation);
+            Map<String, Integer> counts = getWorkOrderCounts(workOrder);
+            getWorkAllocationCounts(workAllocationDTO).forEach((key, value) -> counts.merge(key, value - oldCounts.get(key), Integer::sum));
+            workOrder.addUserId(workAllocationDTO.getId());
+            counts.put(PROGRESS, counts.get(PROGRESS_TOTAL) / workOrder.getUserIds().size());
+            setWorkOrderCounts(workOrder, counts);
+            workOrder.setUpdatedBy(workAllocationDTO.getUpdatedBy());
+            workOrder.setUpdatedByName(workAllocationDTO.getUpdatedByName());
+            return true;
+        });
+        if (savedWorkOrder == null) {
+            throw new ApplicationLogicError("No work order found for id " + workAllocationDTO.getWorkOrderId());
+        }
+    }
+
+    /**
+     * Recomputes the counts of the work order from all of its allocations and saves them if they drifted.
+     *
+     * @return true when the counts were corrected
+     */
+    boolean reconcileWorkOrderCounts(String workOrderId) {
+        Map<String, Map<String, Integer>> drift = new HashMap<>();
+        try {
+            updateWorkOrder(workOrderId, workOrder -> {
+                drift.clear();
+                Map<String, Integer> counts = getWorkOrderCounts(workOrder);
+                updateWorkOderCount(workOrder, workAllocationStoreService.loadWorkAllocations(workOrder.getUserIds()));
+                Map<String, Integer> reconciledCounts = getWorkOrderCounts(workOrder);
+                if (reconciledCounts.equals(counts)) {
+                    return false;
+                }
+                drift.put("from", counts);
+                drift.put("to", reconciledCounts);
+                return true;
+            });
+        } catch (JsonProcessingException e) {
+            throw new ApplicationLogicError("Exception occurred while reconciling the counts of work order " + workOrderId, e);
+        }
+        if (drift.isEmpty()) {
+            return false;
+        }
+        logger.info("Reconciled the counts of work order {} from {} to {}", workOrderId, drift.get("from"), drift.get("to"));
+        return true;
+    }
+
+    /**
+     * Saves the new work order to Cassandra and queues it to be indexed.
+     */
+    private RestStatus createWorkOrder(WorkOrderDTO workOrder) throws JsonProcessingException {
+        workAllocationStoreService.createWorkOrder(workOrder);
+        bulkIndexingService.index(workOrderIndex, workOrderIndexType, workOrder.getId(), workOrder, workOrder.getUpdatedAt());
+        return RestStatus.CREATED;
+    }
+
+    /**
+     * Changes the work order in Cassandra, see {@link WorkAllocationStoreService#updateWorkOrder}, and queues
+     * the saved version to be indexed.
+     *
+     * @return the work order as saved, or null when there is none with the id
+     */
+    private WorkOrderDTO updateWorkOrder(String workOrderId, Predicate<WorkOrderDTO> change) throws JsonProcessingException {
+        boolean[] changed = { false };
+        WorkOrderDTO workOrder = workAllocationStoreService.updateWorkOrder(workOrderId, storedWorkOrder -> {
+            changed[0] = change.test(storedWorkOrder);
+            return changed[0];
+        });
+        if (workOrder != null && changed[0]) {
+            bulkIndexingService.index(workOrderIndex, workOrderIndexType, workOrderId, workOrder, workOrder.getUpdatedAt());
+        }
+        return workOrder;
+    }
+
+    /**
+     * Queues the saved work allocation to be indexed.
+     */
+    private void indexWorkAllocation(WorkAllocationDTOV2 workAllocationDTO) {
+        bulkIndexingService.index(workAllocationIndex, workAllocationIndexType, workAllocationDTO.getId(), workAllocationDTO,
+                workAllocationDTO.getUpdatedAt());
+    }
+
+    private void updateWorkOderCount(WorkOrderDTO workOrderDTO, List<WorkAllocationDTOV2> workAllocationList) {
+        Map<String, Integer> counts = getWorkAllocationCounts(null);
+        for (WorkAllocationDTOV2 workAllocationDTOV2 : workAllocationList) {
+            getWorkAllocationCounts(workAllocationDTOV2).forEach((key, value) -> counts.merge(key, value, Integer::sum));
+        }
+        counts.put(PROGRESS, CollectionUtils.isEmpty(workAllocationList) ? 0 : counts.get(PROGRESS_TOTAL) / workAllocationList.size());
+        setWorkOrderCounts(workOrderDTO, counts);
+    }
+
+    /**
+     * @return share of the allocation in the work order counts, all zero for no allocation
+     */
+    private Map<String, Integer> getWorkAllocationCounts(WorkAllocationDTOV2 workAllocationDTOV2) {
         int rolesCount = 0;
         int activitiesCount = 0;
         int competenciesCount = 0;
-        int errorCount = 0;
-        int progress = 0;
-        List<WorkAllocationDTOV2> workAllocationList =  getWorkAllocationListByIds(workOrderDTO.getUserIds());
-        for (WorkAllocationDTOV2 workAllocationDTOV2 : workAllocationList) {
+        Map<String, Integer> counts = new HashMap<>();
+        if (workAllocationDTOV2 != null) {
             if (!CollectionUtils.isEmpty(workAllocationDTOV2.getRoleCompetencyList())) {
                 rolesCount = rolesCount + workAllocationDTOV2.getRoleCompetencyList().size();
                 for (RoleCompetency roleCompetency : workAllocationDTOV2.getRoleCompetencyList()) {
@@ -527,17 +760,33 @@ public class AllocationServiceV2 {
             if (!CollectionUtils.isEmpty(workAllocationDTOV2.getUnmappedCompetencies())) {
                 competenciesCount = competenciesCount + workAllocationDTOV2.getUnmappedCompetencies().size();
             }
-            errorCount = errorCount + workAllocationDTOV2.getErrorCount();
-            progress = progress + workAllocationDTOV2.getProgress();
-        }
-        if (!CollectionUtils.isEmpty(workAllocationList)) {
-            progress = progress / workAllocationList.size();
         }
-        workOrderDTO.setRolesCount(rolesCount);
-        workOrderDTO.setActivitiesCount(activitiesCount);
-        workOrderDTO.setCompetenciesCount(competenciesCount);
-        workOrderDTO.setErrorCount(errorCount);
-        workOrderDTO.setProgress(progress);
+        counts.put(ROLES_COUNT, rolesCount);
+        counts.put(ACTIVITIES_COUNT, activitiesCount);
+        counts.put(COMPETENCIES_COUNT, competenciesCount);
+        counts.put(ERROR_COUNT, workAllocationDTOV2 == null ? 0 : workAllocationDTOV2.getErrorCount());
+        counts.put(PROGRESS_TOTAL, workAllocationDTOV2 == null ? 0 : workAllocationDTOV2.getProgress());
+        return counts;
+    }
+
+    private Map<String, Integer> getWorkOrderCounts(WorkOrderDTO workOrderDTO) {
+        Map<String, Integer> counts = new HashMap<>();
+        counts.put(ROLES_COUNT, workOrderDTO.getRolesCount());
+        counts.put(ACTIVITIES_COUNT, workOrderDTO.getActivitiesCount());
+        counts.put(COMPETENCIES_COUNT, workOrderDTO.getCompetenciesCount());
+        counts.put(ERROR_COUNT, workOrderDTO.getErrorCount());
+        counts.put(PROGRESS_TOTAL, workOrderDTO.getProgressTotal());
+        counts.put(PROGRESS, workOrderDTO.getProgress());
+        return counts;
+    }
+
+    private void setWorkOrderCounts(WorkOrderDTO workOrderDTO, Map<String, Integer> counts) {
+        workOrderDTO.setRolesCount(counts.get(ROLES_COUNT));
+        workOrderDTO.setActivitiesCount(counts.get(ACTIVITIES_COUNT));
+        workOrderDTO.setCompetenciesCount(counts.get(COMPETENCIES_COUNT));
+        workOrderDTO.setErrorCount(counts.get(ERROR_COUNT));
+        workOrderDTO.setProgressTotal(counts.get(PROGRESS_TOTAL));
+        workOrderDTO.setProgress(counts.get(PROGRESS));
     }
 
     private String uploadPdfToContentService(WorkOrderDTO workOrderDTO, String xAuthUser) {
@@ -0,0 +1,369 @@
+package org.sunbird.workallocation.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.sunbird.common.service.AdvisoryLockService;
+import org.sunbird.common.util.CbExtServerProperties;
+import org.sunbird.workallocation.model.IndexDeadLetterCassandraModel;
+import org.sunbird.workallocation.repo.IndexDeadLetterRepo;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Indexes documents to Elasticsearch in the background, after they are saved to Cassandra. Requests are
+ * batched by a BulkProcessor and indexed with their updatedAt as an external version, so a late or retried
+ * request never overwrites a newer document. A request the index rejects as older than what it holds is
+ * followed by the document read back from Cassandra, through the reloader registered for its index. At
+ * most es.indexing.queue.capacity requests are pending; callers wait for room up to
+ * es.indexing.queue.offer.timeout.ms. Failed requests are retried here with exponential backoff, the
+ * BulkProcessor itself does not retry, and then kept in the dead letter table. One node at a time replays
+ * the dead letters periodically, a page at a time, and deletes each once it is indexed. Cassandra reads
+ * and writes never run on the Elasticsearch client threads.
+ */
+@Service
+public class BulkIndexingService {
+
+    private static final long ADVISORY_LOCK_KEY = 4_820_190_603L;
+    private static final int DEAD_LETTER_PAGE_SIZE = 100;
+
+    private Logger logger = LoggerFactory.getLogger(BulkIndexingService.class);
+
+    @Autowired
+    private RestHighLevelClient esClient;
+
+    @Autowired
+    private IndexDeadLetterRepo indexDeadLetterRepo;
+
+    @Autowired
+    private AdvisoryLockService advisoryLockService;
+
+    @Autowired
+    private CbExtServerProperties cbExtServerProperties;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    private BulkProcessor bulkProcessor;
+
+    private Semaphore pendingRequests;
+
+    private final Map<String, Consumer<String>> reloaders = new ConcurrentHashMap<>();
+
+    private final Map<DocWriteRequest<?>, Integer> attempts = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    // Requests of documents read back after a conflict
+    private final Set<DocWriteRequest<?>> reloads = Collections.newSetFromMap(Collections.synchronizedMap(new IdentityHashMap<>()));
+
+    // Requests replaying a dead letter, with the version of the dead letter
+    private final Map<DocWriteRequest<?>, Long> replays = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private final AtomicLong indexed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong reloaded = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        pendingRequests = new Semaphore(cbExtServerProperties.getEsIndexingQueueCapacity());
+        bulkProcessor = BulkProcessor.builder(
+                (request, bulkListener) -> esClient.bulkAsync(request, RequestOptions.DEFAULT, bulkListener),
+                new BulkListener())
+                .setBulkActions(cbExtServerProperties.getEsIndexingBulkActions())
+                .setBulkSize(new ByteSizeValue(cbExtServerProperties.getEsIndexingBulkSizeMb(), ByteSizeUnit.MB))
+                .setFlushInterval(TimeValue.timeValueMillis(cbExtServerProperties.getEsIndexingFlushInterval()))
+                .setConcurrentRequests(cbExtServerProperties.getEsIndexingConcurrentRequests())
+                .setBackoffPolicy(BackoffPolicy.noBackoff())
+                .build();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        try {
+            bulkProcessor.awaitClose(cbExtServerProperties.getEsIndexingQueueOfferTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Registers how to read a document of the index back from its store, when the index rejects a request
+     * for it as older than what it holds. The reloader passes the document read to {@link #reindex}.
+     *
+     * @param index    name of index
+     * @param reloader takes the entity Id
+     */
+    public void registerReloader(String index, Consumer<String> reloader) {
+        reloaders.put(index, reloader);
+    }
+
+    /**
+     * Queues the document to be indexed in place of the current one, unless the index has a later version.
+     *
+     * @param index     name of index
+     * @param indexType index type
+     * @param entityId  entity Id
+     * @param document  document to index
+     * @param version   version of the document, its updatedAt
+     */
+    public void index(String index, String indexType, String entityId, Object document, long version) {
+        add(newIndexRequest(index, indexType, entityId, document, version));
+    }
+
+    /**
+     * Queues the document read back by a reloader. If the index rejects it as well, the index holds a later
+     * version than the store and it is not read back again.
+     */
+    public void reindex(String index, String indexType, String entityId, Object document, long version) {
+        IndexRequest request = newIndexRequest(index, indexType, entityId, document, version);
+        reloads.add(request);
+        add(request);
+    }
+
+    /**
+     * Retries the dead letters from their stored documents. A dead letter is deleted once its document is
+     * indexed; those that fail again are kept.
+     */
+    @Scheduled(initialDelayString = "${es.indexing.dead.letter.replay.interval.ms}",
+            fixedDelayString = "${es.indexing.dead.letter.replay.interval.ms}")
+    public void replayDeadLetters() {
+        try {
+            if (!advisoryLockService.executeExclusively(ADVISORY_LOCK_KEY, connection -> {
+                Slice<IndexDeadLetterCassandraModel> deadLetters = indexDeadLetterRepo.findAll(PageRequest.of(0, DEAD_LETTER_PAGE_SIZE));
+                while (true) {
+                    deadLetters.forEach(this::replay);
+                    if (!deadLetters.hasNext()) {
+                        return null;
+                    }
+                    deadLetters = indexDeadLetterRepo.findAll(deadLetters.nextPageable());
+                }
+            })) {
+                logger.info("Index dead letters are being replayed on another node");
+            }
+        } catch (Exception e) {
+            logger.error("Exception occurred while replaying the index dead letters", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("pending", cbExtServerProperties.getEsIndexingQueueCapacity() - pendingRequests.availablePermits());
+        stats.put("indexed", indexed.get());
+        stats.put("retried", retried.get());
+        stats.put("conflicts", conflicts.get());
+        stats.put("reloaded", reloaded.get());
+        stats.put("deadLettered", deadLettered.get());
+        stats.put("replayed", replayed.get());
+        return stats;
+    }
+
+    private IndexRequest newIndexRequest(String index, String indexType, String entityId, Object document, long version) {
+        return new IndexRequest(index, indexType, entityId).source(mapper.convertValue(document, Map.class))
+                .version(version).versionType(VersionType.EXTERNAL_GTE);
+    }
+
+    private void replay(IndexDeadLetterCassandraModel deadLetter) {
+        IndexRequest request = new IndexRequest(deadLetter.getPrimaryKey().getIndexName(), deadLetter.getIndexType(),
+                deadLetter.getPrimaryKey().getEntityId()).source(deadLetter.getData(), XContentType.JSON)
+                .version(deadLetter.getVersion()).versionType(VersionType.EXTERNAL_GTE);
+        replays.put(request, deadLetter.getVersion());
+        add(request);
+    }
+
+    private void add(IndexRequest request) {
+        boolean acquired = false;
+        try {
+            acquired = pendingRequests.tryAcquire(cbExtServerProperties.getEsIndexingQueueOfferTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!acquired) {
+            forget(request);
+            deadLetter(request, "Indexing queue is full");
+            return;
+        }
+        submit(request);
+    }
+
+    /**
+     * Hands the request, which holds a permit, to the BulkProcessor. If it is not taken, the permit is
+     * released and the request kept as a dead letter.
+     */
+    private void submit(DocWriteRequest<?> request) {
+        try {
+            bulkProcessor.add(request);
+        } catch (RuntimeException e) {
+            complete(request);
+            deadLetter(request, "Failed to queue the request: " + e.getMessage());
+        }
+    }
+
+    private void retry(DocWriteRequest<?> request, String error) {
+        int attempt = attempts.merge(request, 1, Integer::sum);
+        if (attempt > cbExtServerProperties.getEsIndexingMaxRetries()) {
+            complete(request);
+            offload(() -> deadLetter(request, error));
+            return;
+        }
+        retried.incrementAndGet();
+        long delay = cbExtServerProperties.getEsIndexingRetryBackoff() << Math.min(attempt - 1, 16);
+        taskScheduler.schedule(() -> submit(request), new Date(System.currentTimeMillis() + delay));
+    }
+
+    private void succeeded(DocWriteRequest<?> request) {
+        indexed.incrementAndGet();
+        Long deadLetterVersion = replays.get(request);
+        complete(request);
+        if (deadLetterVersion != null) {
+            offload(() -> deleteDeadLetter(request, deadLetterVersion));
+        }
+    }
+
+    /**
+     * The index holds a later version of the document. Unless the request was already read back, the
+     * document is read back from its store and indexed again, in case the store has a later version yet.
+     */
+    private void conflicted(DocWriteRequest<?> request) {
+        conflicts.incrementAndGet();
+        boolean isReload = reloads.contains(request);
+        Long deadLetterVersion = replays.get(request);
+        complete(request);
+        if (deadLetterVersion != null) {
+            offload(() -> deleteDeadLetter(request, deadLetterVersion));
+        }
+        Consumer<String> reloader = reloaders.get(request.index());
+        if (isReload || reloader == null) {
+            logger.warn("ElasticSearch index {} holds a later version of {} than its store", request.index(), request.id());
+            return;
+        }
+        offload(() -> {
+            reloaded.incrementAndGet();
+            reloader.accept(request.id());
+        });
+    }
+
+    private void forget(DocWriteRequest<?> request) {
+        attempts.remove(request);
+        reloads.remove(request);
+        replays.remove(request);
+    }
+
+    private void complete(DocWriteRequest<?> request) {
+        forget(request);
+        pendingRequests.release();
+    }
+
+    /**
+     * Runs the task on the scheduler, off the Elasticsearch client thread that calls the listener.
+     */
+    private void offload(Runnable task) {
+        taskScheduler.schedule(task, new Date());
+    }
+
+    private void deleteDeadLetter(DocWriteRequest<?> request, long version) {
+        try {
+            if (indexDeadLetterRepo.deleteIfVersion(request.index(), request.id(), version)) {
+                replayed.incrementAndGet();
+            }
+        } catch (Exception e) {
+            logger.error("Exception occurred while deleting the index dead letter for {}", request.id(), e);
+        }
+    }
+
+    private void deadLetter(DocWriteRequest<?> request, String error) {
+        deadLettered.incrementAndGet();
+        logger.error("Failed to index the record {} to ElasticSearch index {}: {}", request.id(), request.index(), error);
+        if (!(request instanceof IndexRequest)) {
+            return;
+        }
+        IndexRequest indexRequest = (IndexRequest) request;
+        try {
+            IndexDeadLetterCassandraModel deadLetter = new IndexDeadLetterCassandraModel(indexRequest.index(), indexRequest.id());
+            deadLetter.setIndexType(indexRequest.type());
+            deadLetter.setVersion(indexRequest.version());
+            deadLetter.setData(indexRequest.source().utf8ToString());
+            deadLetter.setError(error);
+            deadLetter.setFailedAt(System.currentTimeMillis());
+            indexDeadLetterRepo.save(deadLetter);
+        } catch (Exception e) {
+            logger.error("Exception occurred while saving the index dead letter for {}", request.id(), e);
+        }
+    }
+
+    private static boolean isRetryable(RestStatus status) {
+        return status == RestStatus.TOO_MANY_REQUESTS || status.getStatus() >= 500;
+    }
+
+    private class BulkListener implements BulkProcessor.Listener {
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request) {
+            logger.debug("Executing bulk {} with {} requests", executionId, request.numberOfActions());
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            List<DocWriteRequest<?>> requests = request.requests();
+            for (BulkItemResponse item : response.getItems()) {
+                DocWriteRequest<?> itemRequest = requests.get(item.getItemId());
+                if (!item.isFailed()) {
+                    succeeded(itemRequest);
+                } else if (item.status() == RestStatus.CONFLICT) {
+                    conflicted(itemRequest);
+                } else if (isRetryable(item.status())) {
+                    retry(itemRequest, item.getFailureMessage());
+                } else {
+                    complete(itemRequest);
+                    String error = item.getFailureMessage();
+                    offload(() -> deadLetter(itemRequest, error));
+                }
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+            logger.error("Exception while executing the bulk {} in ElasticSearch", executionId, failure);
+            for (DocWriteRequest<?> itemRequest : request.requests()) {
+                retry(itemRequest, failure.getMessage());
+            }
+        }
+    }
+}
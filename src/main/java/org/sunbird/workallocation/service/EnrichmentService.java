@@ -54,14 +54,23 @@ public class EnrichmentService {
     }
 
     public void enrichWorkAllocation(WorkAllocationDTOV2 workAllocationDTOV2, String userId) {
+        enrichWorkAllocations(Collections.singletonList(workAllocationDTOV2), userId);
+    }
+
+    /**
+     * Enriches the work allocations, looking up the user names of all of them at once.
+     */
+    public void enrichWorkAllocations(List<WorkAllocationDTOV2> workAllocationDTOV2List, String userId) {
         long currentMillis = System.currentTimeMillis();
-        if (StringUtils.isEmpty(workAllocationDTOV2.getCreatedBy())) {
-            workAllocationDTOV2.setCreatedBy(userId);
-            workAllocationDTOV2.setCreatedAt(currentMillis);
+        for (WorkAllocationDTOV2 workAllocationDTOV2 : workAllocationDTOV2List) {
+            if (StringUtils.isEmpty(workAllocationDTOV2.getCreatedBy())) {
+                workAllocationDTOV2.setCreatedBy(userId);
+                workAllocationDTOV2.setCreatedAt(currentMillis);
+            }
+            workAllocationDTOV2.setUpdatedBy(userId);
+            workAllocationDTOV2.setUpdatedAt(currentMillis);
         }
-        workAllocationDTOV2.setUpdatedBy(userId);
-        workAllocationDTOV2.setUpdatedAt(currentMillis);
-        enrichUserNamesToWorkAllocation(workAllocationDTOV2);
+        enrichUserNamesToWorkAllocations(workAllocationDTOV2List);
     }
 
     private void enrichUserNamesToWorkOrder(WorkOrderDTO workOrderDTO) {
@@ -91,25 +100,32 @@ public class EnrichmentService {
         }
     }
 
-    private void enrichUserNamesToWorkAllocation(WorkAllocationDTOV2 workAllocationDTOV2) {
+    private void enrichUserNamesToWorkAllocations(List<WorkAllocationDTOV2> workAllocationDTOV2List) {
         Set<String> userIds = new HashSet<>();
-        if(StringUtils.isEmpty(workAllocationDTOV2.getCreatedByName())){
-            userIds.add(workAllocationDTOV2.getCreatedBy());
+        for (WorkAllocationDTOV2 workAllocationDTOV2 : workAllocationDTOV2List) {
+            if(StringUtils.isEmpty(workAllocationDTOV2.getCreatedByName())){
+                userIds.add(workAllocationDTOV2.getCreatedBy());
+            }
+            userIds.add(workAllocationDTOV2.getUpdatedBy());
+        }
+        if (userIds.isEmpty()) {
+            return;
         }
-        userIds.add(workAllocationDTOV2.getUpdatedBy());
         try {
             Map<String, Object> usersMap = allocationService.getUserDetails(userIds);
-            if (StringUtils.isEmpty(workAllocationDTOV2.getCreatedByName()) && !ObjectUtils.isEmpty(usersMap.get(workAllocationDTOV2.getCreatedBy()))) {
-                UserBasicInfo userBasicInfo = mapper.convertValue(usersMap.get(workAllocationDTOV2.getCreatedBy()), UserBasicInfo.class);
-                String firstName = userBasicInfo.getFirst_name() == null ? "" : userBasicInfo.getFirst_name();
-                String lastName  = userBasicInfo.getLast_name() == null ? "" : userBasicInfo.getLast_name();
-                workAllocationDTOV2.setCreatedByName(firstName +" "+lastName);
-            }
-            if (!ObjectUtils.isEmpty(usersMap.get(workAllocationDTOV2.getUpdatedBy()))) {
-                UserBasicInfo userBasicInfo = mapper.convertValue(usersMap.get(workAllocationDTOV2.getUpdatedBy()), UserBasicInfo.class);
-                String firstName = userBasicInfo.getFirst_name() == null ? "" : userBasicInfo.getFirst_name();
-                String lastName  = userBasicInfo.getLast_name() == null ? "" : userBasicInfo.getLast_name();
-                workAllocationDTOV2.setUpdatedByName(firstName +" "+lastName);
+            for (WorkAllocationDTOV2 workAllocationDTOV2 : workAllocationDTOV2List) {
+                if (StringUtils.isEmpty(workAllocationDTOV2.getCreatedByName()) && !ObjectUtils.isEmpty(usersMap.get(workAllocationDTOV2.getCreatedBy()))) {
+                    UserBasicInfo userBasicInfo = mapper.convertValue(usersMap.get(workAllocationDTOV2.getCreatedBy()), UserBasicInfo.class);
+                    String firstName = userBasicInfo.getFirst_name() == null ? "" : userBasicInfo.getFirst_name();
+                    String lastName  = userBasicInfo.getLast_name() == null ? "" : userBasicInfo.getLast_name();
+                    workAllocationDTOV2.setCreatedByName(firstName +" "+lastName);
+                }
+                if (!ObjectUtils.isEmpty(usersMap.get(workAllocationDTOV2.getUpdatedBy()))) {
+                    UserBasicInfo userBasicInfo = mapper.convertValue(usersMap.get(workAllocationDTOV2.getUpdatedBy()), UserBasicInfo.class);
+                    String firstName = userBasicInfo.getFirst_name() == null ? "" : userBasicInfo.getFirst_name();
+                    String lastName  = userBasicInfo.getLast_name() == null ? "" : userBasicInfo.getLast_name();
+                    workAllocationDTOV2.setUpdatedByName(firstName +" "+lastName);
+                }
             }
         } catch (IOException e) {
             logger.error("Error while fetching the user details", e);
@@ -0,0 +1,347 @@
+package org.sunbird.workallocation.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+import org.sunbird.common.util.CbExtServerProperties;
+import org.sunbird.core.exception.ApplicationLogicError;
+import org.sunbird.workallocation.model.WorkAllocationCassandraModel;
+import org.sunbird.workallocation.model.WorkAllocationDTOV2;
+import org.sunbird.workallocation.model.WorkAllocationPrimaryKeyModel;
+import org.sunbird.workallocation.model.WorkOrderCassandraModel;
+import org.sunbird.workallocation.model.WorkOrderCopyProgress;
+import org.sunbird.workallocation.model.WorkOrderCopyProgressCassandraModel;
+import org.sunbird.workallocation.model.WorkOrderCopyProgressPrimaryKeyModel;
+import org.sunbird.workallocation.model.WorkOrderDTO;
+import org.sunbird.workallocation.model.WorkOrderPrimaryKeyModel;
+import org.sunbird.workallocation.repo.WorkAllocationRepo;
+import org.sunbird.workallocation.repo.WorkOrderCopyProgressRepo;
+import org.sunbird.workallocation.repo.WorkOrderRepo;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Reads and writes work orders and allocations by id in Cassandra, which holds the authoritative copy.
+ * Reads are served from a bounded local cache of the JSON by id, which writes on this node update, so a
+ * node always reads its own writes. Entries expire after workallocation.cache.ttl.ms to pick up writes
+ * made on other nodes. A write on this node always replaces the entry, while a read from Cassandra only
+ * replaces it with the same or a later updatedAt, so a slow read cannot undo a write. The load methods
+ * bypass the cache, for read-modify-write. Work orders are changed with a compare-and-set on their
+ * stored data, so concurrent changes from any node are applied one after the other and none is lost.
+ * Every write gives the entity a version, its updatedAt, later than the one it replaces, which is also its
+ * external version in Elasticsearch.
+ */
+@Service
+public class WorkAllocationStoreService {
+
+    private static final int CASSANDRA_IN_CHUNK_SIZE = 100;
+    private static final int WORK_ORDER_UPDATE_MAX_ATTEMPTS = 10;
+
+    private Logger logger = LoggerFactory.getLogger(WorkAllocationStoreService.class);
+
+    @Autowired
+    private WorkOrderRepo workOrderRepo;
+
+    @Autowired
+    private WorkAllocationRepo workAllocationRepo;
+
+    @Autowired
+    private WorkOrderCopyProgressRepo workOrderCopyProgressRepo;
+
+    @Autowired
+    private CbExtServerProperties cbExtServerProperties;
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    private Cache<String, CachedEntity> workOrderCache;
+
+    private Cache<String, CachedEntity> workAllocationCache;
+
+    private ExecutorService writeExecutor;
+
+    @PostConstruct
+    public void init() {
+        writeExecutor = Executors.newFixedThreadPool(cbExtServerProperties.getWorkOrderCopyWriteParallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "work-allocation-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        workOrderCache = CacheBuilder.newBuilder().maximumSize(cbExtServerProperties.getWorkAllocationCacheMaxSize())
+                .expireAfterWrite(cbExtServerProperties.getWorkAllocationCacheTtl(), TimeUnit.MILLISECONDS).recordStats().build();
+        workAllocationCache = CacheBuilder.newBuilder().maximumSize(cbExtServerProperties.getWorkAllocationCacheMaxSize())
+                .expireAfterWrite(cbExtServerProperties.getWorkAllocationCacheTtl(), TimeUnit.MILLISECONDS).recordStats().build();
+    }
+
+    /**
+     * @return the work order, or null when there is none with the id
+     */
+    public WorkOrderDTO getWorkOrder(String workOrderId) {
+        CachedEntity cachedEntity = workOrderCache.getIfPresent(workOrderId);
+        if (cachedEntity != null) {
+            return readValue(cachedEntity.data, WorkOrderDTO.class);
+        }
+        return loadWorkOrder(workOrderId);
+    }
+
+    /**
+     * Reads the work order from Cassandra, skipping the cache.
+     */
+    public WorkOrderDTO loadWorkOrder(String workOrderId) {
+        WorkOrderPrimaryKeyModel primaryKey = new WorkOrderPrimaryKeyModel();
+        primaryKey.setId(workOrderId);
+        Optional<WorkOrderCassandraModel> workOrderModel = workOrderRepo.findById(primaryKey);
+        if (!workOrderModel.isPresent()) {
+            return null;
+        }
+        WorkOrderDTO workOrder = readValue(workOrderModel.get().getData(), WorkOrderDTO.class);
+        cacheLoaded(workOrderCache, workOrderId, workOrder.getUpdatedAt(), workOrderModel.get().getData());
+        return workOrder;
+    }
+
+    /**
+     * Saves a new work order.
+     *
+     * @throws ApplicationLogicError when a work order with the id already exists
+     */
+    public void createWorkOrder(WorkOrderDTO workOrder) throws JsonProcessingException {
+        String data = mapper.writeValueAsString(workOrder);
+        if (!workOrderRepo.insertIfNotExists(workOrder.getId(), data)) {
+            throw new ApplicationLogicError("Work order " + workOrder.getId() + " already exists");
+        }
+        workOrderCache.put(workOrder.getId(), new CachedEntity(workOrder.getUpdatedAt(), data));
+    }
+
+    /**
+     * Applies the change to the stored work order and saves it, if it was not changed meanwhile. Otherwise
+     * the change is applied again to the work order read anew, up to WORK_ORDER_UPDATE_MAX_ATTEMPTS times.
+     * The change must not have side effects, since it may run more than once.
+     *
+     * @param change applies the change, returns false when there is nothing to save
+     * @return the work order as saved, or null when there is none with the id
+     */
+    public WorkOrderDTO updateWorkOrder(String workOrderId, Predicate<WorkOrderDTO> change) throws JsonProcessingException {
+        WorkOrderPrimaryKeyModel primaryKey = new WorkOrderPrimaryKeyModel();
+        primaryKey.setId(workOrderId);
+        for (int attempt = 1; attempt <= WORK_ORDER_UPDATE_MAX_ATTEMPTS; attempt++) {
+            Optional<WorkOrderCassandraModel> workOrderModel = workOrderRepo.findById(primaryKey);
+            if (!workOrderModel.isPresent()) {
+                return null;
+            }
+            String previousData = workOrderModel.get().getData();
+            WorkOrderDTO workOrder = readValue(previousData, WorkOrderDTO.class);
+            long previousVersion = workOrder.getUpdatedAt();
+            if (!change.test(workOrder)) {
+                return workOrder;
+            }
+            workOrder.setUpdatedAt(nextVersion(previousVersion));
+            String data = mapper.writeValueAsString(workOrder);
+            if (workOrderRepo.updateIfUnchanged(workOrderId, data, previousData)) {
+                workOrderCache.put(workOrderId, new CachedEntity(workOrder.getUpdatedAt(), data));
+                return workOrder;
+            }
+            logger.debug("Work order {} was changed concurrently, attempt {}", workOrderId, attempt);
+        }
+        throw new ApplicationLogicError("Work order " + workOrderId + " is being changed concurrently, try again");
+    }
+
+    /**
+     * @return a version later than the given one, the current time unless the clock is behind it
+     */
+    public static long nextVersion(long previousVersion) {
+        return Math.max(previousVersion + 1, System.currentTimeMillis());
+    }
+
+    /**
+     * @return the work allocation, or null when there is none with the id
+     */
+    public WorkAllocationDTOV2 getWorkAllocation(String workAllocationId) {
+        CachedEntity cachedEntity = workAllocationCache.getIfPresent(workAllocationId);
+        if (cachedEntity != null) {
+            return readValue(cachedEntity.data, WorkAllocationDTOV2.class);
+        }
+        return loadWorkAllocation(workAllocationId);
+    }
+
+    /**
+     * Reads the work allocation from Cassandra, skipping the cache.
+     */
+    public WorkAllocationDTOV2 loadWorkAllocation(String workAllocationId) {
+        List<WorkAllocationDTOV2> workAllocations = loadWorkAllocations(Collections.singletonList(workAllocationId));
+        return workAllocations.isEmpty() ? null : workAllocations.get(0);
+    }
+
+    /**
+     * @return the work allocations found, in the order of the given ids
+     */
+    public List<WorkAllocationDTOV2> getWorkAllocations(Collection<String> workAllocationIds) {
+        List<WorkAllocationDTOV2> workAllocations = new ArrayList<>();
+        if (CollectionUtils.isEmpty(workAllocationIds)) {
+            return workAllocations;
+        }
+        Map<String, String> dataById = new HashMap<>();
+        List<String> missingIds = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(workAllocationIds)) {
+            CachedEntity cachedEntity = workAllocationCache.getIfPresent(id);
+            if (cachedEntity != null) {
+                dataById.put(id, cachedEntity.data);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        Map<String, WorkAllocationDTOV2> loaded = new HashMap<>();
+        for (WorkAllocationDTOV2 workAllocation : loadWorkAllocations(missingIds)) {
+            loaded.put(workAllocation.getId(), workAllocation);
+        }
+        for (String id : new LinkedHashSet<>(workAllocationIds)) {
+            if (dataById.containsKey(id)) {
+                workAllocations.add(readValue(dataById.get(id), WorkAllocationDTOV2.class));
+            } else if (loaded.containsKey(id)) {
+                workAllocations.add(loaded.get(id));
+            }
+        }
+        return workAllocations;
+    }
+
+    /**
+     * Reads the work allocations from Cassandra, skipping the cache.
+     */
+    public List<WorkAllocationDTOV2> loadWorkAllocations(Collection<String> workAllocationIds) {
+        List<WorkAllocationDTOV2> workAllocations = new ArrayList<>();
+        if (CollectionUtils.isEmpty(workAllocationIds)) {
+            return workAllocations;
+        }
+        List<WorkAllocationPrimaryKeyModel> primaryKeys = new ArrayList<>();
+        for (String id : workAllocationIds) {
+            WorkAllocationPrimaryKeyModel primaryKey = new WorkAllocationPrimaryKeyModel();
+            primaryKey.setId(id);
+            primaryKeys.add(primaryKey);
+        }
+        for (int i = 0; i < primaryKeys.size(); i += CASSANDRA_IN_CHUNK_SIZE) {
+            for (WorkAllocationCassandraModel workAllocationModel : workAllocationRepo
+                    .findAllById(primaryKeys.subList(i, Math.min(i + CASSANDRA_IN_CHUNK_SIZE, primaryKeys.size())))) {
+                WorkAllocationDTOV2 workAllocation = readValue(workAllocationModel.getData(), WorkAllocationDTOV2.class);
+                cacheLoaded(workAllocationCache, workAllocationModel.getPrimaryKey().getId(), workAllocation.getUpdatedAt(),
+                        workAllocationModel.getData());
+                workAllocations.add(workAllocation);
+            }
+        }
+        return workAllocations;
+    }
+
+    public void saveWorkAllocation(WorkAllocationDTOV2 workAllocation) throws JsonProcessingException {
+        saveWorkAllocations(Collections.singletonList(workAllocation));
+    }
+
+    public void saveWorkAllocations(List<WorkAllocationDTOV2> workAllocations) throws JsonProcessingException {
+        List<WorkAllocationCassandraModel> workAllocationModels = new ArrayList<>();
+        for (WorkAllocationDTOV2 workAllocation : workAllocations) {
+            workAllocationModels.add(new WorkAllocationCassandraModel(workAllocation.getId(), mapper.writeValueAsString(workAllocation)));
+        }
+        workAllocationRepo.saveAll(workAllocationModels);
+        for (int i = 0; i < workAllocations.size(); i++) {
+            workAllocationCache.put(workAllocations.get(i).getId(),
+                    new CachedEntity(workAllocations.get(i).getUpdatedAt(), workAllocationModels.get(i).getData()));
+        }
+    }
+
+    /**
+     * Saves the work allocations on the writer pool, so chunks of a large copy are written in parallel.
+     */
+    public CompletableFuture<Void> saveWorkAllocationsAsync(List<WorkAllocationDTOV2> workAllocations) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                saveWorkAllocations(workAllocations);
+            } catch (JsonProcessingException e) {
+                throw new ApplicationLogicError("Exception occurred while saving the work allocations", e);
+            }
+        }, writeExecutor);
+    }
+
+    /**
+     * Deletes the work allocations, used to remove the ones saved by a copy that failed.
+     */
+    public void deleteWorkAllocations(List<String> workAllocationIds) {
+        for (int i = 0; i < workAllocationIds.size(); i += CASSANDRA_IN_CHUNK_SIZE) {
+            List<WorkAllocationCassandraModel> workAllocationModels = new ArrayList<>();
+            for (String id : workAllocationIds.subList(i, Math.min(i + CASSANDRA_IN_CHUNK_SIZE, workAllocationIds.size()))) {
+                workAllocationModels.add(new WorkAllocationCassandraModel(id, null));
+            }
+            workAllocationRepo.deleteAll(workAllocationModels);
+        }
+        workAllocationCache.invalidateAll(workAllocationIds);
+    }
+
+    public void saveCopyProgress(WorkOrderCopyProgress progress) throws JsonProcessingException {
+        workOrderCopyProgressRepo.save(new WorkOrderCopyProgressCassandraModel(progress.getCopyId(),
+                mapper.writeValueAsString(progress)));
+    }
+
+    /**
+     * @return the progress of the copy, or null when there is none with the id
+     */
+    public WorkOrderCopyProgress getCopyProgress(String copyId) {
+        WorkOrderCopyProgressPrimaryKeyModel primaryKey = new WorkOrderCopyProgressPrimaryKeyModel();
+        primaryKey.setId(copyId);
+        Optional<WorkOrderCopyProgressCassandraModel> progressModel = workOrderCopyProgressRepo.findById(primaryKey);
+        return progressModel.map(model -> readValue(model.getData(), WorkOrderCopyProgress.class)).orElse(null);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        writeExecutor.shutdown();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("workOrderCacheSize", workOrderCache.size());
+        stats.put("workOrderCacheHitRate", workOrderCache.stats().hitRate());
+        stats.put("workAllocationCacheSize", workAllocationCache.size());
+        stats.put("workAllocationCacheHitRate", workAllocationCache.stats().hitRate());
+        return stats;
+    }
+
+    private void cacheLoaded(Cache<String, CachedEntity> cache, String id, long version, String data) {
+        cache.asMap().merge(id, new CachedEntity(version, data),
+                (cached, entity) -> entity.version >= cached.version ? entity : cached);
+    }
+
+    private <T> T readValue(String data, Class<T> valueType) {
+        try {
+            return mapper.readValue(data, valueType);
+        } catch (IOException e) {
+            logger.error("Exception occurred while parsing the {}", valueType.getSimpleName(), e);
+            throw new ApplicationLogicError("Exception occurred while parsing the " + valueType.getSimpleName(), e);
+        }
+    }
+
+    private static class CachedEntity {
+        private final long version;
+        private final String data;
+
+        CachedEntity(long version, String data) {
+            this.version = version;
+            this.data = data;
+        }
+    }
+}
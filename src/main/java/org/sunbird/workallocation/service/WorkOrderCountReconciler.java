@@ -0,0 +1,125 @@
+package org.sunbird.workallocation.service;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.sunbird.common.service.AdvisoryLockService;
+import org.sunbird.common.util.CbExtServerProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Work order counts are kept up to date incrementally as allocations are saved. This job walks all work
+ * orders periodically and recomputes their counts from the allocations saved in Cassandra, correcting any
+ * drift, such as from an allocation saved when the update of its work order then failed. Corrections are
+ * saved with the same compare-and-set as every other work order change. A Postgres advisory lock keeps
+ * nodes from running the job concurrently.
+ */
+@Service
+public class WorkOrderCountReconciler {
+
+    private static final long ADVISORY_LOCK_KEY = 4_820_190_602L;
+
+    private Logger logger = LoggerFactory.getLogger(WorkOrderCountReconciler.class);
+
+    @Autowired
+    private AllocationServiceV2 allocationServiceV2;
+
+    @Autowired
+    private IndexerService indexerService;
+
+    @Autowired
+    private AdvisoryLockService advisoryLockService;
+
+    @Autowired
+    private CbExtServerProperties cbExtServerProperties;
+
+    @Value("${workorder.index.name}")
+    private String workOrderIndex;
+
+    @Value("${workorder.index.type}")
+    private String workOrderIndexType;
+
+    private final AtomicLong workOrdersChecked = new AtomicLong();
+    private final AtomicLong workOrdersReconciled = new AtomicLong();
+    private volatile long lastRunAt;
+    private volatile String lastError;
+
+    @Scheduled(initialDelayString = "${workorder.count.reconcile.interval.ms}",
+            fixedDelayString = "${workorder.count.reconcile.interval.ms}")
+    public void reconcile() {
+        lastError = null;
+        try {
+            if (!advisoryLockService.executeExclusively(ADVISORY_LOCK_KEY, connection -> {
+                reconcileAll();
+                return null;
+            })) {
+                logger.info("Work order count reconciliation is running on another node");
+            }
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.error("Exception occurred while reconciling the work order counts", e);
+        }
+        lastRunAt = System.currentTimeMillis();
+    }
+
+    private void reconcileAll() {
+        long checked = 0;
+        long reconciled = 0;
+        try {
+            Object[] searchAfter = null;
+            while (!Thread.currentThread().isInterrupted()) {
+                SearchSourceBuilder sourceBuilder = new SearchSourceBuilder()
+                        .size(cbExtServerProperties.getWorkOrderCountReconcileBatchSize())
+                        .fetchSource(false)
+                        .sort(SortBuilders.fieldSort("id.keyword").order(SortOrder.ASC));
+                if (searchAfter != null) {
+                    sourceBuilder.searchAfter(searchAfter);
+                }
+                SearchResponse searchResponse = indexerService.getEsResult(workOrderIndex, workOrderIndexType,
+                        sourceBuilder);
+                SearchHit[] hits = searchResponse.getHits().getHits();
+                for (SearchHit hit : hits) {
+                    try {
+                        if (allocationServiceV2.reconcileWorkOrderCounts(hit.getId())) {
+                            reconciled++;
+                        }
+                    } catch (Exception e) {
+                        lastError = "Failed to reconcile work order " + hit.getId() + ": " + e.getMessage();
+                        logger.error("Exception occurred while reconciling the counts of work order {}", hit.getId(), e);
+                    }
+                    checked++;
+                }
+                if (hits.length < cbExtServerProperties.getWorkOrderCountReconcileBatchSize()) {
+                    break;
+                }
+                searchAfter = hits[hits.length - 1].getSortValues();
+            }
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.error("Exception occurred while reconciling the work order counts", e);
+        }
+        workOrdersChecked.addAndGet(checked);
+        workOrdersReconciled.addAndGet(reconciled);
+        logger.info("Work order count reconciliation checked {} and corrected {} work orders", checked, reconciled);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("workOrdersChecked", workOrdersChecked.get());
+        stats.put("workOrdersReconciled", workOrdersReconciled.get());
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastError", lastError);
+        return stats;
+    }
+}
@@ -1,32 +1,23 @@
 package org.sunbird.workallocation.util;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 import org.sunbird.core.exception.BadRequestException;
 import org.sunbird.workallocation.model.SearchCriteria;
 import org.sunbird.workallocation.model.WorkAllocationDTO;
 import org.sunbird.workallocation.model.WorkAllocationDTOV2;
 import org.sunbird.workallocation.model.WorkOrderDTO;
-import org.sunbird.workallocation.service.IndexerService;
+import org.sunbird.workallocation.service.WorkAllocationStoreService;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 @Component
 public class Validator {
 
 	@Autowired
-	private IndexerService indexerService;
-
-	@Value("${workorder.index.name}")
-	public String workOrderIndex;
-
-	@Value("${workorder.index.type}")
-	public String workOrderIndexType;
+	private WorkAllocationStoreService workAllocationStoreService;
 
 	public void validateCriteria(SearchCriteria criteria) {
 		if (StringUtils.isEmpty(criteria.getDepartmentName())) {
@@ -77,14 +68,14 @@ public class Validator {
 			if (StringUtils.isEmpty(workOrderDTO.getId())) {
 				throw new BadRequestException("Work order Id should not be empty!");
 			}
-			Map<String, Object> existingRecord = indexerService.readEntity(workOrderIndex, workOrderIndexType, workOrderDTO.getId());
-			if (CollectionUtils.isEmpty(existingRecord)) {
+			WorkOrderDTO existingRecord = workAllocationStoreService.loadWorkOrder(workOrderDTO.getId());
+			if (existingRecord == null) {
 				throw new BadRequestException("No record found on given work order Id!");
 			}
 			if (StringUtils.isEmpty(workOrderDTO.getStatus())) {
 				throw new BadRequestException("Work order status should not be empty!");
 			}
-			String prevStatus = (String) existingRecord.get("status");
+			String prevStatus = existingRecord.getStatus();
 			if (WorkAllocationConstants.PUBLISHED_STATUS.equals(prevStatus) && WorkAllocationConstants.DRAFT_STATUS.equals(workOrderDTO.getStatus())) {
 				throw new BadRequestException("Work order in the " + prevStatus + " status!, can't move to "+ WorkAllocationConstants.DRAFT_STATUS +" status");
 			}
@@ -0,0 +1,70 @@
+package org.sunbird.core.config;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class BoundedSeekToCurrentBatchErrorHandlerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("userRoleAuditTopic", 0);
+
+    private final BoundedSeekToCurrentBatchErrorHandler errorHandler = new BoundedSeekToCurrentBatchErrorHandler(3, 0);
+
+    @Test
+    public void failedBatchIsDeliveredAgain() {
+        Consumer<?, ?> consumer = mock(Consumer.class);
+
+        errorHandler.handle(new IllegalStateException("failed"), batch(10, 11), consumer);
+        errorHandler.handle(new IllegalStateException("failed"), batch(10, 11), consumer);
+
+        verify(consumer, times(2)).seek(PARTITION, 10);
+        verify(consumer, never()).commitSync(anyMap());
+    }
+
+    @Test
+    public void batchIsSkippedAfterTheLastAttempt() {
+        Consumer<?, ?> consumer = mock(Consumer.class);
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            errorHandler.handle(new IllegalStateException("failed"), batch(10, 11), consumer);
+        }
+
+        verify(consumer).commitSync(Collections.<TopicPartition, OffsetAndMetadata>singletonMap(PARTITION,
+                new OffsetAndMetadata(12)));
+        verify(consumer).seek(PARTITION, 12);
+    }
+
+    @Test
+    public void attemptsStartOverForAnotherBatch() {
+        Consumer<?, ?> consumer = mock(Consumer.class);
+
+        errorHandler.handle(new IllegalStateException("failed"), batch(10, 11), consumer);
+        errorHandler.handle(new IllegalStateException("failed"), batch(10, 11), consumer);
+        errorHandler.handle(new IllegalStateException("failed"), batch(12, 13), consumer);
+        errorHandler.handle(new IllegalStateException("failed"), batch(12, 13), consumer);
+
+        verify(consumer, never()).commitSync(anyMap());
+        verify(consumer, times(2)).seek(PARTITION, 12);
+    }
+
+    private static ConsumerRecords<String, String> batch(long... offsets) {
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (long offset : offsets) {
+            records.add(new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, null, "record-" + offset));
+        }
+        return new ConsumerRecords<>(Collections.singletonMap(PARTITION, records));
+    }
+}
@@ -0,0 +1,156 @@
+package org.sunbird.portal.department.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.sunbird.common.util.CbExtServerProperties;
+import org.sunbird.core.producer.Producer;
+import org.sunbird.portal.department.model.UserAuthorizationProfile;
+import org.sunbird.portal.department.repo.UserDepartmentRoleRepository;
+
+public class UserClaimsTokenServiceTest {
+
+	private static final String USER_ID = "user-1";
+	private static final String OTHER_USER_ID = "user-2";
+	private static final String REVOCATION_TOPIC = "userRoleAuthRevocationTopic";
+
+	private UserDepartmentRoleRepository userDepartmentRoleRepo;
+
+	private Producer producer;
+
+	private UserAuthorizationService userAuthService;
+
+	private UserClaimsTokenService tokenService;
+
+	@BeforeEach
+	public void setUp() {
+		CbExtServerProperties serverConfig = new CbExtServerProperties();
+		serverConfig.setPortalAuthCacheMaxSize(100);
+		serverConfig.setPortalAuthCacheTtl(60000);
+		serverConfig.setPortalClaimsTokenSecret("claims-token-test-secret");
+		serverConfig.setPortalClaimsTokenTtl(60000);
+		serverConfig.setPortalClaimsTokenRevocationMaxSize(1);
+		serverConfig.setUserRoleAuthRevocationTopic(REVOCATION_TOPIC);
+		userDepartmentRoleRepo = mock(UserDepartmentRoleRepository.class);
+		producer = mock(Producer.class);
+		when(userDepartmentRoleRepo.getUserAuthorizationDetails(USER_ID))
+				.thenReturn(Collections.singletonList(new Object[] { 10, "MDO", 1, "MDO_ADMIN" }));
+		when(userDepartmentRoleRepo.getUserAuthorizationDetails(OTHER_USER_ID))
+				.thenReturn(Collections.singletonList(new Object[] { 20, "CBP", 2, "CBP_ADMIN" }));
+		userAuthService = new UserAuthorizationService();
+		userAuthService.userDepartmentRoleRepo = userDepartmentRoleRepo;
+		userAuthService.serverConfig = serverConfig;
+		userAuthService.producer = producer;
+		userAuthService.init();
+		tokenService = new UserClaimsTokenService();
+		tokenService.userAuthService = userAuthService;
+		tokenService.serverConfig = serverConfig;
+		tokenService.init();
+	}
+
+	@Test
+	public void issuedTokenCarriesTheProfile() {
+		UserAuthorizationProfile profile = tokenService.verifyToken(tokenService.issueToken(USER_ID), USER_ID);
+
+		assertNotNull(profile);
+		assertEquals(new HashSet<>(Collections.singletonList(10)), profile.getDeptIds());
+		assertEquals(Collections.singleton("MDO_ADMIN"), profile.getRoleNames("mdo"));
+	}
+
+	@Test
+	public void tokenIsRejectedForAnotherUser() {
+		assertNull(tokenService.verifyToken(tokenService.issueToken(USER_ID), OTHER_USER_ID));
+	}
+
+	@Test
+	public void tamperedTokenIsRejected() {
+		String token = tokenService.issueToken(USER_ID);
+		String otherToken = tokenService.issueToken(OTHER_USER_ID);
+		String forged = otherToken.substring(0, otherToken.indexOf('.')) + token.substring(token.indexOf('.'));
+
+		assertNull(tokenService.verifyToken(forged, OTHER_USER_ID));
+		assertNull(tokenService.verifyToken(token + "x", USER_ID));
+		assertNull(tokenService.verifyToken("not-a-token", USER_ID));
+	}
+
+	@Test
+	public void tokenIsSignedFromTheProfileInTheDatabase() {
+		userAuthService.getUserAuthorizationProfile(USER_ID);
+		when(userDepartmentRoleRepo.getUserAuthorizationDetails(USER_ID)).thenReturn(
+				Arrays.asList(new Object[] { 10, "MDO", 1, "MDO_ADMIN" }, new Object[] { 30, "MDO", 3, "MDO_LEADER" }));
+
+		UserAuthorizationProfile profile = tokenService.verifyToken(tokenService.issueToken(USER_ID), USER_ID);
+
+		assertEquals(new HashSet<>(Arrays.asList(10, 30)), profile.getDeptIds());
+		assertEquals(new HashSet<>(Arrays.asList(10, 30)), userAuthService.getUserAuthorizationProfile(USER_ID).getDeptIds());
+	}
+
+	@Test
+	public void tokenIssuedBeforeTheUserChangedIsRevoked() throws InterruptedException {
+		String token = tokenService.issueToken(USER_ID);
+		String otherToken = tokenService.issueToken(OTHER_USER_ID);
+		Thread.sleep(2);
+
+		userAuthService.evict(USER_ID);
+		Thread.sleep(2);
+
+		assertNull(tokenService.verifyToken(token, USER_ID));
+		assertNotNull(tokenService.verifyToken(otherToken, OTHER_USER_ID));
+		assertNotNull(tokenService.verifyToken(tokenService.issueToken(USER_ID), USER_ID));
+	}
+
+	@Test
+	public void revocationDroppedForSizeStillRejectsOlderTokens() throws InterruptedException {
+		String token = tokenService.issueToken(USER_ID);
+		Thread.sleep(2);
+
+		userAuthService.evict(USER_ID);
+		userAuthService.evict(OTHER_USER_ID);
+
+		assertNull(tokenService.verifyToken(token, USER_ID));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void departmentChangeRevokesAllTokensOnEveryNode() throws InterruptedException {
+		String token = tokenService.issueToken(USER_ID);
+		String otherToken = tokenService.issueToken(OTHER_USER_ID);
+		Thread.sleep(2);
+		long changedAfter = System.currentTimeMillis();
+
+		userAuthService.evictAll();
+
+		assertNull(tokenService.verifyToken(token, USER_ID));
+		assertNull(tokenService.verifyToken(otherToken, OTHER_USER_ID));
+		ArgumentCaptor<Object> revocation = ArgumentCaptor.forClass(Object.class);
+		verify(producer).push(eq(REVOCATION_TOPIC), revocation.capture());
+		assertTrue((Long) ((Map<String, Object>) revocation.getValue()).get("revokedAt") >= changedAfter);
+	}
+
+	@Test
+	public void departmentChangeFromAnotherNodeRevokesOlderTokens() throws InterruptedException {
+		String token = tokenService.issueToken(USER_ID);
+		Thread.sleep(2);
+		long revokedAt = System.currentTimeMillis();
+		Thread.sleep(2);
+
+		userAuthService.evictAll(revokedAt);
+
+		assertNull(tokenService.verifyToken(token, USER_ID));
+		assertNotNull(tokenService.verifyToken(tokenService.issueToken(USER_ID), USER_ID));
+	}
+}
@@ -0,0 +1,76 @@
+package org.sunbird.portal.department.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+public class UserDepartmentRoleAuditArchiverTest {
+
+	@Test
+	public void partitionIsNamedAfterItsMonth() {
+		assertEquals("user_department_role_audit_p202103",
+				UserDepartmentRoleAuditArchiver.getPartitionName(YearMonth.of(2021, 3)));
+		assertEquals("user_department_role_audit_p202112",
+				UserDepartmentRoleAuditArchiver.getPartitionName(YearMonth.of(2021, 12)));
+	}
+
+	@Test
+	public void csvValuesAreQuotedOnlyWhenNeeded() {
+		assertEquals("", UserDepartmentRoleAuditArchiver.toCsvValue(null));
+		assertEquals("MDO_ADMIN", UserDepartmentRoleAuditArchiver.toCsvValue("MDO_ADMIN"));
+		assertEquals("\"{1,2}\"", UserDepartmentRoleAuditArchiver.toCsvValue("{1,2}"));
+		assertEquals("\"say \"\"hi\"\"\"", UserDepartmentRoleAuditArchiver.toCsvValue("say \"hi\""));
+		assertEquals("\"first\nsecond\"", UserDepartmentRoleAuditArchiver.toCsvValue("first\nsecond"));
+	}
+
+	@Test
+	public void archivedRowsAreCountedWithoutTheHeaderAndQuotedLineBreaks() throws IOException {
+		Path archiveFile = writeArchive("id,created_by\n"
+				+ "1," + UserDepartmentRoleAuditArchiver.toCsvValue("admin") + "\n"
+				+ "2," + UserDepartmentRoleAuditArchiver.toCsvValue("first\nsecond\r\nthird") + "\n"
+				+ "3," + UserDepartmentRoleAuditArchiver.toCsvValue("say \"hi\",\nthen \"bye\"") + "\n");
+		try {
+			assertEquals(3, UserDepartmentRoleAuditArchiver.countArchivedRows(archiveFile));
+		} finally {
+			Files.deleteIfExists(archiveFile);
+		}
+	}
+
+	@Test
+	public void archiveOfAnEmptyPartitionHasNoRows() throws IOException {
+		Path archiveFile = writeArchive("id,created_by\n");
+		try {
+			assertEquals(0, UserDepartmentRoleAuditArchiver.countArchivedRows(archiveFile));
+		} finally {
+			Files.deleteIfExists(archiveFile);
+		}
+	}
+
+	@Test
+	public void truncatedArchiveHasFewerRows() throws IOException {
+		Path archiveFile = writeArchive("id,created_by\n1,admin\n2,\"unterminated\n");
+		try {
+			assertEquals(1, UserDepartmentRoleAuditArchiver.countArchivedRows(archiveFile));
+		} finally {
+			Files.deleteIfExists(archiveFile);
+		}
+	}
+
+	private static Path writeArchive(String content) throws IOException {
+		Path archiveFile = Files.createTempFile("user_department_role_audit_p", ".csv.gz");
+		try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(archiveFile)),
+				StandardCharsets.UTF_8)) {
+			writer.write(content);
+		}
+		return archiveFile;
+	}
+}
@@ -0,0 +1,168 @@
+package org.sunbird.workallocation.service;
+
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.sunbird.common.util.CbExtServerProperties;
+import org.sunbird.workallocation.repo.IndexDeadLetterRepo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BulkIndexingServiceTest {
+
+    private static final String INDEX = "workorder";
+    private static final String INDEX_TYPE = "_doc";
+    private static final String ENTITY_ID = "work-order-1";
+
+    private RestHighLevelClient esClient;
+
+    private BulkIndexingService bulkIndexingService;
+
+    // Requests sent to Elasticsearch, and the status to answer each with in turn
+    private final List<IndexRequest> sent = new ArrayList<>();
+    private final List<RestStatus> statuses = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        esClient = mock(RestHighLevelClient.class);
+        doAnswer(invocation -> {
+            BulkRequest request = invocation.getArgument(0);
+            ActionListener<BulkResponse> listener = invocation.getArgument(2);
+            List<BulkItemResponse> items = new ArrayList<>();
+            for (DocWriteRequest<?> itemRequest : request.requests()) {
+                sent.add((IndexRequest) itemRequest);
+                items.add(itemResponse(items.size(), itemRequest, statuses.remove(0)));
+            }
+            listener.onResponse(new BulkResponse(items.toArray(new BulkItemResponse[0]), 1));
+            return null;
+        }).when(esClient).bulkAsync(any(BulkRequest.class), any(RequestOptions.class), any(ActionListener.class));
+        TaskScheduler taskScheduler = mock(TaskScheduler.class);
+        when(taskScheduler.schedule(any(Runnable.class), any(Date.class))).thenAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        });
+        CbExtServerProperties properties = new CbExtServerProperties();
+        properties.setEsIndexingBulkActions(1);
+        properties.setEsIndexingBulkSizeMb(5);
+        properties.setEsIndexingFlushInterval(60000);
+        // Bulks are answered on the calling thread, and a reload is sent from within the answer to a conflict
+        properties.setEsIndexingConcurrentRequests(4);
+        properties.setEsIndexingQueueCapacity(10);
+        properties.setEsIndexingQueueOfferTimeout(1000);
+        properties.setEsIndexingMaxRetries(0);
+        properties.setEsIndexingRetryBackoff(10);
+        bulkIndexingService = new BulkIndexingService();
+        ReflectionTestUtils.setField(bulkIndexingService, "esClient", esClient);
+        ReflectionTestUtils.setField(bulkIndexingService, "indexDeadLetterRepo", mock(IndexDeadLetterRepo.class));
+        ReflectionTestUtils.setField(bulkIndexingService, "taskScheduler", taskScheduler);
+        ReflectionTestUtils.setField(bulkIndexingService, "cbExtServerProperties", properties);
+        bulkIndexingService.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bulkIndexingService.destroy();
+    }
+
+    @Test
+    public void documentIsIndexedWithItsUpdatedAtAsExternalVersion() {
+        statuses.add(RestStatus.CREATED);
+
+        bulkIndexingService.index(INDEX, INDEX_TYPE, ENTITY_ID, Collections.singletonMap("name", "first"), 42);
+
+        assertEquals(1, sent.size());
+        assertEquals(VersionType.EXTERNAL_GTE, sent.get(0).versionType());
+        assertEquals(42, sent.get(0).version());
+        Map<String, Object> stats = bulkIndexingService.getStats();
+        assertEquals(1L, stats.get("indexed"));
+        assertEquals(0, stats.get("pending"));
+    }
+
+    @Test
+    public void conflictingDocumentIsReadBackFromItsStore() {
+        List<String> reloadedIds = new ArrayList<>();
+        bulkIndexingService.registerReloader(INDEX, entityId -> {
+            reloadedIds.add(entityId);
+            bulkIndexingService.reindex(INDEX, INDEX_TYPE, entityId, Collections.singletonMap("name", "stored"), 50);
+        });
+        statuses.add(RestStatus.CONFLICT);
+        statuses.add(RestStatus.OK);
+
+        bulkIndexingService.index(INDEX, INDEX_TYPE, ENTITY_ID, Collections.singletonMap("name", "late"), 42);
+
+        assertEquals(Collections.singletonList(ENTITY_ID), reloadedIds);
+        assertEquals(2, sent.size());
+        assertEquals(50, sent.get(1).version());
+        assertEquals(VersionType.EXTERNAL_GTE, sent.get(1).versionType());
+        Map<String, Object> stats = bulkIndexingService.getStats();
+        assertEquals(1L, stats.get("conflicts"));
+        assertEquals(1L, stats.get("reloaded"));
+        assertEquals(1L, stats.get("indexed"));
+        assertEquals(0, stats.get("pending"));
+    }
+
+    @Test
+    public void documentReadBackIsNotReadAgainOnAnotherConflict() {
+        List<String> reloadedIds = new ArrayList<>();
+        bulkIndexingService.registerReloader(INDEX, entityId -> {
+            reloadedIds.add(entityId);
+            bulkIndexingService.reindex(INDEX, INDEX_TYPE, entityId, Collections.singletonMap("name", "stored"), 50);
+        });
+        statuses.add(RestStatus.CONFLICT);
+        statuses.add(RestStatus.CONFLICT);
+
+        bulkIndexingService.index(INDEX, INDEX_TYPE, ENTITY_ID, Collections.singletonMap("name", "late"), 42);
+
+        assertEquals(1, reloadedIds.size());
+        assertEquals(2, sent.size());
+        assertEquals(2L, bulkIndexingService.getStats().get("conflicts"));
+        assertEquals(0, bulkIndexingService.getStats().get("pending"));
+    }
+
+    @Test
+    public void failedDocumentIsDeadLettered() {
+        statuses.add(RestStatus.BAD_REQUEST);
+
+        bulkIndexingService.index(INDEX, INDEX_TYPE, ENTITY_ID, Collections.singletonMap("name", "first"), 42);
+
+        assertEquals(1, sent.size());
+        assertEquals(1L, bulkIndexingService.getStats().get("deadLettered"));
+        assertEquals(0, bulkIndexingService.getStats().get("pending"));
+    }
+
+    private static BulkItemResponse itemResponse(int itemId, DocWriteRequest<?> request, RestStatus status) {
+        if (status == RestStatus.OK || status == RestStatus.CREATED) {
+            return new BulkItemResponse(itemId, DocWriteRequest.OpType.INDEX, new IndexResponse(
+                    new ShardId(request.index(), "_na_", 0), request.type(), request.id(), 1, 1, request.version(),
+                    status == RestStatus.CREATED));
+        }
+        return new BulkItemResponse(itemId, DocWriteRequest.OpType.INDEX, new BulkItemResponse.Failure(request.index(),
+                request.type(), request.id(), new ElasticsearchStatusException(status.name(), status)));
+    }
+}
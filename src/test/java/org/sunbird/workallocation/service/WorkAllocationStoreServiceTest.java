@@ -0,0 +1,228 @@
+package org.sunbird.workallocation.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.sunbird.common.util.CbExtServerProperties;
+import org.sunbird.core.exception.ApplicationLogicError;
+import org.sunbird.workallocation.model.WorkAllocationCassandraModel;
+import org.sunbird.workallocation.model.WorkAllocationDTOV2;
+import org.sunbird.workallocation.model.WorkOrderCassandraModel;
+import org.sunbird.workallocation.model.WorkOrderDTO;
+import org.sunbird.workallocation.repo.WorkAllocationRepo;
+import org.sunbird.workallocation.repo.WorkOrderRepo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WorkAllocationStoreServiceTest {
+
+    private static final String WORK_ORDER_ID = "work-order-1";
+    private static final String WORK_ALLOCATION_ID = "work-allocation-1";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private WorkOrderRepo workOrderRepo;
+
+    private WorkAllocationRepo workAllocationRepo;
+
+    private WorkAllocationStoreService storeService;
+
+    @BeforeEach
+    public void setUp() {
+        workOrderRepo = mock(WorkOrderRepo.class);
+        workAllocationRepo = mock(WorkAllocationRepo.class);
+        CbExtServerProperties properties = new CbExtServerProperties();
+        properties.setWorkOrderCopyWriteParallelism(1);
+        properties.setWorkAllocationCacheMaxSize(100);
+        properties.setWorkAllocationCacheTtl(60000);
+        storeService = new WorkAllocationStoreService();
+        ReflectionTestUtils.setField(storeService, "workOrderRepo", workOrderRepo);
+        ReflectionTestUtils.setField(storeService, "workAllocationRepo", workAllocationRepo);
+        ReflectionTestUtils.setField(storeService, "cbExtServerProperties", properties);
+        storeService.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        storeService.destroy();
+    }
+
+    @Test
+    public void nextVersionIsLaterThanThePreviousOne() {
+        long now = System.currentTimeMillis();
+        assertTrue(WorkAllocationStoreService.nextVersion(now - 1000) >= now);
+        long future = now + 3_600_000;
+        assertEquals(future + 1, WorkAllocationStoreService.nextVersion(future));
+    }
+
+    @Test
+    public void updateWorkOrderAppliesTheChangeAgainWhenChangedConcurrently() throws Exception {
+        String first = workOrderData("first", 100);
+        String second = workOrderData("second", 200);
+        when(workOrderRepo.findById(any())).thenReturn(Optional.of(new WorkOrderCassandraModel(WORK_ORDER_ID, first)),
+                Optional.of(new WorkOrderCassandraModel(WORK_ORDER_ID, second)));
+        when(workOrderRepo.updateIfUnchanged(eq(WORK_ORDER_ID), anyString(), eq(first))).thenReturn(false);
+        when(workOrderRepo.updateIfUnchanged(eq(WORK_ORDER_ID), anyString(), eq(second))).thenReturn(true);
+        List<String> changedNames = new ArrayList<>();
+
+        WorkOrderDTO workOrder = storeService.updateWorkOrder(WORK_ORDER_ID, storedWorkOrder -> {
+            changedNames.add(storedWorkOrder.getName());
+            storedWorkOrder.setStatus("Published");
+            return true;
+        });
+
+        assertEquals(Arrays.asList("first", "second"), changedNames);
+        assertEquals("second", workOrder.getName());
+        assertTrue(workOrder.getUpdatedAt() > 200);
+        ArgumentCaptor<String> saved = ArgumentCaptor.forClass(String.class);
+        verify(workOrderRepo).updateIfUnchanged(eq(WORK_ORDER_ID), saved.capture(), eq(second));
+        WorkOrderDTO savedWorkOrder = mapper.readValue(saved.getValue(), WorkOrderDTO.class);
+        assertEquals(workOrder.getUpdatedAt(), savedWorkOrder.getUpdatedAt());
+        assertEquals("Published", savedWorkOrder.getStatus());
+    }
+
+    @Test
+    public void updateWorkOrderGivesUpAfterTheMaximumAttempts() throws Exception {
+        when(workOrderRepo.findById(any()))
+                .thenReturn(Optional.of(new WorkOrderCassandraModel(WORK_ORDER_ID, workOrderData("first", 100))));
+        when(workOrderRepo.updateIfUnchanged(anyString(), anyString(), anyString())).thenReturn(false);
+
+        assertThrows(ApplicationLogicError.class, () -> storeService.updateWorkOrder(WORK_ORDER_ID, workOrder -> true));
+        verify(workOrderRepo, times(10)).updateIfUnchanged(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void updateWorkOrderReturnsNullWhenThereIsNone() throws Exception {
+        when(workOrderRepo.findById(any())).thenReturn(Optional.empty());
+
+        assertNull(storeService.updateWorkOrder(WORK_ORDER_ID, workOrder -> true));
+        verify(workOrderRepo, never()).updateIfUnchanged(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void unchangedWorkOrderIsNotSaved() throws Exception {
+        when(workOrderRepo.findById(any()))
+                .thenReturn(Optional.of(new WorkOrderCassandraModel(WORK_ORDER_ID, workOrderData("first", 100))));
+
+        WorkOrderDTO workOrder = storeService.updateWorkOrder(WORK_ORDER_ID, storedWorkOrder -> false);
+
+        assertEquals(100, workOrder.getUpdatedAt());
+        verify(workOrderRepo, never()).updateIfUnchanged(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void createWorkOrderFailsWhenTheIdExists() {
+        when(workOrderRepo.insertIfNotExists(eq(WORK_ORDER_ID), anyString())).thenReturn(false);
+
+        assertThrows(ApplicationLogicError.class, () -> storeService.createWorkOrder(workOrder("created", 100)));
+    }
+
+    @Test
+    public void updatedWorkOrderIsReadFromTheCache() throws Exception {
+        when(workOrderRepo.findById(any()))
+                .thenReturn(Optional.of(new WorkOrderCassandraModel(WORK_ORDER_ID, workOrderData("first", 100))));
+        when(workOrderRepo.updateIfUnchanged(anyString(), anyString(), anyString())).thenReturn(true);
+        WorkOrderDTO updated = storeService.updateWorkOrder(WORK_ORDER_ID, storedWorkOrder -> {
+            storedWorkOrder.setName("renamed");
+            return true;
+        });
+        clearInvocations(workOrderRepo);
+
+        WorkOrderDTO cached = storeService.getWorkOrder(WORK_ORDER_ID);
+
+        assertEquals("renamed", cached.getName());
+        assertEquals(updated.getUpdatedAt(), cached.getUpdatedAt());
+        verify(workOrderRepo, never()).findById(any());
+    }
+
+    @Test
+    public void olderWorkOrderReadFromCassandraDoesNotReplaceTheCachedOne() throws Exception {
+        when(workOrderRepo.insertIfNotExists(eq(WORK_ORDER_ID), anyString())).thenReturn(true);
+        storeService.createWorkOrder(workOrder("created", 200));
+        when(workOrderRepo.findById(any()))
+                .thenReturn(Optional.of(new WorkOrderCassandraModel(WORK_ORDER_ID, workOrderData("stale", 100))));
+
+        assertEquals("stale", storeService.loadWorkOrder(WORK_ORDER_ID).getName());
+        assertEquals("created", storeService.getWorkOrder(WORK_ORDER_ID).getName());
+    }
+
+    @Test
+    public void laterWorkOrderReadFromCassandraReplacesTheCachedOne() throws Exception {
+        when(workOrderRepo.insertIfNotExists(eq(WORK_ORDER_ID), anyString())).thenReturn(true);
+        storeService.createWorkOrder(workOrder("created", 200));
+        when(workOrderRepo.findById(any()))
+                .thenReturn(Optional.of(new WorkOrderCassandraModel(WORK_ORDER_ID, workOrderData("changed elsewhere", 300))));
+
+        storeService.loadWorkOrder(WORK_ORDER_ID);
+
+        assertEquals("changed elsewhere", storeService.getWorkOrder(WORK_ORDER_ID).getName());
+    }
+
+    @Test
+    public void savedWorkAllocationReplacesTheCachedOne() throws Exception {
+        when(workAllocationRepo.findAllById(any())).thenReturn(Collections.singletonList(
+                new WorkAllocationCassandraModel(WORK_ALLOCATION_ID, workAllocationData("loaded", 300))));
+        storeService.loadWorkAllocation(WORK_ALLOCATION_ID);
+
+        storeService.saveWorkAllocation(workAllocation("saved", 200));
+
+        assertEquals("saved", storeService.getWorkAllocation(WORK_ALLOCATION_ID).getUserName());
+    }
+
+    @Test
+    public void deletedWorkAllocationIsRemovedFromTheCache() throws Exception {
+        storeService.saveWorkAllocation(workAllocation("saved", 200));
+        when(workAllocationRepo.findAllById(any())).thenReturn(Collections.emptyList());
+
+        storeService.deleteWorkAllocations(Collections.singletonList(WORK_ALLOCATION_ID));
+
+        verify(workAllocationRepo).deleteAll(any());
+        assertNull(storeService.getWorkAllocation(WORK_ALLOCATION_ID));
+    }
+
+    private WorkOrderDTO workOrder(String name, long updatedAt) {
+        WorkOrderDTO workOrder = new WorkOrderDTO();
+        workOrder.setId(WORK_ORDER_ID);
+        workOrder.setName(name);
+        workOrder.setUpdatedAt(updatedAt);
+        return workOrder;
+    }
+
+    private String workOrderData(String name, long updatedAt) throws JsonProcessingException {
+        return mapper.writeValueAsString(workOrder(name, updatedAt));
+    }
+
+    private WorkAllocationDTOV2 workAllocation(String userName, long updatedAt) {
+        WorkAllocationDTOV2 workAllocation = new WorkAllocationDTOV2();
+        workAllocation.setId(WORK_ALLOCATION_ID);
+        workAllocation.setUserName(userName);
+        workAllocation.setUpdatedAt(updatedAt);
+        return workAllocation;
+    }
+
+    private String workAllocationData(String userName, long updatedAt) throws JsonProcessingException {
+        return mapper.writeValueAsString(workAllocation(userName, updatedAt));
+    }
+}
@@ -0,0 +1,118 @@
+package org.sunbird.workallocation.service;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.sunbird.common.service.AdvisoryLockService;
+import org.sunbird.common.util.CbExtServerProperties;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WorkOrderCountReconcilerTest {
+
+    private static final String WORK_ORDER_INDEX = "workorder";
+    private static final String WORK_ORDER_INDEX_TYPE = "_doc";
+
+    private AllocationServiceV2 allocationServiceV2;
+
+    private IndexerService indexerService;
+
+    private AdvisoryLockService advisoryLockService;
+
+    private WorkOrderCountReconciler reconciler;
+
+    @BeforeEach
+    public void setUp() {
+        allocationServiceV2 = mock(AllocationServiceV2.class);
+        indexerService = mock(IndexerService.class);
+        advisoryLockService = mock(AdvisoryLockService.class);
+        CbExtServerProperties properties = new CbExtServerProperties();
+        properties.setWorkOrderCountReconcileBatchSize(2);
+        reconciler = new WorkOrderCountReconciler();
+        ReflectionTestUtils.setField(reconciler, "allocationServiceV2", allocationServiceV2);
+        ReflectionTestUtils.setField(reconciler, "indexerService", indexerService);
+        ReflectionTestUtils.setField(reconciler, "advisoryLockService", advisoryLockService);
+        ReflectionTestUtils.setField(reconciler, "cbExtServerProperties", properties);
+        ReflectionTestUtils.setField(reconciler, "workOrderIndex", WORK_ORDER_INDEX);
+        ReflectionTestUtils.setField(reconciler, "workOrderIndexType", WORK_ORDER_INDEX_TYPE);
+    }
+
+    @Test
+    public void countsOfAllWorkOrdersAreReconciledPageByPage() throws Exception {
+        holdLock(true);
+        SearchResponse firstPage = searchResponse("work-order-1", "work-order-2");
+        SearchResponse lastPage = searchResponse("work-order-3");
+        when(indexerService.getEsResult(eq(WORK_ORDER_INDEX), eq(WORK_ORDER_INDEX_TYPE), any()))
+                .thenReturn(firstPage, lastPage);
+        when(allocationServiceV2.reconcileWorkOrderCounts("work-order-1")).thenReturn(true);
+        when(allocationServiceV2.reconcileWorkOrderCounts("work-order-2")).thenReturn(false);
+        when(allocationServiceV2.reconcileWorkOrderCounts("work-order-3")).thenThrow(new IllegalStateException("failed"));
+
+        reconciler.reconcile();
+
+        ArgumentCaptor<SearchSourceBuilder> searches = ArgumentCaptor.forClass(SearchSourceBuilder.class);
+        verify(indexerService, times(2)).getEsResult(eq(WORK_ORDER_INDEX), eq(WORK_ORDER_INDEX_TYPE), searches.capture());
+        assertNull(searches.getAllValues().get(0).searchAfter());
+        assertArrayEquals(new Object[] { "work-order-2" }, searches.getAllValues().get(1).searchAfter());
+        Map<String, Object> stats = reconciler.getStats();
+        assertEquals(3L, stats.get("workOrdersChecked"));
+        assertEquals(1L, stats.get("workOrdersReconciled"));
+        assertTrue(String.valueOf(stats.get("lastError")).contains("work-order-3"));
+    }
+
+    @Test
+    public void countsAreNotReconciledWhileAnotherNodeHoldsTheLock() throws Exception {
+        holdLock(false);
+
+        reconciler.reconcile();
+
+        verify(indexerService, never()).getEsResult(anyString(), anyString(), any());
+        Map<String, Object> stats = reconciler.getStats();
+        assertEquals(0L, stats.get("workOrdersChecked"));
+        assertTrue((Long) stats.get("lastRunAt") > 0);
+    }
+
+    private void holdLock(boolean acquired) {
+        when(advisoryLockService.executeExclusively(anyLong(), any())).thenAnswer(invocation -> {
+            if (!acquired) {
+                return false;
+            }
+            ((ConnectionCallback<?>) invocation.getArgument(1)).doInConnection(null);
+            return true;
+        });
+    }
+
+    private static SearchResponse searchResponse(String... workOrderIds) {
+        SearchHit[] hits = new SearchHit[workOrderIds.length];
+        for (int i = 0; i < workOrderIds.length; i++) {
+            hits[i] = new SearchHit(i, workOrderIds[i], new Text(WORK_ORDER_INDEX_TYPE), Collections.emptyMap());
+            hits[i].sortValues(new Object[] { workOrderIds[i] }, new DocValueFormat[] { DocValueFormat.RAW });
+        }
+        SearchResponse searchResponse = mock(SearchResponse.class);
+        when(searchResponse.getHits()).thenReturn(new SearchHits(hits, hits.length, 1));
+        return searchResponse;
+    }
+}